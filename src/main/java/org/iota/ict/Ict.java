@@ -5,6 +5,7 @@ import org.apache.logging.log4j.Logger;
 import org.iota.ict.api.RestApi;
 import org.iota.ict.eee.*;
 import org.iota.ict.eee.chain.ChainedEffectListenerImplementation;
+import org.iota.ict.eee.dispatch.BackPressure;
 import org.iota.ict.eee.dispatch.ThreadedEffectDispatcherWithChainSupport;
 import org.iota.ict.ixi.IxiModuleHolder;
 import org.iota.ict.model.tangle.RingTangle;
@@ -13,6 +14,10 @@ import org.iota.ict.model.transaction.Transaction;
 import org.iota.ict.network.Neighbor;
 import org.iota.ict.network.Node;
 import org.iota.ict.network.gossip.GossipEvent;
+import org.iota.ict.network.gossip.GossipFilter;
+import org.iota.ict.network.gossip.GossipListener;
+import org.iota.ict.network.gossip.GossipSubscription;
+import org.iota.ict.network.gossip.GossipSubscriptionIndex;
 import org.iota.ict.std.BundleCollector;
 import org.iota.ict.utils.Constants;
 import org.iota.ict.utils.RestartableThread;
@@ -33,10 +38,11 @@ public class Ict extends RestartableThread implements IctInterface {
 
     // services
     protected final IxiModuleHolder moduleHolder = new IxiModuleHolder(Ict.this);
-    protected final ThreadedEffectDispatcherWithChainSupport effectDispatcher = new ThreadedEffectDispatcherWithChainSupport();
+    protected final ThreadedEffectDispatcherWithChainSupport effectDispatcher = new ThreadedEffectDispatcherWithChainSupport(LISTENER_QUEUE_CAPACITY, BackPressure.DROP_OLDEST);
     protected final RestApi restApi;
     protected final Tangle tangle;
     protected final BundleCollector bundleCollector;
+    protected final GossipSubscriptionIndex gossipSubscriptionIndex = new GossipSubscriptionIndex(effectDispatcher);
 
     // network
     protected final Node node;
@@ -44,6 +50,10 @@ public class Ict extends RestartableThread implements IctInterface {
     // inner state
     protected FinalProperties properties;
     public final static Logger LOGGER = LogManager.getLogger("Ict");
+    /**
+     * Each listener has its own queue so that a slow IXI module cannot stall the gossip for all others.
+     */
+    protected static final int LISTENER_QUEUE_CAPACITY = 10000;
     protected long roundStart = System.currentTimeMillis();
 
     protected Object notifySyncObject = new Object();
@@ -61,6 +71,7 @@ public class Ict extends RestartableThread implements IctInterface {
         this.bundleCollector = new BundleCollector(this);
 
         effectDispatcher.addChainedEnvironment(Constants.Environments.GOSSIP_PREPROCESSOR_CHAIN, Constants.Environments.GOSSIP);
+        effectDispatcher.addListener(gossipSubscriptionIndex);
 
         subWorkers.add(node);
         subWorkers.add(moduleHolder);
@@ -84,8 +95,9 @@ public class Ict extends RestartableThread implements IctInterface {
             }
             if (roundStart + properties.roundDuration() < System.currentTimeMillis()) {
                 node.newRound();
+                tangle.prune();
                 LOGGER.debug("memory: " + Runtime.getRuntime().totalMemory() / 1024 / 1024 + "MB / " + Runtime.getRuntime().maxMemory() / 1024 / 1024 + "MB (total/max)");
-                LOGGER.debug("tangle size: " + tangle.size() + " (" + Transaction.getAmountOfInstances() + " transaction instances alive)");
+                LOGGER.debug("tangle size: " + tangle.size() + " (" + Transaction.getAmountOfInstances() + " transaction instances alive), missing transactions referenced: " + tangle.amountOfWaitingLists());
                 node.log();
                 bundleCollector.log();
                 effectDispatcher.log();
@@ -101,6 +113,11 @@ public class Ict extends RestartableThread implements IctInterface {
         }
     }
 
+    @Override
+    public void onTerminated() {
+        tangle.closeLog();
+    }
+
     @Override
     public void addListener(EffectListener listener) {
         effectDispatcher.addListener(listener);
@@ -111,6 +128,11 @@ public class Ict extends RestartableThread implements IctInterface {
         effectDispatcher.removeListener(listener);
     }
 
+    @Override
+    public GossipSubscription subscribeToGossip(GossipFilter filter, GossipListener listener) {
+        return gossipSubscriptionIndex.subscribe(filter, listener);
+    }
+
     @Override
     public void submitEffect(Environment environment, Object effect) {
         effectDispatcher.submitEffect(environment, effect);
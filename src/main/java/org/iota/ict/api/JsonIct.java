@@ -126,7 +126,7 @@ public class JsonIct {
 
         Set<String> neighbors = properties.neighbors();
         neighbors.add(address);
-        if(neighbors.size() > Constants.MAX_NEIGHBOR_COUNT)
+        if(neighbors.size() > properties.maxNeighbors())
             throw new IllegalStateException("Already reached maximum amount of neighbors. Delete others first before adding new.");
         properties.neighbors(neighbors);
         ict.updateProperties(properties.toFinal());
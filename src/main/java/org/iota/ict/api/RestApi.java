@@ -1,6 +1,5 @@
 package org.iota.ict.api;
 
-import com.iota.curl.IotaCurlHash;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.iota.ict.IctInterface;
@@ -8,6 +7,7 @@ import org.iota.ict.utils.*;
 import org.iota.ict.utils.properties.FinalProperties;
 import org.iota.ict.utils.properties.Properties;
 import org.iota.ict.utils.properties.PropertiesUser;
+import org.iota.ict.utils.crypto.Curl;
 import spark.*;
 
 import java.io.File;
@@ -200,7 +200,7 @@ public class RestApi extends RestartableThread implements PropertiesUser {
             return "";
         if(!passwordHashes.containsKey(plain)) {
             String trytes = Trytes.fromAscii(plain);
-            String hash = IotaCurlHash.iotaCurlHash(trytes, trytes.length(), 27);
+            String hash = Curl.hash(trytes, 27);
             passwordHashes.put(plain, hash);
         }
         return passwordHashes.get(plain);
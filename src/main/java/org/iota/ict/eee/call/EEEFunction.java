@@ -3,18 +3,31 @@ package org.iota.ict.eee.call;
 import org.iota.ict.eee.EffectListener;
 import org.iota.ict.eee.dispatch.EffectDispatcher;
 
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Receives the requests of calls to a {@link FunctionEnvironment}. They are queued in {@link #requestQueue} until the
+ * implementing module takes them. Requests which do not fit into the bounded queue are dropped, their callers time out.
+ */
 public class EEEFunction implements EffectListener<String> {
 
+    public static final int DEFAULT_REQUEST_QUEUE_CAPACITY = 1000;
+
     private final FunctionEnvironment environment;
     private final FunctionReturnEnvironment returnEnvironment;
-    public final BlockingQueue<Request> requestQueue = new LinkedBlockingQueue<>();
+    public final BlockingQueue<Request> requestQueue;
+    private final AtomicLong droppedRequests = new AtomicLong();
 
     public EEEFunction(FunctionEnvironment environment) {
+        this(environment, DEFAULT_REQUEST_QUEUE_CAPACITY);
+    }
+
+    public EEEFunction(FunctionEnvironment environment, int requestQueueCapacity) {
         this.environment = environment;
         this.returnEnvironment = new FunctionReturnEnvironment(environment);
+        this.requestQueue = new ArrayBlockingQueue<>(requestQueueCapacity);
     }
 
     @Override
@@ -24,7 +37,15 @@ public class EEEFunction implements EffectListener<String> {
 
     @Override
     public void onReceive(String effect) {
-        requestQueue.add(new Request(effect));
+        if (!requestQueue.offer(new Request(effect)))
+            droppedRequests.incrementAndGet();
+    }
+
+    /**
+     * @return Amount of requests dropped because {@link #requestQueue} was full.
+     */
+    public long droppedRequests() {
+        return droppedRequests.get();
     }
 
     public class Request {
@@ -33,8 +54,9 @@ public class EEEFunction implements EffectListener<String> {
         public final String argument;
 
         public Request(String request) {
-            this.requestID = request.split(";")[0];
-            this.argument = request.contains(";") ? request.substring(requestID.length() + 1) : null;
+            int separator = request.indexOf(';');
+            this.requestID = separator < 0 ? request : request.substring(0, separator);
+            this.argument = separator < 0 ? null : request.substring(separator + 1);
         }
 
         public void submitReturn(EffectDispatcher dispatcher, String returnString) {
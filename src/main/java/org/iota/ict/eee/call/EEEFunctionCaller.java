@@ -1,6 +1,23 @@
 package org.iota.ict.eee.call;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface EEEFunctionCaller<T> {
 
+    /**
+     * Calls the function and blocks until it returned.
+     *
+     * @param timeoutMS {@code 0} to wait until the function returns, no matter how long it takes.
+     * @return The return value or {@code null} if the function did not return within {@code timeoutMS}.
+     */
     T call(FunctionEnvironment environment, T argument, long timeoutMS);
-}
\ No newline at end of file
+
+    /**
+     * Calls the function without blocking.
+     *
+     * @param timeoutMS {@code 0} to never time out.
+     * @return Future completed with the return value, or completed exceptionally with a {@link java.util.concurrent.TimeoutException}
+     *         if the function did not return within {@code timeoutMS}.
+     */
+    CompletableFuture<T> callAsync(FunctionEnvironment environment, T argument, long timeoutMS);
+}
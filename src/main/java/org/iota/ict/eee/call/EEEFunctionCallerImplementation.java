@@ -4,63 +4,152 @@ import org.iota.ict.eee.EffectListener;
 import org.iota.ict.eee.Environment;
 import org.iota.ict.eee.dispatch.EffectDispatcher;
 
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Calls {@link EEEFunction}s by submitting requests into their {@link FunctionEnvironment}. Each request carries an ID
+ * which is unique for this caller. A single {@link ReturnListener} per {@link FunctionReturnEnvironment} routes the
+ * returns to the pending calls by that ID, so the cost of a return does not depend on the amount of pending calls. The
+ * listeners stay registered until {@link #unregisterReturnListener(FunctionEnvironment)} or {@link #close()} is called.
+ * <p>
+ * If the dispatcher isolates listeners with {@link org.iota.ict.eee.dispatch.BackPressure#DROP_OLDEST}, returns can be
+ * dropped while the return listener is behind. The respective calls then time out, or never complete if called without
+ * timeout.
+ */
 public class EEEFunctionCallerImplementation implements EEEFunctionCaller<String> {
 
+    private static final AtomicLong callerCounter = new AtomicLong();
+    private static final ScheduledExecutorService timeouts = createTimeoutScheduler();
+
     private final EffectDispatcher dispatcher;
+    private final String callerID = "C" + callerCounter.incrementAndGet() + "_";
+    private final AtomicLong requestCounter = new AtomicLong();
+    private final ConcurrentMap<String, PendingCall> pendingCalls = new ConcurrentHashMap<>();
+    private final ConcurrentMap<FunctionReturnEnvironment, ReturnListener> returnListeners = new ConcurrentHashMap<>();
 
     public EEEFunctionCallerImplementation(EffectDispatcher dispatcher) {
         this.dispatcher = dispatcher;
     }
 
+    private static ScheduledExecutorService createTimeoutScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "EEEFunctionCallTimeouts");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        scheduler.setRemoveOnCancelPolicy(true);
+        return scheduler;
+    }
+
     @Override
     public String call(FunctionEnvironment environment, String argument, long timeoutMS) {
+        try {
+            return callAsync(environment, argument, timeoutMS).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | CancellationException e) {
+            // timed out or return listener unregistered
+            return null;
+        }
+    }
 
-        String requestID = generateRequestID();
-        String request = requestID+";"+argument;
+    @Override
+    public CompletableFuture<String> callAsync(FunctionEnvironment environment, String argument, long timeoutMS) {
+        final String requestID = callerID + requestCounter.incrementAndGet();
         FunctionReturnEnvironment returnEnvironment = new FunctionReturnEnvironment(environment);
-        ReturnListener returnListener = new ReturnListener(returnEnvironment, requestID);
+        final PendingCall response = new PendingCall(returnEnvironment);
+        registerReturnListener(returnEnvironment);
+        pendingCalls.put(requestID, response);
 
-        dispatcher.addListener(returnListener);
-        dispatcher.submitEffect(environment, request);
-        String response = returnListener.waitForResponse(timeoutMS);
-        dispatcher.removeListener(returnListener);
+        if (timeoutMS != 0)
+            scheduleTimeout(requestID, response, timeoutMS);
+
+        dispatcher.submitEffect(environment, requestID + ";" + argument);
         return response;
     }
 
-    private static String generateRequestID() {
-        return "" + System.currentTimeMillis()+Math.random();
+    private void scheduleTimeout(final String requestID, final PendingCall response, long timeoutMS) {
+        final ScheduledFuture<?> timeout = timeouts.schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (pendingCalls.remove(requestID) != null)
+                    response.completeExceptionally(new TimeoutException("no return within timeout"));
+            }
+        }, timeoutMS, TimeUnit.MILLISECONDS);
+        response.whenComplete(new BiConsumer<String, Throwable>() {
+            @Override
+            public void accept(String returned, Throwable throwable) {
+                timeout.cancel(false);
+            }
+        });
+    }
+
+    private void registerReturnListener(FunctionReturnEnvironment returnEnvironment) {
+        if (returnListeners.containsKey(returnEnvironment))
+            return;
+        ReturnListener listener = new ReturnListener(returnEnvironment);
+        if (returnListeners.putIfAbsent(returnEnvironment, listener) == null)
+            dispatcher.addListener(listener);
+    }
+
+    /**
+     * Stops listening for returns of {@code environment}. Calls to it which are still pending are cancelled. Calling the
+     * function again registers a new listener.
+     */
+    public void unregisterReturnListener(FunctionEnvironment environment) {
+        FunctionReturnEnvironment returnEnvironment = new FunctionReturnEnvironment(environment);
+        ReturnListener listener = returnListeners.remove(returnEnvironment);
+        if (listener != null)
+            dispatcher.removeListener(listener);
+        for (Map.Entry<String, PendingCall> pendingCall : pendingCalls.entrySet())
+            if (pendingCall.getValue().returnEnvironment.equals(returnEnvironment) && pendingCalls.remove(pendingCall.getKey(), pendingCall.getValue()))
+                pendingCall.getValue().cancel(false);
+    }
+
+    /**
+     * Unregisters all return listeners from the dispatcher and cancels all pending calls.
+     */
+    public void close() {
+        for (ReturnListener listener : returnListeners.values()) {
+            if (returnListeners.remove(listener.environment, listener))
+                dispatcher.removeListener(listener);
+        }
+        for (Map.Entry<String, PendingCall> pendingCall : pendingCalls.entrySet())
+            if (pendingCalls.remove(pendingCall.getKey(), pendingCall.getValue()))
+                pendingCall.getValue().cancel(false);
+    }
+
+    /**
+     * @return Amount of calls which neither returned nor timed out yet.
+     */
+    public int pendingCalls() {
+        return pendingCalls.size();
     }
 
     private class ReturnListener implements EffectListener<String> {
 
         private final FunctionReturnEnvironment environment;
-        private final String requestID;
-        private String response = null;
 
-        private ReturnListener(FunctionReturnEnvironment environment, String requestID) {
+        private ReturnListener(FunctionReturnEnvironment environment) {
             this.environment = environment;
-            this.requestID = requestID;
         }
 
         @Override
         public void onReceive(String effect) {
-            String responseID;
-            if(effect.contains(";") && (responseID = effect.split(";")[0]).equals(requestID)) {
-                this.response = effect.substring(responseID.length()+1);
-                synchronized (this) {
-                    this.notify();
-                }
-            }
-        }
-
-        private String waitForResponse(long timeoutMS) {
-            if(response == null)
-                try {
-                    synchronized (this) {
-                        this.wait(timeoutMS);
-                    }
-                } catch (InterruptedException e) { }
-            return response;
+            int separator = effect.indexOf(';');
+            if (separator < 0)
+                return;
+            // returns of other callers are ignored
+            PendingCall response = pendingCalls.remove(effect.substring(0, separator));
+            if (response != null)
+                response.complete(effect.substring(separator + 1));
         }
 
         @Override
@@ -68,4 +157,13 @@ public class EEEFunctionCallerImplementation implements EEEFunctionCaller<String
             return environment;
         }
     }
-}
\ No newline at end of file
+
+    private static class PendingCall extends CompletableFuture<String> {
+
+        private final FunctionReturnEnvironment returnEnvironment;
+
+        private PendingCall(FunctionReturnEnvironment returnEnvironment) {
+            this.returnEnvironment = returnEnvironment;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package org.iota.ict.eee.chain;
+
+/**
+ * Marks {@link ChainedEffectListener}s whose {@link ChainedEffectListener#onReceive(Object)} returns immediately (e.g.
+ * because it only queues the effect) and is thread-safe. Effects passed on to such a listener are handed over directly by
+ * the thread passing them on instead of going through the queue of the dispatcher.
+ */
+public interface DirectHandOff {
+}
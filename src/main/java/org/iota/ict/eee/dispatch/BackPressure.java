@@ -0,0 +1,22 @@
+package org.iota.ict.eee.dispatch;
+
+/**
+ * Determines what a {@link ThreadedEffectDispatcher} does with an effect for an isolated listener whose queue is full.
+ */
+public enum BackPressure {
+
+    /**
+     * Removes the oldest effect waiting in the queue to make space for the new one.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Waits until the listener has made space. Slows down the dispatcher and therefore all other listeners.
+     */
+    BLOCK,
+
+    /**
+     * Drops the new effect.
+     */
+    SHED
+}
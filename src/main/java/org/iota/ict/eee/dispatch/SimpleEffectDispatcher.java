@@ -3,36 +3,79 @@ package org.iota.ict.eee.dispatch;
 import org.iota.ict.eee.EffectListener;
 import org.iota.ict.eee.Environment;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Calls the listeners of an environment directly on the thread submitting the effect.
+ * <p>
+ * The listeners are kept in a copy-on-write registry: each environment maps to an array of its listeners which is replaced
+ * whenever a listener is added or removed. Dispatching iterates over the array it read without any locks, so listeners can
+ * be added and removed from any thread while effects are being dispatched.
+ */
 public class SimpleEffectDispatcher<T> implements EffectDispatcher<T> {
 
-    protected Map<Environment, Set<EffectListener<T>>> listenersByEnvironment = new HashMap<>();
+    private static final EffectListener[] NO_LISTENERS = new EffectListener[0];
+
+    protected final ConcurrentMap<Environment, EffectListener[]> listenersByEnvironment = new ConcurrentHashMap<>();
 
     public void addListener(EffectListener listener) {
-        Set<EffectListener<T>> effectListenersOfEnvironment = listenersByEnvironment.get(listener.getEnvironment());
-        if(effectListenersOfEnvironment == null) {
-            effectListenersOfEnvironment = new HashSet<>();
-            listenersByEnvironment.put(listener.getEnvironment(), effectListenersOfEnvironment);
+        synchronized (listenersByEnvironment) {
+            EffectListener[] listeners = listenersOf(listener.getEnvironment());
+            for (EffectListener registered : listeners)
+                if (registered.equals(listener))
+                    return;
+            EffectListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+            updated[listeners.length] = listener;
+            listenersByEnvironment.put(listener.getEnvironment(), updated);
         }
-        effectListenersOfEnvironment.add(listener);
     }
 
     @Override
     public void removeListener(EffectListener<T> listener) {
-        Set<EffectListener<T>> listeners = listenersByEnvironment.get(listener.getEnvironment());
-        if(listeners != null)
-            listeners.remove(listener);
+        synchronized (listenersByEnvironment) {
+            EffectListener[] listeners = listenersOf(listener.getEnvironment());
+            for (int i = 0; i < listeners.length; i++) {
+                if (listeners[i].equals(listener)) {
+                    if (listeners.length == 1) {
+                        listenersByEnvironment.remove(listener.getEnvironment());
+                    } else {
+                        EffectListener[] updated = new EffectListener[listeners.length - 1];
+                        System.arraycopy(listeners, 0, updated, 0, i);
+                        System.arraycopy(listeners, i + 1, updated, i, updated.length - i);
+                        listenersByEnvironment.put(listener.getEnvironment(), updated);
+                    }
+                    return;
+                }
+            }
+        }
     }
 
+    @SuppressWarnings("unchecked")
     public void submitEffect(Environment environment, T effect) {
-        Set<EffectListener<T>> listeners = listenersByEnvironment.get(environment);
+        EffectListener[] listeners = listenersByEnvironment.get(environment);
         if (listeners != null)
-            for (EffectListener<T> listener : listeners)
-                dispatch(listener, effect);
+            for (EffectListener listener : listeners)
+                dispatch((EffectListener<T>) listener, effect);
+    }
+
+    /**
+     * @return Snapshot of the listeners registered for {@code environment}. Must not be modified.
+     */
+    protected EffectListener[] listenersOf(Environment environment) {
+        EffectListener[] listeners = listenersByEnvironment.get(environment);
+        return listeners != null ? listeners : NO_LISTENERS;
+    }
+
+    /**
+     * @return Amount of listeners over all environments.
+     */
+    public int amountOfListeners() {
+        int amount = 0;
+        for (EffectListener[] listeners : listenersByEnvironment.values())
+            amount += listeners.length;
+        return amount;
     }
 
     protected void dispatch(EffectListener<T> listener, T effect) {
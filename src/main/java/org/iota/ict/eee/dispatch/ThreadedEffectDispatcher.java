@@ -2,23 +2,53 @@ package org.iota.ict.eee.dispatch;
 
 import org.apache.logging.log4j.Logger;
 import org.iota.ict.eee.EffectListener;
+import org.iota.ict.eee.EffectListenerQueue;
 import org.iota.ict.eee.Environment;
 import org.iota.ict.utils.RestartableThread;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Dispatches effects on its own thread. By default, all listeners are called one after another on that thread, so a slow
+ * listener delays all others.
+ * <p>
+ * If created with a listener queue capacity, listeners are isolated instead: each one gets a bounded queue and a
+ * {@link ListenerWorker} thread, so effects are still delivered in order per listener but a slow listener only delays
+ * itself. Once its queue is full, the {@link BackPressure} decides what happens. Listeners which only put effects into a
+ * queue themselves ({@link EffectListenerQueue}) are still called directly since they cannot block.
+ */
 public class ThreadedEffectDispatcher<T> extends RestartableThread implements EffectDispatcher<T> {
 
     protected final Logger logger;
     protected final EffectDispatcherImplementation implementation = new EffectDispatcherImplementation();
     protected final BlockingQueue<DispatchItem> toDispatch = new LinkedBlockingQueue<>();
 
+    protected final int listenerQueueCapacity;
+    protected final BackPressure backPressure;
+    protected final Map<EffectListener<T>, ListenerWorker> workers = new ConcurrentHashMap<>();
+
     public ThreadedEffectDispatcher(Logger logger) {
+        this(logger, 0, BackPressure.BLOCK);
+    }
+
+    /**
+     * @param listenerQueueCapacity Capacity of the queue of each isolated listener. {@code 0} to not isolate listeners.
+     * @param backPressure          Applied to effects for isolated listeners whose queue is full.
+     */
+    public ThreadedEffectDispatcher(Logger logger, int listenerQueueCapacity, BackPressure backPressure) {
         super(logger);
+        if (listenerQueueCapacity < 0)
+            throw new IllegalArgumentException("listener queue capacity must not be negative");
         this.logger = logger;
+        this.listenerQueueCapacity = listenerQueueCapacity;
+        this.backPressure = backPressure;
     }
 
     @Override
@@ -33,19 +63,60 @@ public class ThreadedEffectDispatcher<T> extends RestartableThread implements Ef
         }
     }
 
+    @Override
+    public void onStarted() {
+        synchronized (workers) {
+            for (ListenerWorker worker : workers.values())
+                if (!worker.isRunning())
+                    worker.start();
+        }
+    }
+
     @Override
     public void onTerminate() {
         runningThread.interrupt();
     }
 
+    @Override
+    public void onTerminated() {
+        synchronized (workers) {
+            for (ListenerWorker worker : workers.values())
+                if (worker.isRunning())
+                    worker.terminate();
+        }
+    }
+
     @Override
     public void addListener(EffectListener<T> listener) {
+        if (isolates(listener)) {
+            synchronized (workers) {
+                if (!workers.containsKey(listener)) {
+                    ListenerWorker worker = new ListenerWorker(listener);
+                    workers.put(listener, worker);
+                    if (isRunning())
+                        worker.start();
+                }
+            }
+        }
         implementation.addListener(listener);
     }
 
     @Override
     public void removeListener(EffectListener<T> listener) {
         implementation.removeListener(listener);
+        ListenerWorker worker;
+        synchronized (workers) {
+            worker = workers.remove(listener);
+        }
+        if (worker != null && worker.isRunning())
+            worker.terminate();
+    }
+
+    /**
+     * @return Whether {@code listener} gets its own queue and worker thread.
+     */
+    protected boolean isolates(EffectListener<T> listener) {
+        return listenerQueueCapacity > 0 && !(listener instanceof EffectListenerQueue);
     }
 
     @Override
@@ -53,15 +124,34 @@ public class ThreadedEffectDispatcher<T> extends RestartableThread implements Ef
         toDispatch.add(new DispatchItem(environment, effect));
     }
 
-    public void log() {
-        int amountOfListeners = 0;
-        for(Map.Entry<Environment, Set<EffectListener<T>>> entry : implementation.listenersByEnvironment.entrySet())
-            amountOfListeners += entry.getValue().size();
+    /**
+     * Delivers an effect to a single listener right away, bypassing the dispatch queue. Isolated listeners still receive
+     * it through their own queue.
+     */
+    protected void deliver(EffectListener<T> listener, T effect) {
+        implementation.dispatch(listener, effect);
+    }
 
+    /**
+     * @return Lag of each isolated listener.
+     */
+    public List<ListenerLag> listenerLags() {
+        List<ListenerLag> lags = new ArrayList<>();
+        for (ListenerWorker worker : workers.values())
+            lags.add(new ListenerLag(worker.listener, worker.queue.size(), worker.delivered.get(), worker.dropped.get()));
+        return lags;
+    }
+
+    public void log() {
+        int amountOfListeners = implementation.amountOfListeners();
         int undispatched = toDispatch.size();
         logger.debug("gossip listeners: " + amountOfListeners + " / gossip queue size: " + undispatched);
         if (undispatched > 1000)
             logger.warn("There is a backlog of " + undispatched + " effects to be dispatched. This can cause memory and communication issues. Possible causes are (1) A listener is taking too long to process effects, (2) there are too many listeners (3) there are too many effects.");
+        for (ListenerLag lag : listenerLags()) {
+            if (lag.backlog > listenerQueueCapacity / 2 || lag.dropped > 0)
+                logger.warn("Listener " + lag.listener + " is lagging behind: " + lag.backlog + " effects waiting, " + lag.dropped + " dropped (" + backPressure + "), " + lag.delivered + " delivered.");
+        }
         // TODO self-analyze cause
     }
 
@@ -69,7 +159,12 @@ public class ThreadedEffectDispatcher<T> extends RestartableThread implements Ef
 
         @Override
         protected void dispatch(EffectListener<T> listener, T effect) {
-            if(isRunning())
+            if(!isRunning())
+                return;
+            ListenerWorker worker = listenerQueueCapacity > 0 ? workers.get(listener) : null;
+            if (worker != null)
+                worker.enqueue(effect);
+            else
                 super.dispatch(listener, effect);
         }
     }
@@ -83,4 +178,84 @@ public class ThreadedEffectDispatcher<T> extends RestartableThread implements Ef
             this.effect = effect;
         }
     }
+
+    /**
+     * Delivers the effects of a single isolated listener in the order in which they were dispatched.
+     */
+    protected class ListenerWorker extends RestartableThread {
+
+        private final EffectListener<T> listener;
+        private final BlockingQueue<T> queue;
+        private final AtomicLong delivered = new AtomicLong(), dropped = new AtomicLong();
+
+        protected ListenerWorker(EffectListener<T> listener) {
+            super(null);
+            this.listener = listener;
+            this.queue = new ArrayBlockingQueue<>(listenerQueueCapacity);
+        }
+
+        private void enqueue(T effect) {
+            switch (backPressure) {
+                case BLOCK:
+                    try {
+                        queue.put(effect);
+                    } catch (InterruptedException e) {
+                        dropped.incrementAndGet();
+                        Thread.currentThread().interrupt();
+                    }
+                    break;
+                case SHED:
+                    if (!queue.offer(effect))
+                        dropped.incrementAndGet();
+                    break;
+                case DROP_OLDEST:
+                    while (!queue.offer(effect))
+                        if (queue.poll() != null)
+                            dropped.incrementAndGet();
+                    break;
+            }
+        }
+
+        @Override
+        public void run() {
+            while (isRunning()) {
+                try {
+                    // idle workers sleep until an effect arrives, onTerminate() interrupts them
+                    T effect = queue.take();
+                    listener.onReceive(effect);
+                    delivered.incrementAndGet();
+                } catch (InterruptedException e) {
+                    // terminating
+                } catch (Throwable t) {
+                    // logger of this worker is null to not log the lifecycle of every worker
+                    ThreadedEffectDispatcher.this.logger.error("Listener " + listener + " failed to process effect.", t);
+                }
+            }
+        }
+
+        @Override
+        public void onTerminate() {
+            runningThread.interrupt();
+        }
+    }
+
+    /**
+     * Snapshot of how far an isolated listener is behind.
+     */
+    public static class ListenerLag {
+
+        public final EffectListener listener;
+        /**
+         * Amount of effects waiting in the queue of the listener.
+         */
+        public final int backlog;
+        public final long delivered, dropped;
+
+        ListenerLag(EffectListener listener, int backlog, long delivered, long dropped) {
+            this.listener = listener;
+            this.backlog = backlog;
+            this.delivered = delivered;
+            this.dropped = dropped;
+        }
+    }
 }
@@ -3,87 +3,172 @@ package org.iota.ict.eee.dispatch;
 import org.apache.logging.log4j.LogManager;
 import org.iota.ict.eee.*;
 import org.iota.ict.eee.chain.ChainedEffectListener;
-import org.iota.ict.eee.chain.ChainedEffectListenerImplementation;
 import org.iota.ict.eee.chain.ChainedEnvironment;
-import org.iota.ict.network.gossip.GossipPreprocessor;
+import org.iota.ict.eee.chain.DirectHandOff;
 
 import java.util.*;
 
+/**
+ * Routes effects submitted into a {@link ChainedEnvironment} (as {@link ChainedEffectListener.Output}) to the listener at
+ * the next chain position, or into the final environment once the end of the chain has been reached.
+ * <p>
+ * The listeners of each chain are compiled into a {@link Chain}, an array of positions, which is rebuilt whenever a chained
+ * listener is added or removed. Routing happens directly on the thread submitting the effect with a binary search. If all
+ * listeners at the next position are {@link DirectHandOff}s, the effect is handed over to them directly. Otherwise it is
+ * queued like any other effect.
+ */
 public class ThreadedEffectDispatcherWithChainSupport extends ThreadedEffectDispatcher {
 
-    private final Set<ChainedEnvironment> chainedEnvironments = new HashSet<>();
-    private final List<ChainedEffectListenerImplementation> chainedEffectListenersOrderedByPosition = new LinkedList<>();
+    private final Map<ChainedEnvironment, Environment> finalEnvironments = new HashMap<>();
+    private final List<ChainedEffectListener> chainedEffectListeners = new ArrayList<>();
+    /**
+     * Compiled chains, replaced as a whole on every change.
+     */
+    private volatile Map<ChainedEnvironment, Chain> chains = Collections.emptyMap();
 
     public ThreadedEffectDispatcherWithChainSupport() {
         super(LogManager.getLogger("TEDwCS"));
     }
 
-    public void addChainedEnvironment(ChainedEnvironment chainedEnvironment, Environment finalEnvironment) {
-        if(chainedEnvironments.contains(chainedEnvironment))
+    /**
+     * @see ThreadedEffectDispatcher#ThreadedEffectDispatcher(org.apache.logging.log4j.Logger, int, BackPressure)
+     */
+    public ThreadedEffectDispatcherWithChainSupport(int listenerQueueCapacity, BackPressure backPressure) {
+        super(LogManager.getLogger("TEDwCS"), listenerQueueCapacity, backPressure);
+    }
+
+    public synchronized void addChainedEnvironment(ChainedEnvironment chainedEnvironment, Environment finalEnvironment) {
+        if(finalEnvironments.containsKey(chainedEnvironment))
             throw new IllegalArgumentException("Chained environment " + chainedEnvironment + " is already registered.");
-        addListener(new ChainedEnvironmentHandler(chainedEnvironment, finalEnvironment));
-        chainedEnvironments.add(chainedEnvironment);
+        finalEnvironments.put(chainedEnvironment, finalEnvironment);
+        compileChains();
     }
 
     @Override
     public void addListener(EffectListener listener) {
-        super.addListener(listener);
         if(listener instanceof ChainedEffectListener) {
             ChainedEffectListener chainedEffectListener = (ChainedEffectListener) listener;
-            if(!chainedEnvironments.contains(chainedEffectListener.getChainedEnvironment()))
-                throw new IllegalArgumentException("Chained environment " + chainedEffectListener.getChainedEnvironment() + " is not registered.");
-            chainedEffectListenersOrderedByPosition.add((ChainedEffectListenerImplementation)listener);
-            sortGossipPreprocessors();
+            synchronized (this) {
+                if(!finalEnvironments.containsKey(chainedEffectListener.getChainedEnvironment()))
+                    throw new IllegalArgumentException("Chained environment " + chainedEffectListener.getChainedEnvironment() + " is not registered.");
+                super.addListener(listener);
+                if(!chainedEffectListeners.contains(chainedEffectListener))
+                    chainedEffectListeners.add(chainedEffectListener);
+                compileChains();
+            }
+        } else {
+            super.addListener(listener);
         }
     }
 
-    private void sortGossipPreprocessors() {
-        Collections.sort(chainedEffectListenersOrderedByPosition, new Comparator<ChainedEffectListenerImplementation>() {
-            @Override
-            public int compare(ChainedEffectListenerImplementation o1, ChainedEffectListenerImplementation o2) {
-                return Long.compare(o1.getChainPosition(), o2.getChainPosition());
+    @Override
+    public void removeListener(EffectListener listener) {
+        if(listener instanceof ChainedEffectListener) {
+            synchronized (this) {
+                super.removeListener(listener);
+                chainedEffectListeners.remove(listener);
+                compileChains();
             }
-        });
+        } else {
+            super.removeListener(listener);
+        }
     }
 
     @Override
-    public void removeListener(EffectListener listener) {
-        if(listener instanceof GossipPreprocessor) {
-            chainedEffectListenersOrderedByPosition.remove(listener);
+    public void submitEffect(Environment environment, Object effect) {
+        Chain chain = environment instanceof ChainedEnvironment ? chains.get(environment) : null;
+        if(chain != null && effect instanceof ChainedEffectListener.Output) {
+            ChainedEffectListener.Output output = (ChainedEffectListener.Output) effect;
+            chain.route(output.getChainPosition(), output.getEffect());
+        } else {
+            super.submitEffect(environment, effect);
         }
-        super.removeListener(listener);
     }
 
-    private ChainedEffectListener findChainSuccessor(Environment environment, long position) {
-        for(ChainedEffectListener chainedEffectListener : chainedEffectListenersOrderedByPosition)
-            if(chainedEffectListener.getChainPosition() > position && chainedEffectListener.getChainedEnvironment().equals(environment))
-                return chainedEffectListener;
-        return null;
+    private void compileChains() {
+        Map<ChainedEnvironment, Chain> compiled = new HashMap<>();
+        for(Map.Entry<ChainedEnvironment, Environment> entry : finalEnvironments.entrySet())
+            compiled.put(entry.getKey(), compileChain(entry.getKey(), entry.getValue()));
+        chains = compiled;
     }
 
-    private class ChainedEnvironmentHandler implements EffectListener<ChainedEffectListener.Output> {
+    private Chain compileChain(ChainedEnvironment chainedEnvironment, Environment finalEnvironment) {
+        TreeMap<Long, List<ChainedEffectListener>> listenersByPosition = new TreeMap<>();
+        for(ChainedEffectListener listener : chainedEffectListeners) {
+            if(!listener.getChainedEnvironment().equals(chainedEnvironment))
+                continue;
+            List<ChainedEffectListener> listenersAtPosition = listenersByPosition.get(listener.getChainPosition());
+            if(listenersAtPosition == null) {
+                listenersAtPosition = new ArrayList<>();
+                listenersByPosition.put(listener.getChainPosition(), listenersAtPosition);
+            }
+            listenersAtPosition.add(listener);
+        }
+
+        long[] positions = new long[listenersByPosition.size()];
+        Environment[] environments = new Environment[positions.length];
+        EffectListener[][] directListeners = new EffectListener[positions.length][];
+        int i = 0;
+        for(Map.Entry<Long, List<ChainedEffectListener>> entry : listenersByPosition.entrySet()) {
+            positions[i] = entry.getKey();
+            // all listeners at a position share the environment of that position
+            environments[i] = entry.getValue().get(0).getEnvironment();
+            directListeners[i] = allDirectHandOff(entry.getValue()) ? entry.getValue().toArray(new EffectListener[0]) : null;
+            i++;
+        }
+        return new Chain(finalEnvironment, positions, environments, directListeners);
+    }
+
+    private static boolean allDirectHandOff(List<ChainedEffectListener> listeners) {
+        for(ChainedEffectListener listener : listeners)
+            if(!(listener instanceof DirectHandOff))
+                return false;
+        return true;
+    }
+
+    private class Chain {
 
-        private final ChainedEnvironment chainedEnvironment;
         private final Environment finalEnvironment;
+        private final long[] positions;
+        private final Environment[] environments;
+        /**
+         * Listeners at each position if all of them accept a direct hand-off, {@code null} otherwise.
+         */
+        private final EffectListener[][] directListeners;
 
-        private ChainedEnvironmentHandler(ChainedEnvironment chainedEnvironment, Environment finalEnvironment) {
-            this.chainedEnvironment = chainedEnvironment;
+        private Chain(Environment finalEnvironment, long[] positions, Environment[] environments, EffectListener[][] directListeners) {
             this.finalEnvironment = finalEnvironment;
+            this.positions = positions;
+            this.environments = environments;
+            this.directListeners = directListeners;
         }
 
-        @Override
-        public void onReceive(ChainedEffectListener.Output output) {
-            ChainedEffectListener successor = findChainSuccessor(chainedEnvironment, output.getChainPosition());
-            if(successor != null) {
-                submitEffect(successor.getEnvironment(), output.getEffect());
-            } else if(finalEnvironment != null) {
-                submitEffect(finalEnvironment, output.getEffect());
+        private void route(long passedOnFrom, Object effect) {
+            int successor = indexOfSuccessor(passedOnFrom);
+            if(successor == positions.length) {
+                if(finalEnvironment != null)
+                    ThreadedEffectDispatcherWithChainSupport.super.submitEffect(finalEnvironment, effect);
+            } else if(directListeners[successor] != null) {
+                for(EffectListener listener : directListeners[successor])
+                    deliver(listener, effect);
+            } else {
+                ThreadedEffectDispatcherWithChainSupport.super.submitEffect(environments[successor], effect);
             }
         }
 
-        @Override
-        public Environment getEnvironment() {
-            return chainedEnvironment;
+        /**
+         * @return Index of the first position greater than {@code position}, {@code positions.length} if there is none.
+         */
+        private int indexOfSuccessor(long position) {
+            int low = 0, high = positions.length;
+            while(low < high) {
+                int middle = (low + high) >>> 1;
+                if(positions[middle] <= position)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+            return low;
         }
     }
 }
@@ -2,6 +2,9 @@ package org.iota.ict.ixi;
 
 import org.iota.ict.eee.dispatch.EffectDispatcher;
 import org.iota.ict.model.transaction.Transaction;
+import org.iota.ict.network.gossip.GossipFilter;
+import org.iota.ict.network.gossip.GossipListener;
+import org.iota.ict.network.gossip.GossipSubscription;
 
 import java.util.Set;
 
@@ -10,7 +13,7 @@ public interface Ixi extends EffectDispatcher {
     /**
      * Searches the local tangle for transaction associated with a specific address.
      * @param address The 81-tryte address for which to find all transactions.
-     * @return All transactions found in the local tangle with the specific address field.
+     * @return All transactions found in the local tangle with the specific address field. The set is a read-only view.
      * */
     Set<Transaction> findTransactionsByAddress(String address);
 
@@ -18,7 +21,7 @@ public interface Ixi extends EffectDispatcher {
     /**
      * Searches the local tangle for transaction associated with a specific tag.
      * @param tag The 27-tryte tag for which to find all transactions.
-     * @return All transactions found in the local tangle with the specific tag field.
+     * @return All transactions found in the local tangle with the specific tag field. The set is a read-only view.
      * */
     Set<Transaction> findTransactionsByTag(String tag);
 
@@ -34,4 +37,13 @@ public interface Ixi extends EffectDispatcher {
      * @param transaction The transaction to broadcast.
      * */
     void submit(Transaction transaction);
+
+    /**
+     * Registers a listener for gossip passing a filter. The filters of all subscriptions are matched together in one
+     * index, which is cheaper than registering a listener on all gossip and filtering it in every module.
+     * @param filter The gossip to receive. Later changes to the filter require {@link GossipSubscription#updateFilter(GossipFilter)}.
+     * @param listener Receives all gossip passing the filter.
+     * @return The subscription to update the filter or to cancel the subscription.
+     * */
+    GossipSubscription subscribeToGossip(GossipFilter filter, GossipListener listener);
 }
@@ -47,6 +47,16 @@ public class BalanceChange implements BalanceChangeInterface {
         return address;
     }
 
+    /**
+     * @return {@link #value} as {@code long}.
+     * @throws ArithmeticException if the value does not fit into a {@code long}.
+     */
+    public long longValue() {
+        if (value.bitLength() >= 64)
+            throw new ArithmeticException("value does not fit into a long");
+        return value.longValue();
+    }
+
     public int getAmountOfSignatureOrMessageFragments() {
         return signatureOrMessage.length() / SIGNATURE_FRAGMENTS_LENGTH;
     }
@@ -61,7 +71,7 @@ public class BalanceChange implements BalanceChangeInterface {
     }
 
     public boolean isInput() {
-        return value.compareTo(BigInteger.ZERO) < 0;
+        return value.signum() < 0;
     }
 
     public boolean isOutput() {
@@ -1,6 +1,7 @@
 package org.iota.ict.model.bc;
 
 import org.iota.ict.model.transaction.TransactionBuilder;
+import org.iota.ict.utils.crypto.Curl;
 
 import java.util.List;
 
@@ -8,5 +9,10 @@ public interface BalanceChangeBuilderInterface extends BalanceChangeInterface {
 
     String getEssence();
 
+    /**
+     * Absorbs the trytes of {@link #getEssence()} into {@code sponge} without concatenating them.
+     */
+    void absorbEssence(Curl sponge);
+
     List<TransactionBuilder> getBuildersFromTailToHead();
 }
@@ -1,14 +1,15 @@
 package org.iota.ict.model.bc;
 
-import com.iota.curl.IotaCurlHash;
 import org.iota.ict.model.transfer.Transfer;
 import org.iota.ict.model.transaction.Transaction;
 import org.iota.ict.model.transaction.TransactionBuilder;
 import org.iota.ict.utils.Constants;
+import org.iota.ict.utils.crypto.Curl;
 
 import java.math.BigInteger;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.ListIterator;
 
 /**
  * The {@link BalanceChangeCollector} makes it possible to accumulate transactions which are part of the same {@link BalanceChange}
@@ -20,20 +21,24 @@ public class BalanceChangeCollector implements BalanceChangeBuilderInterface {
     private static final int SIGNATURE_FRAGMENTS_LENGTH = Transaction.Field.SIGNATURE_FRAGMENTS.tryteLength;
 
     private final String address;
-    private BigInteger value;
+    /**
+     * Sum of the transaction values. Kept as {@code long} until it overflows, after that in {@link #bigValue}.
+     */
+    private long value;
+    private BigInteger bigValue;
     public final StringBuilder signatureOrMessage = new StringBuilder();
     private final List<TransactionBuilder> buildersFromTailToHead;
 
     public BalanceChangeCollector(Transaction transaction) {
         this.address = transaction.address();
-        this.value = transaction.value;
+        addValue(transaction);
         signatureOrMessage.append(transaction.signatureFragments());
         this.buildersFromTailToHead = createTransactionBuildersFromTailToHead();
     }
 
     @Override
     public BigInteger getValue() {
-        return value;
+        return bigValue != null ? bigValue : BigInteger.valueOf(value);
     }
 
     @Override
@@ -50,18 +55,36 @@ public class BalanceChangeCollector implements BalanceChangeBuilderInterface {
     @Override
     public String getEssence() {
         StringBuilder essence = new StringBuilder();
-        for (TransactionBuilder builder : buildersFromTailToHead) {
-            essence.insert(0, builder.getEssence()).insert(0, isInput() ? "" : IotaCurlHash.iotaCurlHash(builder.signatureFragments, builder.signatureFragments.length(), Constants.CURL_ROUNDS_BUNDLE_HASH));
+        boolean isInput = isInput();
+        for (ListIterator<TransactionBuilder> it = buildersFromTailToHead.listIterator(buildersFromTailToHead.size()); it.hasPrevious(); ) {
+            TransactionBuilder builder = it.previous();
+            if (!isInput)
+                essence.append(Curl.hash(builder.signatureFragments, Constants.CURL_ROUNDS_BUNDLE_HASH));
+            essence.append(builder.getEssence());
         }
         return essence.toString();
     }
 
+    @Override
+    public void absorbEssence(Curl sponge) {
+        boolean isInput = isInput();
+        for (ListIterator<TransactionBuilder> it = buildersFromTailToHead.listIterator(buildersFromTailToHead.size()); it.hasPrevious(); ) {
+            TransactionBuilder builder = it.previous();
+            if (!isInput)
+                sponge.absorbTrytes(Curl.hash(builder.signatureFragments, Constants.CURL_ROUNDS_BUNDLE_HASH));
+            builder.absorbEssence(sponge);
+        }
+    }
+
     /**
      * Constructor for outputs.
      * */
     public BalanceChangeCollector(String address, BigInteger value, String message) {
         this.address = address;
-        this.value = value;
+        if (value.bitLength() < 64)
+            this.value = value.longValue();
+        else
+            this.bigValue = value;
         this.signatureOrMessage.append(message);
         this.buildersFromTailToHead = createTransactionBuildersFromTailToHead();
     }
@@ -72,7 +95,7 @@ public class BalanceChangeCollector implements BalanceChangeBuilderInterface {
             boolean isFirstTransaction = signatureOrMessageOffset == 0;
             TransactionBuilder builder = new TransactionBuilder();
             builder.address = address;
-            builder.value = isFirstTransaction ? value : BigInteger.ZERO;
+            builder.value = isFirstTransaction ? getValue() : BigInteger.ZERO;
             builder.signatureFragments = signatureOrMessage.substring(signatureOrMessageOffset, signatureOrMessageOffset + SIGNATURE_FRAGMENTS_LENGTH);
             buildersFromTailToHead.add(0, builder);
         }
@@ -83,12 +106,24 @@ public class BalanceChangeCollector implements BalanceChangeBuilderInterface {
     public void append(Transaction transaction) {
         if (!address.equals(transaction.address()))
             throw new IllegalArgumentException("cannot append transaction from different address");
-        value = value.add(transaction.value);
+        addValue(transaction);
         signatureOrMessage.append(transaction.signatureFragments());
     }
 
+    private void addValue(Transaction transaction) {
+        if (bigValue == null && transaction.valueFitsLong()) {
+            try {
+                value = Math.addExact(value, transaction.longValue());
+                return;
+            } catch (ArithmeticException e) {
+                // continue with BigInteger
+            }
+        }
+        bigValue = getValue().add(transaction.value());
+    }
+
     public boolean isInput() {
-        return value.compareTo(BigInteger.ZERO) < 0;
+        return bigValue != null ? bigValue.signum() < 0 : value < 0;
     }
 
     public boolean isOutput() {
@@ -99,6 +134,6 @@ public class BalanceChangeCollector implements BalanceChangeBuilderInterface {
         if(buildersFromTailToHead.size() == 0)
             throw new IllegalStateException("Empty: no transactions.");
         assert signatureOrMessage.length()%Transaction.Field.SIGNATURE_FRAGMENTS.tryteLength == 0;
-        return new BalanceChange(address, value, signatureOrMessage.toString());
+        return new BalanceChange(address, getValue(), signatureOrMessage.toString());
     }
 }
@@ -1,13 +1,12 @@
 package org.iota.ict.model.bundle;
 
-import com.iota.curl.IotaCurlHash;
 import org.iota.ict.Ict;
 import org.iota.ict.model.bc.BalanceChange;
 import org.iota.ict.model.transfer.Transfer;
 import org.iota.ict.model.transaction.Transaction;
 import org.iota.ict.utils.Constants;
+import org.iota.ict.utils.crypto.Curl;
 
-import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -20,6 +19,9 @@ import java.util.List;
  * tail (see {@link Transaction#isBundleTail}). A bundle must always start with a bundle head and must end with a bundle
  * tail. Each inner transaction must be neither. If this principle is violated, the bundle structure is considered invalid.
  * This can be queried with {@link #isStructureValid()}.
+ * <p>
+ * The bundle hash is calculated incrementally: whenever {@link #build()} fetches new transactions, they are absorbed into
+ * a {@link Curl} sponge, directly from their compressed bytes. The hash is squeezed once the bundle is complete.
  *
  * @see Transfer for value and signature related functionality.
  * @see BundleBuilder as a tool to create a new bundles.
@@ -28,6 +30,12 @@ public class Bundle {
     private final ArrayList<Transaction> transactions = new ArrayList<>();
     private boolean complete, structureValid;
     private String hash;
+    private Curl sponge = new Curl(Constants.CURL_ROUNDS_BUNDLE_HASH);
+    /**
+     * Amount of transactions (from the head on) which have been absorbed into {@link #sponge}.
+     */
+    private int absorbed;
+    private BalanceChange currentInput;
 
     /**
      * Fetches the bundle from a bundle head transaction which points to the entire bundle.
@@ -65,16 +73,21 @@ public class Bundle {
             fetchedLast = fetchedLast.getTrunk();
         }
 
+        if (!fetchedLast.isBundleTail && fetchedLast.isBundleHead && transactions.size() > 1) {
+            complete(false); // new bundle opened by head before current bundle closed by tail
+            return;
+        }
+
+        absorbFetchedTransactions();
         if (fetchedLast.isBundleTail)
             complete(true);
-
-        if (!fetchedLast.isBundleTail && fetchedLast.isBundleHead && transactions.size() > 1)
-            complete(false); // new bundle opened by head before current bundle closed by tail
     }
 
     private void complete(boolean structureValid) {
         this.structureValid = structureValid;
-        hash = calcHash();
+        if (structureValid)
+            hash = sponge.squeeze();
+        sponge = null;
         complete = true;
     }
 
@@ -102,28 +115,36 @@ public class Bundle {
         return hash;
     }
 
-    private String calcHash() {
-        StringBuilder concat = new StringBuilder();
-
-        BalanceChange currentInput = null;
-        for (Transaction transaction : transactions) {
-            currentInput = determineInputOfTransaction(currentInput, transaction);
-            boolean transactionIsOutput = currentInput == null;
-            if (transactionIsOutput) {
-                String hashOfMessage = IotaCurlHash.iotaCurlHash(transaction.signatureFragments(), transaction.signatureFragments().length(), Constants.CURL_ROUNDS_BUNDLE_HASH);
-                concat.append(hashOfMessage);
-            }
-            concat.append(transaction.essence());
+    /**
+     * Absorbs the transactions fetched since the last call. Each transaction contributes its essence, outputs also the
+     * hash of their message. The messages are hashed together since they are independent of each other.
+     */
+    private void absorbFetchedTransactions() {
+        List<Transaction> fetched = transactions.subList(absorbed, transactions.size());
+        boolean[] isOutput = new boolean[fetched.size()];
+        List<Transaction> outputs = new ArrayList<>();
+        for (int i = 0; i < fetched.size(); i++) {
+            currentInput = determineInputOfTransaction(currentInput, fetched.get(i));
+            isOutput[i] = currentInput == null;
+            if (isOutput[i])
+                outputs.add(fetched.get(i));
         }
+        byte[] hashesOfMessages = Transaction.hashFields(outputs, Transaction.Field.SIGNATURE_FRAGMENTS, Constants.CURL_ROUNDS_BUNDLE_HASH);
 
-        return IotaCurlHash.iotaCurlHash(concat.toString(), concat.length(), Constants.CURL_ROUNDS_BUNDLE_HASH);
+        int messageIndex = 0;
+        for (int i = 0; i < fetched.size(); i++) {
+            if (isOutput[i])
+                sponge.absorb(hashesOfMessages, Curl.HASH_LENGTH * messageIndex++, Curl.HASH_LENGTH);
+            fetched.get(i).absorbField(Transaction.Field.ESSENCE, sponge);
+        }
+        absorbed = transactions.size();
     }
 
     private static BalanceChange determineInputOfTransaction(BalanceChange currentInput, Transaction transaction) {
-        if (currentInput != null && (transaction.value.compareTo(BigInteger.ZERO) != 0 || !currentInput.address.equals(transaction.address())))
+        if (currentInput != null && (transaction.valueSignum() != 0 || !currentInput.address.equals(transaction.address())))
             currentInput = null;
-        if (currentInput == null && transaction.value.compareTo(BigInteger.ZERO) < 0)
-            currentInput = new BalanceChange(transaction.address(), transaction.value, "");
+        if (currentInput == null && transaction.valueSignum() < 0)
+            currentInput = new BalanceChange(transaction.address(), transaction.value(), "");
         return currentInput;
 
     }
@@ -5,17 +5,33 @@ import org.iota.ict.model.transaction.Transaction;
 import org.iota.ict.utils.properties.FinalProperties;
 import org.iota.ict.utils.properties.PropertiesUser;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This Tangle prunes transactions after reaching a certain size. It works similar to a ring memory (hence the name).
  * The transactions are pruned in order of their timestamp, always keeping the N ({@link #capacity}) most recent ones.
  * As an exception, the NULL transaction will never be pruned away.
+ * <p>
+ * If the property {@code tangle_store} is set, the bytes of the transactions are kept in a {@link TransactionStore}
+ * with one slot per transaction instead of on the heap. If the property {@code tangle_log_dir} is set, all transactions
+ * are persisted in a {@link TransactionSegmentLog} from which the tangle is restored when created.
  */
 public class RingTangle extends Tangle implements PropertiesUser {
 
-    protected final PriorityBlockingQueue<Transaction> transactionsOrderedByTimestamp;
+    /**
+     * Limits the work done by a single insertion when the effective capacity dropped. The remaining transactions are pruned by {@link #prune()}.
+     */
+    protected static final int MAX_PRUNED_PER_INSERTION = 10;
+
+    protected final ConcurrentSkipListSet<Transaction> transactionsOrderedByTimestamp = new ConcurrentSkipListSet<>(TimestampComparator.INSTANCE);
+    /**
+     * Size of {@link #transactionsOrderedByTimestamp} which cannot be determined in constant time by the set itself.
+     */
+    protected final AtomicLong amountOfPrunableTransactions = new AtomicLong();
     protected long capacity;
     protected double maxHeapSize;
 
@@ -26,7 +42,39 @@ public class RingTangle extends Tangle implements PropertiesUser {
         super(ict);
         capacity = ict.getProperties().tangleCapacity();
         maxHeapSize = ict.getProperties().maxHeapSize();
-        transactionsOrderedByTimestamp = new PriorityBlockingQueue<>((int) Math.min(Integer.MAX_VALUE, capacity), TimestampComparator.INSTANCE);
+        store = createStore(ict.getProperties().tangleStore());
+        restoreFromLog(ict.getProperties().tangleLogDir());
+    }
+
+    /**
+     * @param directory Value of property {@code tangle_log_dir}.
+     */
+    protected void restoreFromLog(String directory) {
+        if (directory.isEmpty())
+            return;
+        try {
+            // 4 segments cover the whole capacity, the fifth one is being filled
+            int recordsPerSegment = (int) Math.min(Integer.MAX_VALUE, Math.max(1, capacity / 4));
+            restoreFromLog(new TransactionSegmentLog(new File(directory), recordsPerSegment, 5));
+        } catch (IOException e) {
+            LOGGER.error("Failed restoring tangle from log in '" + directory + "'.", e);
+        }
+    }
+
+    /**
+     * @param location Value of property {@code tangle_store}.
+     * @return Store for the transaction bytes or {@code null} to keep them on the heap.
+     */
+    protected TransactionStore createStore(String location) {
+        if (location.isEmpty())
+            return null;
+        try {
+            // the store cannot grow, transactions exceeding its capacity after increasing tangle_capacity will stay on the heap
+            return new TransactionStore((int) Math.min(Integer.MAX_VALUE, capacity), location);
+        } catch (IOException | OutOfMemoryError e) {
+            LOGGER.error("Failed creating transaction store '" + location + "', keeping transactions on heap instead.", e);
+            return null;
+        }
     }
 
     @Override
@@ -42,18 +90,48 @@ public class RingTangle extends Tangle implements PropertiesUser {
 
         // do not add NULL transaction to transactionsOrderedByTimestamp to prevent it from being pruned
 
-        if (transaction != Transaction.NULL_TRANSACTION && !transactionsOrderedByTimestamp.contains(log.transaction)) {
-            // transactionsOrderedByTimestamp == null only when calling the super constructor and adding NULL transaction
-            transactionsOrderedByTimestamp.put(transaction);
-            while (transactionsOrderedByTimestamp.size() + 1 > capacity * capacityFactor) { // +1 fpr NULL transaction
-                deleteTransaction(transactionsOrderedByTimestamp.poll());
-            }
+        // transactionsOrderedByTimestamp == null only when calling the super constructor and adding NULL transaction
+        if (transaction != Transaction.NULL_TRANSACTION && transactionsOrderedByTimestamp.add(log.transaction)) {
+            amountOfPrunableTransactions.incrementAndGet();
+            prune(MAX_PRUNED_PER_INSERTION);
             adjustTangleCapacityFactor();
         }
 
         return log;
     }
 
+    @Override
+    public void prune() {
+        super.prune();
+        prune(Long.MAX_VALUE);
+    }
+
+    /**
+     * Deletes the transactions with the lowest timestamps until the effective capacity is no longer exceeded.
+     *
+     * @param maxAmount Maximum amount of transactions to delete.
+     * @return Amount of deleted transactions.
+     */
+    protected long prune(long maxAmount) {
+        long pruned = 0;
+        while (pruned < maxAmount) {
+            long amount = amountOfPrunableTransactions.get();
+            if (amount + 1 <= capacity * capacityFactor) // +1 for NULL transaction
+                break;
+            // reserve the deletion first so concurrent insertions cannot prune the same excess transaction twice
+            if (!amountOfPrunableTransactions.compareAndSet(amount, amount - 1))
+                continue;
+            Transaction oldest = transactionsOrderedByTimestamp.pollFirst();
+            if (oldest == null) {
+                amountOfPrunableTransactions.incrementAndGet();
+                break;
+            }
+            deleteTransaction(oldest);
+            pruned++;
+        }
+        return pruned;
+    }
+
     protected void adjustTangleCapacityFactor() {
         if (System.currentTimeMillis() - lastCapacityFactorChangeTimestamp > 60000) {
             double availableToUsedMemoryRatio = (Runtime.getRuntime().maxMemory() * maxHeapSize) / Runtime.getRuntime().totalMemory();
@@ -81,7 +159,7 @@ public class RingTangle extends Tangle implements PropertiesUser {
         @Override
         public int compare(Transaction tl1, Transaction tl2) {
             int cmp = Long.compare(tl1.issuanceTimestamp, tl2.issuanceTimestamp);
-            return cmp == 0 ? tl1.hash.compareTo(tl2.hash) : cmp;
+            return cmp == 0 ? tl1.hashKey().compareTo(tl2.hashKey()) : cmp;
         }
 
         @Override
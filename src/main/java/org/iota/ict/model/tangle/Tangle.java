@@ -6,16 +6,24 @@ import org.iota.ict.Ict;
 import org.iota.ict.IctInterface;
 import org.iota.ict.model.transaction.Transaction;
 import org.iota.ict.network.Neighbor;
+import org.iota.ict.utils.ConcurrentMultiHashMap;
+import org.iota.ict.utils.Constants;
+import org.iota.ict.utils.HashKey;
 import org.iota.ict.utils.properties.FinalProperties;
 import org.iota.ict.utils.properties.PropertiesUser;
 
+import java.io.IOException;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Instances of this class provide a database which stores {@link Transaction} objects during runtime and allows to find
@@ -24,12 +32,31 @@ import java.util.concurrent.CopyOnWriteArrayList;
 public class Tangle implements PropertiesUser {
 
     protected static final Logger LOGGER = LogManager.getLogger("Tangle");
+    /**
+     * A missing transaction is requested again after this time if another referrer arrives. Its waiting list is dropped
+     * by {@link #prune()} if it has not been requested within this time.
+     */
+    protected static final long WAITING_LIST_EXPIRY_MS = 60000;
 
     protected final IctInterface ict;
-    protected final Map<String, TransactionLog> transactionsByHash = new ConcurrentHashMap<>();
-    protected final Map<String, List<TransactionLog>> transactionsByAddress = new ConcurrentHashMap<>();
-    protected final Map<String, List<TransactionLog>> transactionsByTag = new ConcurrentHashMap<>();
-    protected final Map<String, List<Transaction>> waitingReferrersTransactionsByHash = new ConcurrentHashMap<>();
+    protected final Map<HashKey, TransactionLog> transactionsByHash = new ConcurrentHashMap<>();
+    protected final ConcurrentMultiHashMap<HashKey, Transaction> transactionsByAddress = new ConcurrentMultiHashMap<>();
+    protected final ConcurrentMultiHashMap<HashKey, Transaction> transactionsByTag = new ConcurrentMultiHashMap<>();
+    protected final ConcurrentMap<HashKey, WaitingList> waitingReferrersTransactionsByHash = new ConcurrentHashMap<>();
+    /**
+     * Keeps the bytes of the stored transactions off the heap. {@code null} to keep them on the heap.
+     */
+    protected TransactionStore store;
+    /**
+     * Persists all added transactions. {@code null} if persistence is disabled.
+     */
+    protected TransactionSegmentLog segmentLog;
+    private boolean restoring;
+    /**
+     * Missing transactions referenced by transactions issued before are not requested to not request the full history,
+     * except for those referenced by the most recent transactions restored from the log.
+     */
+    private final long createdAt = System.currentTimeMillis();
 
     public Tangle(IctInterface ict) {
         this.ict = Objects.requireNonNull(ict, "'ict' must not null");
@@ -48,41 +75,68 @@ public class Tangle implements PropertiesUser {
     }
 
     public TransactionLog findTransactionLog(Transaction transaction) {
-        return transactionsByHash.get(transaction.hash);
+        return transactionsByHash.get(transaction.hashKey());
     }
 
     public Transaction findTransactionByHash(String hash) {
+        HashKey key = keyOrNull(hash);
+        return key != null ? findTransactionByHash(key) : null;
+    }
+
+    public Transaction findTransactionByHash(HashKey hash) {
         Tangle.TransactionLog log = transactionsByHash.get(hash);
         return log!=null ? log.transaction : null;
     }
 
+    /**
+     * @return Read-only view of all transactions with the address. Iterating over it while transactions are being added
+     *         or deleted does not fail.
+     */
     public Set<Transaction> findTransactionsByAddress(String address) {
-        Set<Transaction> transactions = new HashSet<>();
-        List<Tangle.TransactionLog> txByAddress = transactionsByAddress.get(address);
-        if (txByAddress!=null) {
-            for (TransactionLog log : txByAddress)
-                transactions.add(log.transaction);
-        }
-        return transactions;
+        return findTransactionsByKey(transactionsByAddress, keyOrNull(address));
     }
 
+    public Set<Transaction> findTransactionsByAddress(HashKey address) {
+        return findTransactionsByKey(transactionsByAddress, address);
+    }
+
+    /**
+     * @return Read-only view of all transactions with the tag. Iterating over it while transactions are being added
+     *         or deleted does not fail.
+     */
     public Set<Transaction> findTransactionsByTag(String tag) {
-        Set<Transaction> transactions = new HashSet<>();
-        List<Tangle.TransactionLog> txByTag = transactionsByTag.get(tag);
-        if (txByTag!=null) {
-            for (TransactionLog log : txByTag)
-                transactions.add(log.transaction);
+        return findTransactionsByKey(transactionsByTag, keyOrNull(tag));
+    }
+
+    public Set<Transaction> findTransactionsByTag(HashKey tag) {
+        return findTransactionsByKey(transactionsByTag, tag);
+    }
+
+    private static Set<Transaction> findTransactionsByKey(ConcurrentMultiHashMap<HashKey, Transaction> index, HashKey key) {
+        return key != null ? index.get(key) : Collections.<Transaction>emptySet();
+    }
+
+    /**
+     * @return Key of the tryte sequence or {@code null} if the sequence cannot be a hash, address or tag (e.g. non-tryte characters)
+     *         in which case no transaction can match it anyway.
+     */
+    private static HashKey keyOrNull(String trytes) {
+        try {
+            return HashKey.fromTrytes(trytes);
+        } catch (IllegalArgumentException e) {
+            return null;
         }
-        return transactions;
     }
 
     public void deleteTransaction(Transaction transaction) {
         transaction.setTrunk(null);
         transaction.setBranch(null);
-        TransactionLog log = transactionsByHash.remove(transaction.hash);
+        TransactionLog log = transactionsByHash.remove(transaction.hashKey());
         if (log != null) {
-            log.removeFromSetMap(transactionsByTag, transaction.tag());
-            log.removeFromSetMap(transactionsByAddress, transaction.address());
+            transactionsByTag.remove(transaction.tagKey(), log.transaction);
+            transactionsByAddress.remove(transaction.addressKey(), log.transaction);
+            // free the slot, the transaction might still be referenced somewhere else
+            transaction.moveBytesToHeap();
         }
     }
 
@@ -92,39 +146,155 @@ public class Tangle implements PropertiesUser {
     }
 
     private void buildEdgesToReferringTransactions(Transaction referred) {
-        if (waitingReferrersTransactionsByHash.containsKey(referred.hash)) {
-            List<Transaction> waiters = waitingReferrersTransactionsByHash.get(referred.hash);
-            for (Transaction waiter : waiters)
+        WaitingList waitingList = waitingReferrersTransactionsByHash.remove(referred.hashKey());
+        if (waitingList != null)
+            for (Transaction waiter : waitingList.referrers)
                 buildEdgesToReferencedTransactions(waiter);
-            waitingReferrersTransactionsByHash.remove(referred.hash);
-        }
     }
 
     private void buildEdgesToReferencedTransactions(Transaction referrer) {
-        referrer.setBranch(findTransactionOrPutOnWaitingList(referrer, referrer.branchHash()));
-        referrer.setTrunk(findTransactionOrPutOnWaitingList(referrer, referrer.trunkHash()));
+        referrer.setBranch(findTransactionOrPutOnWaitingList(referrer, referrer.branchHashKey()));
+        referrer.setTrunk(findTransactionOrPutOnWaitingList(referrer, referrer.trunkHashKey()));
     }
 
-    private Transaction findTransactionOrPutOnWaitingList(Transaction referrer, String branchOrTrunk) {
+    private Transaction findTransactionOrPutOnWaitingList(Transaction referrer, HashKey branchOrTrunk) {
         Transaction transaction = findTransactionByHash(branchOrTrunk);
-        if(transaction == null)
+        // the NULL transaction is referenced by transactions without a branch or trunk, it is never requested
+        if (transaction == null && !branchOrTrunk.equals(HashKey.NULL_HASH))
             addReferrerTransactionToWaitingList(referrer, branchOrTrunk);
         return transaction;
     }
 
-    private void addReferrerTransactionToWaitingList(Transaction referrer, String transactionToWaitFor) {
-        if (!waitingReferrersTransactionsByHash.containsKey(transactionToWaitFor)) {
-            waitingReferrersTransactionsByHash.put(transactionToWaitFor, new CopyOnWriteArrayList<Transaction>());
-            ict.request(transactionToWaitFor);
+    private void addReferrerTransactionToWaitingList(Transaction referrer, HashKey transactionToWaitFor) {
+        long now = System.currentTimeMillis();
+        WaitingList waitingList = waitingReferrersTransactionsByHash.get(transactionToWaitFor);
+        if (waitingList == null) {
+            WaitingList created = new WaitingList(now);
+            waitingList = waitingReferrersTransactionsByHash.putIfAbsent(transactionToWaitFor, created);
+            if (waitingList == null)
+                waitingList = created;
         }
-        List<Transaction> waitingList = waitingReferrersTransactionsByHash.get(transactionToWaitFor);
-        waitingList.add(referrer);
+        waitingList.referrers.add(referrer);
+        if (!restoring && referrer.issuanceTimestamp >= createdAt && isRecent(referrer, now))
+            requestIfNotRequestedRecently(transactionToWaitFor, waitingList, now);
+    }
+
+    /**
+     * Requests a missing transaction only once per {@link #WAITING_LIST_EXPIRY_MS} instead of once per referrer.
+     */
+    private void requestIfNotRequestedRecently(HashKey missing, WaitingList waitingList, long now) {
+        long requestedAt = waitingList.requestedAt.get();
+        if ((requestedAt == 0 || requestedAt + WAITING_LIST_EXPIRY_MS <= now) && waitingList.requestedAt.compareAndSet(requestedAt, now))
+            ict.request(missing.toString());
+    }
+
+    /**
+     * Neighbors neither forward nor accept transactions outside the timestamp tolerance, so transactions referenced by
+     * older ones could not be received anyway.
+     */
+    private static boolean isRecent(Transaction referrer, long now) {
+        return Math.abs(now - referrer.issuanceTimestamp) <= Constants.TIMESTAMP_DIFFERENCE_TOLERANCE_IN_MILLIS;
+    }
+
+    /**
+     * @return Amount of transactions referencing {@code hash} whose edge to it could not be built yet because it is missing.
+     */
+    public int amountOfWaitingReferrers(HashKey hash) {
+        WaitingList waitingList = waitingReferrersTransactionsByHash.get(hash);
+        return waitingList == null ? 0 : waitingList.referrers.size();
+    }
+
+    /**
+     * @return Amount of missing transactions referenced by transactions in this tangle.
+     */
+    public int amountOfWaitingLists() {
+        return waitingReferrersTransactionsByHash.size();
     }
 
     public int size() {
         return transactionsByHash.size();
     }
 
+    /**
+     * Deletes transactions which exceed the capacity of this tangle. Called regularly by the {@link Ict} so implementations
+     * do not have to do all the work while transactions are being added. Also drops the waiting lists of missing
+     * transactions which have not been requested within {@link #WAITING_LIST_EXPIRY_MS}, their referrers will not be
+     * linked to them should they arrive later.
+     */
+    public void prune() {
+        expireWaitingLists(System.currentTimeMillis());
+    }
+
+    protected void expireWaitingLists(long now) {
+        Iterator<WaitingList> iterator = waitingReferrersTransactionsByHash.values().iterator();
+        while (iterator.hasNext())
+            if (iterator.next().lastActivity() + WAITING_LIST_EXPIRY_MS <= now)
+                iterator.remove();
+    }
+
+    /**
+     * Adds all transactions from {@code segmentLog} and keeps persisting all transactions added afterwards into it.
+     * Transactions which are referenced but neither in the log nor in the tangle will be requested only once all others
+     * have been added instead of requesting every trunk and branch not restored yet. Only those referenced by transactions
+     * within the timestamp tolerance are requested, since neighbors would not send older ones.
+     *
+     * @param segmentLog The log to restore from and to persist into.
+     */
+    public void restoreFromLog(TransactionSegmentLog segmentLog) throws IOException {
+        List<Transaction> transactions = segmentLog.readAll();
+        restoring = true;
+        try {
+            for (Transaction transaction : transactions)
+                createTransactionLogIfAbsent(transaction);
+        } finally {
+            restoring = false;
+        }
+        long now = System.currentTimeMillis();
+        for (Map.Entry<HashKey, WaitingList> entry : waitingReferrersTransactionsByHash.entrySet()) {
+            for (Transaction referrer : entry.getValue().referrers) {
+                if (isRecent(referrer, now)) {
+                    requestIfNotRequestedRecently(entry.getKey(), entry.getValue(), now);
+                    break;
+                }
+            }
+        }
+        this.segmentLog = segmentLog;
+        LOGGER.info("Restored " + transactions.size() + " transactions from log.");
+    }
+
+    /**
+     * Closes the log into which transactions are persisted. It will be reopened when the next transaction is added.
+     */
+    public void closeLog() {
+        if (segmentLog != null) {
+            try {
+                segmentLog.close();
+            } catch (IOException e) {
+                LOGGER.error("Failed closing transaction log.", e);
+            }
+        }
+    }
+
+    /**
+     * Transactions referencing the same missing transaction.
+     */
+    protected static class WaitingList {
+        final List<Transaction> referrers = new CopyOnWriteArrayList<>();
+        final long createdAt;
+        /**
+         * When the missing transaction was requested last, {@code 0} if it has not been requested.
+         */
+        final AtomicLong requestedAt = new AtomicLong();
+
+        WaitingList(long createdAt) {
+            this.createdAt = createdAt;
+        }
+
+        long lastActivity() {
+            return Math.max(createdAt, requestedAt.get());
+        }
+    }
+
     public class TransactionLog {
         final Transaction transaction;
         public final Set<Neighbor> senders = new HashSet<>();
@@ -132,26 +302,24 @@ public class Tangle implements PropertiesUser {
 
         protected TransactionLog(Transaction transaction) {
             this.transaction = transaction;
-            transactionsByHash.put(transaction.hash, this);
-            insertIntoSetMap(transactionsByAddress, transaction.address());
-            insertIntoSetMap(transactionsByTag, transaction.tag());
+            transactionsByHash.put(transaction.hashKey(), this);
+            transactionsByAddress.add(transaction.addressKey(), transaction);
+            transactionsByTag.add(transaction.tagKey(), transaction);
 
             // buildEdges() must be called after transactionsByHash.put() because first tx (NULL tx) is referencing itself
             buildEdges(transaction);
-        }
 
-        protected <K> void insertIntoSetMap(Map<K, List<TransactionLog>> map, K key) {
-            if (!map.containsKey(key)) {
-                map.put(key, new CopyOnWriteArrayList<TransactionLog>());
-            }
-            map.get(key).add(this);
+            if (segmentLog != null)
+                persist(transaction);
+            if (store != null)
+                transaction.moveBytesTo(store);
         }
 
-        protected <K> void removeFromSetMap(Map<K, List<TransactionLog>> map, K key) {
-            if (map.containsKey(key)) {
-                map.get(key).remove(this);
-                if (map.get(key).size() == 0)
-                    map.remove(key);
+        private void persist(Transaction transaction) {
+            try {
+                segmentLog.append(transaction);
+            } catch (IOException e) {
+                LOGGER.error("Failed persisting transaction " + transaction.hash + ".", e);
             }
         }
     }
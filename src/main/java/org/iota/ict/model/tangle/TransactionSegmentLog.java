@@ -0,0 +1,184 @@
+package org.iota.ict.model.tangle;
+
+import org.iota.ict.model.transaction.Transaction;
+import org.iota.ict.utils.Constants;
+import org.iota.ict.utils.HashKey;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Append-only log of all transactions added to a {@link Tangle}. It allows to restore the tangle after a restart instead
+ * of requesting all transactions from the neighbors again. The log is split into segment files of a fixed amount of records.
+ * Only the most recent segments are kept, older ones are deleted since their transactions would have been pruned anyway.
+ * <p>
+ * Each record consists of the transaction hash followed by the transaction bytes. Storing the hash allows to restore the
+ * transactions without repeating the expensive hash calculation (see {@link Transaction#fromValidatedBytes(byte[], HashKey)}).
+ */
+public class TransactionSegmentLog {
+
+    static final String SEGMENT_PREFIX = "segment-", SEGMENT_SUFFIX = ".log";
+    static final int HASH_SIZE_BYTES = Transaction.Field.TRUNK_HASH.byteLength;
+    static final int RECORD_SIZE_BYTES = HASH_SIZE_BYTES + Constants.TRANSACTION_SIZE_BYTES;
+    private static final int RECORDS_PER_DECODE_TASK = 1000;
+
+    private final File directory;
+    private final int recordsPerSegment;
+    private final int segmentsKept;
+
+    private FileChannel currentSegment;
+    private long currentSegmentIndex;
+    private int recordsInCurrentSegment;
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(RECORD_SIZE_BYTES);
+    private final byte[] record = recordBuffer.array();
+
+    /**
+     * @param directory         Directory in which to keep the segment files. Will be created if it does not exist.
+     * @param recordsPerSegment Amount of transactions after which to start a new segment.
+     * @param segmentsKept      Amount of most recent segments to keep.
+     */
+    public TransactionSegmentLog(File directory, int recordsPerSegment, int segmentsKept) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs())
+            throw new IOException("Could not create directory '" + directory.getAbsolutePath() + "'.");
+        if (recordsPerSegment <= 0 || segmentsKept <= 0)
+            throw new IllegalArgumentException("recordsPerSegment and segmentsKept must be positive");
+        this.directory = directory;
+        this.recordsPerSegment = recordsPerSegment;
+        this.segmentsKept = segmentsKept;
+        List<Long> segmentIndexes = listSegmentIndexes();
+        currentSegmentIndex = segmentIndexes.isEmpty() ? 0 : segmentIndexes.get(segmentIndexes.size() - 1);
+    }
+
+    /**
+     * Appends a transaction to the current segment. Starts a new segment if the current one is full.
+     */
+    public synchronized void append(Transaction transaction) throws IOException {
+        if (currentSegment == null || recordsInCurrentSegment >= recordsPerSegment)
+            startNewSegment();
+        transaction.hashKey().writeBytes(record, 0);
+        transaction.copyBytes(record, HASH_SIZE_BYTES);
+        recordBuffer.clear();
+        while (recordBuffer.hasRemaining())
+            currentSegment.write(recordBuffer);
+        recordsInCurrentSegment++;
+    }
+
+    private void startNewSegment() throws IOException {
+        close();
+        currentSegmentIndex++;
+        currentSegment = new FileOutputStream(segmentFile(currentSegmentIndex)).getChannel();
+        recordsInCurrentSegment = 0;
+        deleteOldSegments();
+    }
+
+    private void deleteOldSegments() {
+        List<Long> segmentIndexes = listSegmentIndexes();
+        for (int i = 0; i < segmentIndexes.size() - segmentsKept; i++)
+            segmentFile(segmentIndexes.get(i)).delete();
+    }
+
+    /**
+     * Closes the current segment. Appending afterwards will start a new segment.
+     */
+    public synchronized void close() throws IOException {
+        if (currentSegment != null) {
+            currentSegment.close();
+            currentSegment = null;
+        }
+    }
+
+    /**
+     * Reads all logged transactions. The records are decoded in parallel. Incomplete records (e.g. when the node was
+     * killed while writing) are skipped.
+     *
+     * @return All logged transactions in the order in which they were appended.
+     */
+    public List<Transaction> readAll() throws IOException {
+        List<byte[]> records = new ArrayList<>();
+        for (long segmentIndex : listSegmentIndexes())
+            readRecords(segmentFile(segmentIndex), records);
+        return decode(records);
+    }
+
+    private static void readRecords(File segment, List<byte[]> records) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(segment)))) {
+            long amountOfRecords = segment.length() / RECORD_SIZE_BYTES;
+            for (long i = 0; i < amountOfRecords; i++) {
+                byte[] record = new byte[RECORD_SIZE_BYTES];
+                in.readFully(record);
+                records.add(record);
+            }
+        }
+    }
+
+    private static List<Transaction> decode(final List<byte[]> records) throws IOException {
+        int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), records.size() / RECORDS_PER_DECODE_TASK));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<List<Transaction>>> tasks = new LinkedList<>();
+            for (int start = 0; start < records.size(); start += RECORDS_PER_DECODE_TASK) {
+                final List<byte[]> chunk = records.subList(start, Math.min(records.size(), start + RECORDS_PER_DECODE_TASK));
+                tasks.add(executor.submit(new Callable<List<Transaction>>() {
+                    @Override
+                    public List<Transaction> call() {
+                        List<Transaction> transactions = new ArrayList<>(chunk.size());
+                        for (byte[] record : chunk) {
+                            Transaction transaction = decode(record);
+                            if (transaction != null)
+                                transactions.add(transaction);
+                        }
+                        return transactions;
+                    }
+                }));
+            }
+
+            List<Transaction> transactions = new ArrayList<>(records.size());
+            for (Future<List<Transaction>> task : tasks)
+                transactions.addAll(task.get());
+            return transactions;
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IOException("Failed decoding transaction log.", e);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * @return The decoded transaction or {@code null} if the record is corrupted.
+     */
+    private static Transaction decode(byte[] record) {
+        HashKey hash = HashKey.fromBytes(record, 0, HASH_SIZE_BYTES);
+        byte[] bytes = new byte[Constants.PACKET_SIZE_BYTES];
+        System.arraycopy(record, HASH_SIZE_BYTES, bytes, 0, Constants.TRANSACTION_SIZE_BYTES);
+        try {
+            return Transaction.fromValidatedBytes(bytes, hash);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private List<Long> listSegmentIndexes() {
+        List<Long> indexes = new ArrayList<>();
+        String[] names = directory.list();
+        if (names != null) {
+            for (String name : names) {
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    try {
+                        indexes.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                    } catch (NumberFormatException e) {
+                        // not a segment
+                    }
+                }
+            }
+        }
+        Collections.sort(indexes);
+        return indexes;
+    }
+
+    private File segmentFile(long segmentIndex) {
+        return new File(directory, SEGMENT_PREFIX + segmentIndex + SEGMENT_SUFFIX);
+    }
+}
@@ -0,0 +1,144 @@
+package org.iota.ict.model.tangle;
+
+import org.iota.ict.model.transaction.Transaction;
+import org.iota.ict.utils.Constants;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Stores the bytes of transactions outside of the Java heap. The storage is divided into fixed-size slots, each holding the
+ * {@link Constants#TRANSACTION_SIZE_BYTES} bytes of exactly one transaction. The slots are either backed by direct
+ * {@link ByteBuffer}s or by a memory-mapped file. Since the amount of slots is fixed, a full store rejects further
+ * transactions which then simply remain on the heap.
+ *
+ * @see Transaction#moveBytesTo(TransactionStore)
+ * @see RingTangle which uses this store when the property {@code tangle_store} is set.
+ */
+public class TransactionStore {
+
+    public static final String DIRECT = "direct";
+    public static final int SLOT_SIZE = Constants.TRANSACTION_SIZE_BYTES;
+    private static final int SLOTS_PER_SEGMENT = Integer.MAX_VALUE / SLOT_SIZE;
+
+    private final ByteBuffer[] segments;
+    private final int capacity;
+    private final int[] freeSlots;
+    private int amountOfFreeSlots;
+
+    /**
+     * @param capacity Amount of slots.
+     * @param location Either {@link #DIRECT} to allocate direct buffers or the path of the file to map into memory.
+     */
+    public TransactionStore(int capacity, String location) throws IOException {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive");
+        this.capacity = capacity;
+        segments = new ByteBuffer[(capacity - 1) / SLOTS_PER_SEGMENT + 1];
+        if (location.equals(DIRECT)) {
+            for (int i = 0; i < segments.length; i++)
+                segments[i] = ByteBuffer.allocateDirect(segmentSize(i));
+        } else {
+            mapSegments(new File(location));
+        }
+
+        freeSlots = new int[capacity];
+        for (int i = 0; i < capacity; i++)
+            freeSlots[i] = capacity - 1 - i; // lowest slots first
+        amountOfFreeSlots = capacity;
+    }
+
+    private void mapSegments(File file) throws IOException {
+        // the file only serves as swappable backing memory, its content is meaningless after a restart
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength((long) capacity * SLOT_SIZE);
+            FileChannel channel = randomAccessFile.getChannel();
+            for (int i = 0; i < segments.length; i++)
+                segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i * SLOTS_PER_SEGMENT * SLOT_SIZE, segmentSize(i));
+        }
+    }
+
+    private int segmentSize(int segmentIndex) {
+        int slotsInSegment = Math.min(SLOTS_PER_SEGMENT, capacity - segmentIndex * SLOTS_PER_SEGMENT);
+        return slotsInSegment * SLOT_SIZE;
+    }
+
+    /**
+     * Copies the transaction bytes into a free slot.
+     *
+     * @param bytes Array whose first {@link #SLOT_SIZE} bytes will be stored.
+     * @return Index of the slot or {@code -1} if the store is full.
+     */
+    public int store(byte[] bytes) {
+        int slot = allocateSlot();
+        if (slot >= 0) {
+            ByteBuffer buffer = segmentOf(slot);
+            buffer.position(offsetOf(slot));
+            buffer.put(bytes, 0, SLOT_SIZE);
+        }
+        return slot;
+    }
+
+    /**
+     * Copies bytes from a slot into an array.
+     *
+     * @param slot         Index of the slot to read from.
+     * @param offset       Index of the first byte to read relative to the beginning of the slot.
+     * @param target       Array to write into.
+     * @param targetOffset Index in {@code target} at which to write the first byte.
+     * @param length       Amount of bytes to read.
+     */
+    public void read(int slot, int offset, byte[] target, int targetOffset, int length) {
+        if (offset < 0 || offset + length > SLOT_SIZE)
+            throw new IndexOutOfBoundsException("cannot read " + length + " bytes at offset " + offset + " of slot");
+        ByteBuffer buffer = segmentOf(slot);
+        buffer.position(offsetOf(slot) + offset);
+        buffer.get(target, targetOffset, length);
+    }
+
+    /**
+     * Puts the whole content of a slot into {@code target} at its current position.
+     */
+    public void read(int slot, ByteBuffer target) {
+        ByteBuffer buffer = segmentOf(slot);
+        int offset = offsetOf(slot);
+        buffer.limit(offset + SLOT_SIZE);
+        buffer.position(offset);
+        target.put(buffer);
+    }
+
+    /**
+     * Marks a slot as free so it can be reused. The caller must not read from this slot afterwards.
+     */
+    public synchronized void free(int slot) {
+        if (slot < 0 || slot >= capacity)
+            throw new IndexOutOfBoundsException("slot " + slot + " does not exist");
+        freeSlots[amountOfFreeSlots++] = slot;
+    }
+
+    private synchronized int allocateSlot() {
+        return amountOfFreeSlots == 0 ? -1 : freeSlots[--amountOfFreeSlots];
+    }
+
+    private ByteBuffer segmentOf(int slot) {
+        if (slot < 0 || slot >= capacity)
+            throw new IndexOutOfBoundsException("slot " + slot + " does not exist");
+        // duplicate to get an independent position, the slots can be accessed by multiple threads concurrently
+        return segments[slot / SLOTS_PER_SEGMENT].duplicate();
+    }
+
+    private static int offsetOf(int slot) {
+        return slot % SLOTS_PER_SEGMENT * SLOT_SIZE;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public synchronized int size() {
+        return capacity - amountOfFreeSlots;
+    }
+}
@@ -1,19 +1,23 @@
 package org.iota.ict.model.transaction;
 
-import com.iota.curl.IotaCurlHash;
 import org.iota.ict.model.bundle.Bundle;
 import org.iota.ict.model.tangle.Tangle;
+import org.iota.ict.model.tangle.TransactionStore;
 import org.iota.ict.utils.Constants;
+import org.iota.ict.utils.HashKey;
 import org.iota.ict.utils.Trytes;
+import org.iota.ict.utils.crypto.BatchCurl;
+import org.iota.ict.utils.crypto.Curl;
 
 import java.math.BigInteger;
 import java.net.DatagramPacket;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.util.List;
 
 /**
  * Instances of this class are IOTA transactions which together form a tangle. Actually an IOTA transaction is no more
  * than a sequence of trytes. This class makes it possible to interpret these trytes and operate on them. A transaction's
- * tryte sequence consists of multiple tryte fields (e.g. {@link #address}, {@link #value}, {@link #nonce}, see {@link Transaction.Field}).
+ * tryte sequence consists of multiple tryte fields (e.g. {@link #address}, {@link #value()}, {@link #nonce}, see {@link Transaction.Field}).
  * of static length. With this class, these fields can be easily accessed. {@link Transaction} objects are data  objects,
  * and their fields are not supposed to change after instantiation. To create custom transaction, one should use {@link TransactionBuilder#build()}.
  *
@@ -23,6 +27,11 @@ import java.util.Arrays;
  */
 public class Transaction {
 
+    /**
+     * Below this amount of transactions, {@link #calcHashes(List)} hashes them one by one.
+     */
+    private static final int MIN_BATCH_SIZE = 4;
+
     protected static int amountOfInstances = 0;
     public static final Transaction NULL_TRANSACTION = new Transaction();
 
@@ -40,12 +49,26 @@ public class Transaction {
     public final long timelockLowerBound, timelockUpperBound;
     public final long attachmentTimestamp, attachmentTimestampLowerBound, attachmentTimestampUpperBound;
 
-    public BigInteger value;
+    /**
+     * Value of this transaction if it fits into a {@code long}. Decoded lazily, see {@link #decodeValue()}.
+     */
+    private long longValue;
+    /**
+     * Only set for values which do not fit into a {@code long}, {@code null} otherwise.
+     */
+    private BigInteger bigValue;
+    private volatile boolean valueDecoded;
     public final String hash;
+    private HashKey hashKey;
 
     public final boolean isBundleHead, isBundleTail;
 
-    private final byte[] bytes;
+    /**
+     * Bytes of this transaction. {@code null} while they are kept in the {@link #store} (see {@link #moveBytesTo(TransactionStore)}).
+     */
+    private volatile byte[] bytes;
+    private TransactionStore store;
+    private int slot = -1;
     transient Transaction branch;
     transient Transaction trunk;
 
@@ -59,7 +82,7 @@ public class Transaction {
         signatureFragments = generateNullTrytes(Field.SIGNATURE_FRAGMENTS);
         extraDataDigest = generateNullTrytes(Field.EXTRA_DATA_DIGEST);
         address = generateNullTrytes(Field.ADDRESS);
-        value = BigInteger.ZERO;
+        setValue(BigInteger.ZERO);
         issuanceTimestamp = 0;
         timelockLowerBound = 0;
         timelockUpperBound = 0;
@@ -93,7 +116,7 @@ public class Transaction {
         signatureFragments = builder.signatureFragments;
         extraDataDigest = builder.extraDataDigest;
         address = builder.address;
-        value = builder.value;
+        setValue(builder.value);
         issuanceTimestamp = builder.issuanceTimestamp;
         timelockLowerBound = builder.timelockLowerBound;
         timelockUpperBound = builder.timelockUpperBound;
@@ -112,7 +135,7 @@ public class Transaction {
 
         hash = curlHash(trytes);
         decodedSignatureFragments = Trytes.toAscii(signatureFragments);
-        System.arraycopy(Trytes.toBytes(trytes), 0, bytes, 0, Constants.TRANSACTION_SIZE_BYTES);
+        Trytes.toBytes(trytes, bytes, 0);
 
         byte[] hashTrits = Trytes.toTrits(hash);
         isBundleHead = isFlagSet(hashTrits, Constants.HashFlags.BUNDLE_HEAD_FLAG);
@@ -144,6 +167,31 @@ public class Transaction {
     }
 
     public Transaction(byte[] bytes) {
+        this(bytes, curlHash(bytes));
+    }
+
+    /**
+     * Creates a transaction from bytes whose hash is already known, skipping the expensive hash calculation. The hash is
+     * not verified, so this must only be used for bytes that have been validated before.
+     *
+     * @param bytes Bytes of the transaction (length = {@link Constants#PACKET_SIZE_BYTES}).
+     * @param hash  Hash of the transaction as calculated when it was validated.
+     * @return The transaction.
+     */
+    public static Transaction fromValidatedBytes(byte[] bytes, HashKey hash) {
+        Transaction transaction = new Transaction(bytes, hash.toString());
+        transaction.hashKey = hash;
+        return transaction;
+    }
+
+    /**
+     * Same as {@link #fromValidatedBytes(byte[], HashKey)}, e.g. for hashes calculated by {@link #calcHashes(List)}.
+     */
+    public static Transaction fromValidatedBytes(byte[] bytes, String hash) {
+        return new Transaction(bytes, hash);
+    }
+
+    private Transaction(byte[] bytes, String hash) {
         amountOfInstances++;
         assert bytes.length == Constants.PACKET_SIZE_BYTES;
         this.bytes = bytes;
@@ -155,9 +203,8 @@ public class Transaction {
         attachmentTimestamp = Trytes.toLong(decodeTryteField(Field.ATTACHMENT_TIMESTAMP));
         attachmentTimestampLowerBound = Trytes.toLong(decodeTryteField(Field.ATTACHMENT_TIMESTAMP_LOWER_BOUND));
         attachmentTimestampUpperBound = Trytes.toLong(decodeTryteField(Field.ATTACHMENT_TIMESTAMP_UPPER_BOUND));
-        value = Trytes.toNumber(decodeTryteField(Field.VALUE));
 
-        hash = curlHash(bytes);
+        this.hash = hash;
 
         byte[] hashTrits = Trytes.toTrits(hash);
         isBundleHead = isFlagSet(hashTrits, Constants.HashFlags.BUNDLE_HEAD_FLAG);
@@ -183,7 +230,10 @@ public class Transaction {
         putField(trytes, Field.SIGNATURE_FRAGMENTS, signatureFragments);
         putField(trytes, Field.EXTRA_DATA_DIGEST, extraDataDigest);
         putField(trytes, Field.ADDRESS, address);
-        putField(trytes, Field.VALUE, value);
+        if (bigValue != null)
+            putField(trytes, Field.VALUE, bigValue);
+        else
+            putField(trytes, Field.VALUE, longValue);
         putField(trytes, Field.ISSUANCE_TIMESTAMP, issuanceTimestamp);
         putField(trytes, Field.TIMELOCK_LOWER_BOUND, timelockLowerBound);
         putField(trytes, Field.TIMELOCK_UPPER_BOUND, timelockUpperBound);
@@ -199,24 +249,262 @@ public class Transaction {
         return new String(trytes);
     }
 
+    private void setValue(BigInteger value) {
+        if (value.bitLength() < 64)
+            longValue = value.longValue();
+        else
+            bigValue = value;
+        valueDecoded = true;
+    }
+
+    private void decodeValue() {
+        if (valueDecoded)
+            return;
+        // racing threads decode the same value, the volatile write publishes the fields
+        String trytes = decodeTryteField(Field.VALUE);
+        if (Trytes.fitsIntoLong(trytes)) {
+            longValue = Trytes.toLong(trytes);
+            valueDecoded = true;
+        } else {
+            setValue(Trytes.toNumber(trytes));
+        }
+    }
+
+    /**
+     * @return Value of this transaction. Prefer {@link #valueSignum()} or {@link #longValue()} which do not allocate.
+     */
+    public BigInteger value() {
+        decodeValue();
+        return bigValue != null ? bigValue : BigInteger.valueOf(longValue);
+    }
+
+    /**
+     * @return Value of this transaction.
+     * @throws ArithmeticException if the value does not fit into a {@code long} (see {@link #valueFitsLong()}).
+     */
+    public long longValue() {
+        decodeValue();
+        if (bigValue != null)
+            throw new ArithmeticException("value does not fit into a long");
+        return longValue;
+    }
+
+    public boolean valueFitsLong() {
+        decodeValue();
+        return bigValue == null;
+    }
+
+    /**
+     * @return {@code -1}, {@code 0} or {@code 1} if the value is negative, zero or positive.
+     */
+    public int valueSignum() {
+        decodeValue();
+        return bigValue != null ? bigValue.signum() : Long.signum(longValue);
+    }
+
     protected String decodeTryteField(Field field) {
-        return Trytes.fromBytes(bytes, field.byteOffset, field.byteLength);
+        byte[] bytes = this.bytes;
+        return bytes != null
+                ? Trytes.fromBytes(bytes, field.byteOffset, field.byteLength)
+                : Trytes.fromBytes(readBytes(field.byteOffset, field.byteLength), 0, field.byteLength);
+    }
+
+    protected HashKey decodeKeyField(Field field) {
+        byte[] bytes = this.bytes;
+        return bytes != null
+                ? HashKey.fromBytes(bytes, field.byteOffset, field.byteLength)
+                : HashKey.fromBytes(readBytes(field.byteOffset, field.byteLength), 0, field.byteLength);
+    }
+
+    /**
+     * Compares a field with a key directly on the compressed bytes, without decoding the field.
+     *
+     * @param field Field to compare, must be at most 81 trytes long.
+     * @return Whether the field equals the tryte sequence represented by {@code key}.
+     */
+    public boolean fieldEquals(Field field, HashKey key) {
+        byte[] bytes = this.bytes;
+        return bytes != null
+                ? key.equalsBytes(bytes, field.byteOffset, field.byteLength)
+                : key.equalsBytes(readBytes(field.byteOffset, field.byteLength), 0, field.byteLength);
+    }
+
+    /**
+     * @param field Field to hash, must be at most 81 trytes long.
+     * @return Hash code of the {@link HashKey} representing the field, calculated without decoding the field.
+     */
+    public int fieldHashCode(Field field) {
+        byte[] bytes = this.bytes;
+        return bytes != null
+                ? HashKey.hashCodeOfBytes(bytes, field.byteOffset, field.byteLength)
+                : HashKey.hashCodeOfBytes(readBytes(field.byteOffset, field.byteLength), 0, field.byteLength);
+    }
+
+    /**
+     * Moves the bytes of this transaction from the heap into a slot of {@code store}. Afterwards, fields will be decoded
+     * directly from that slot. Has no effect if the bytes are already stored somewhere or if the store is full.
+     *
+     * @return {@code true} if the bytes were moved.
+     */
+    public synchronized boolean moveBytesTo(TransactionStore store) {
+        if (bytes == null || this == NULL_TRANSACTION)
+            return false;
+        int slot = store.store(bytes);
+        if (slot < 0)
+            return false;
+        this.store = store;
+        this.slot = slot;
+        bytes = null;
+        return true;
+    }
+
+    /**
+     * Moves the bytes of this transaction back onto the heap and frees its slot in the store. Must be called before this
+     * transaction is removed from the tangle since the slot will be reused while this object might still be referenced.
+     */
+    public synchronized void moveBytesToHeap() {
+        if (bytes != null)
+            return;
+        byte[] bytes = new byte[Constants.PACKET_SIZE_BYTES];
+        store.read(slot, 0, bytes, 0, TransactionStore.SLOT_SIZE);
+        store.free(slot);
+        store = null;
+        slot = -1;
+        this.bytes = bytes;
+    }
+
+    public boolean isStoredOffHeap() {
+        return bytes == null;
+    }
+
+    private synchronized byte[] readBytes(int offset, int length) {
+        byte[] target = new byte[length];
+        if (bytes != null) // moved back to heap in the meantime
+            System.arraycopy(bytes, offset, target, 0, length);
+        else
+            store.read(slot, offset, target, 0, length);
+        return target;
     }
 
     private static String curlHash(byte[] bytes) {
-        String trytes = Trytes.fromBytes(bytes, 0, Constants.TRANSACTION_SIZE_BYTES) + Trytes.NULL_HASH;
-        return curlHash(trytes);
+        Curl curl = new Curl(hashRounds());
+        curl.absorbBytes(bytes, 0, Constants.TRANSACTION_SIZE_BYTES);
+        curl.absorbZeros(Curl.HASH_LENGTH); // null hash at the end
+        byte[] hash = new byte[Curl.HASH_LENGTH];
+        curl.squeeze(hash, 0);
+        return Trytes.fromTrits(hash);
+    }
+
+    /**
+     * Calculates the hashes of multiple transactions at once with a {@link BatchCurl}. Equivalent to the hash calculated
+     * by {@link #Transaction(byte[])} for each of them but considerably faster for larger batches.
+     *
+     * @param bytes Bytes of up to {@link BatchCurl#MAX_BATCH_SIZE} transactions (see {@link #Transaction(byte[])}).
+     * @return Hashes in the order of {@code bytes}, to be passed to {@link #fromValidatedBytes(byte[], String)}.
+     */
+    public static String[] calcHashes(List<byte[]> bytes) {
+        if (bytes.size() > BatchCurl.MAX_BATCH_SIZE)
+            throw new IllegalArgumentException("cannot hash more than " + BatchCurl.MAX_BATCH_SIZE + " transactions at once");
+        String[] hashes = new String[bytes.size()];
+        if (bytes.size() < MIN_BATCH_SIZE) {
+            for (int i = 0; i < hashes.length; i++)
+                hashes[i] = curlHash(bytes.get(i));
+            return hashes;
+        }
+
+        BatchCurl curl = new BatchCurl(hashRounds());
+        for (int offset = 0; offset < Constants.TRANSACTION_SIZE_BYTES; offset += Curl.HASH_BYTE_LENGTH) {
+            for (int lane = 0; lane < hashes.length; lane++)
+                curl.loadBytes(lane, bytes.get(lane), offset);
+            curl.transform();
+        }
+        curl.loadZeros(); // null hash at the end
+        curl.transform();
+        byte[] hash = new byte[Curl.HASH_LENGTH];
+        for (int lane = 0; lane < hashes.length; lane++) {
+            curl.squeeze(lane, hash, 0);
+            hashes[lane] = Trytes.fromTrits(hash);
+        }
+        return hashes;
+    }
+
+    /**
+     * Absorbs a field directly from the compressed bytes, without decoding it into trytes.
+     *
+     * @param field Field to absorb, must start and end at a byte pair boundary (multiples of 9 trits).
+     */
+    public void absorbField(Field field, Curl sponge) {
+        assertBytePairAligned(field);
+        byte[] bytes = this.bytes;
+        if (bytes != null)
+            sponge.absorbBytes(bytes, field.byteOffset, field.byteLength);
+        else
+            sponge.absorbBytes(readBytes(field.byteOffset, field.byteLength), 0, field.byteLength);
+    }
+
+    /**
+     * Hashes the same field of several transactions separately, directly from their compressed bytes. Uses a {@link BatchCurl}
+     * for every {@link BatchCurl#MAX_BATCH_SIZE} transactions.
+     *
+     * @param field Field to hash, must consist of complete chunks of {@link Curl#HASH_LENGTH} trits.
+     * @return The {@link Curl#HASH_LENGTH} trits of each hash, in the order of {@code transactions}.
+     */
+    public static byte[] hashFields(List<Transaction> transactions, Field field, int rounds) {
+        if (field.byteOffset % Curl.HASH_BYTE_LENGTH != 0 || field.byteLength % Curl.HASH_BYTE_LENGTH != 0)
+            throw new IllegalArgumentException("field does not consist of complete chunks");
+        byte[] hashes = new byte[transactions.size() * Curl.HASH_LENGTH];
+        for (int first = 0; first < transactions.size(); first += BatchCurl.MAX_BATCH_SIZE) {
+            List<Transaction> batch = transactions.subList(first, Math.min(transactions.size(), first + BatchCurl.MAX_BATCH_SIZE));
+            if (batch.size() < MIN_BATCH_SIZE) {
+                for (int i = 0; i < batch.size(); i++) {
+                    Curl curl = new Curl(rounds);
+                    batch.get(i).absorbField(field, curl);
+                    curl.squeeze(hashes, (first + i) * Curl.HASH_LENGTH);
+                }
+            } else {
+                hashFieldsInBatch(batch, field, rounds, hashes, first * Curl.HASH_LENGTH);
+            }
+        }
+        return hashes;
+    }
+
+    private static void hashFieldsInBatch(List<Transaction> batch, Field field, int rounds, byte[] target, int targetOffset) {
+        byte[][] fieldBytes = new byte[batch.size()][];
+        int[] fieldOffsets = new int[batch.size()];
+        for (int lane = 0; lane < batch.size(); lane++) {
+            byte[] bytes = batch.get(lane).bytes;
+            fieldBytes[lane] = bytes != null ? bytes : batch.get(lane).readBytes(field.byteOffset, field.byteLength);
+            fieldOffsets[lane] = bytes != null ? field.byteOffset : 0;
+        }
+        BatchCurl curl = new BatchCurl(rounds);
+        for (int offset = 0; offset < field.byteLength; offset += Curl.HASH_BYTE_LENGTH) {
+            for (int lane = 0; lane < batch.size(); lane++)
+                curl.loadBytes(lane, fieldBytes[lane], fieldOffsets[lane] + offset);
+            curl.transform();
+        }
+        for (int lane = 0; lane < batch.size(); lane++)
+            curl.squeeze(lane, target, targetOffset + lane * Curl.HASH_LENGTH);
+    }
+
+    private static void assertBytePairAligned(Field field) {
+        if (field.tritOffset % 9 != 0 || field.tritLength % 9 != 0)
+            throw new IllegalArgumentException("field is not aligned to byte pairs");
     }
 
     /**
      * @return Calculated hash of this transaction.
      */
     private static String curlHash(String trytes) {
-        return IotaCurlHash.iotaCurlHash(trytes, Constants.TRANSACTION_SIZE_TRYTES + 81, Constants.RUN_MODUS != Constants.RunModus.MAIN ? 9 : Constants.CURL_ROUNDS_TRANSACTION_HASH);
+        assert trytes.length() == Constants.TRANSACTION_SIZE_TRYTES + 81;
+        return Curl.hash(trytes, hashRounds());
+    }
+
+    private static int hashRounds() {
+        return Constants.RUN_MODUS != Constants.RunModus.MAIN ? 9 : Constants.CURL_ROUNDS_TRANSACTION_HASH;
     }
 
     private static void putField(char[] target, Field field, long value) {
-        putField(target, field, new BigInteger(value + ""));
+        Trytes.putLong(value, target, field.tryteOffset, field.tryteLength);
     }
 
     private static void putField(char[] target, Field field, BigInteger bigInteger) {
@@ -227,7 +515,7 @@ public class Transaction {
     private static void putField(char[] target, Field field, String trytes) {
         trytes = Trytes.padRight(trytes, field.tryteLength);
         assert trytes.length() == field.tryteLength;
-        System.arraycopy(trytes.toCharArray(), 0, target, field.tryteOffset, field.tryteLength);
+        trytes.getChars(0, field.tryteLength, target, field.tryteOffset);
     }
 
     private static String extractField(String transactionTrytes, Field field) {
@@ -238,9 +526,17 @@ public class Transaction {
     }
 
     public DatagramPacket toDatagramPacket(String requestHash) {
-        byte[] requestHashBytes = Trytes.toBytes(requestHash);
-        System.arraycopy(requestHashBytes, 0, bytes, Constants.TRANSACTION_SIZE_BYTES, requestHashBytes.length);
-        return new DatagramPacket(bytes, bytes.length);
+        return toDatagramPacket(HashKey.fromTrytes(requestHash));
+    }
+
+    /**
+     * @return A new packet containing this transaction followed by {@code requestHash}. The bytes of this transaction are not modified.
+     */
+    public DatagramPacket toDatagramPacket(HashKey requestHash) {
+        byte[] packet = new byte[Constants.PACKET_SIZE_BYTES];
+        copyBytes(packet, 0);
+        requestHash.writeBytes(packet, Constants.TRANSACTION_SIZE_BYTES);
+        return new DatagramPacket(packet, packet.length);
     }
 
     public Transaction getBranch() {
@@ -298,11 +594,52 @@ public class Transaction {
     }
 
     public String decodeBytesToTrytes() {
-        return Trytes.fromBytes(bytes, 0, Constants.TRANSACTION_SIZE_BYTES);
+        byte[] bytes = this.bytes;
+        return Trytes.fromBytes(bytes != null ? bytes : readBytes(0, Constants.TRANSACTION_SIZE_BYTES), 0, Constants.TRANSACTION_SIZE_BYTES);
     }
 
+    /**
+     * Copies the {@link Constants#TRANSACTION_SIZE_BYTES} bytes of this transaction (without request trailer) into {@code target}.
+     */
+    public void copyBytes(byte[] target, int offset) {
+        byte[] bytes = this.bytes;
+        if (bytes == null)
+            bytes = readBytes(0, Constants.TRANSACTION_SIZE_BYTES);
+        System.arraycopy(bytes, 0, target, offset, Constants.TRANSACTION_SIZE_BYTES);
+    }
+
+    /**
+     * Puts the {@link Constants#TRANSACTION_SIZE_BYTES} bytes of this transaction (without request trailer) into {@code target}
+     * at its current position.
+     */
+    public void copyBytes(ByteBuffer target) {
+        byte[] bytes = this.bytes;
+        if (bytes != null) {
+            target.put(bytes, 0, Constants.TRANSACTION_SIZE_BYTES);
+            return;
+        }
+        synchronized (this) {
+            if (this.bytes != null)
+                target.put(this.bytes, 0, Constants.TRANSACTION_SIZE_BYTES);
+            else
+                store.read(slot, target);
+        }
+    }
+
+    /**
+     * @param compareTo Bytes of a packet.
+     * @return Whether the transaction part of the packet equals the bytes of this transaction. The request trailer is ignored.
+     */
     public boolean equalBytes(byte[] compareTo) {
-        return Arrays.equals(bytes, compareTo);
+        if (compareTo.length < Constants.TRANSACTION_SIZE_BYTES)
+            return false;
+        byte[] bytes = this.bytes;
+        if (bytes == null)
+            bytes = readBytes(0, Constants.TRANSACTION_SIZE_BYTES);
+        for (int i = 0; i < Constants.TRANSACTION_SIZE_BYTES; i++)
+            if (bytes[i] != compareTo[i])
+                return false;
+        return true;
     }
 
     public void compress() {
@@ -350,6 +687,46 @@ public class Transaction {
         return nonce == null ? nonce = decodeTryteField(Field.NONCE) : nonce;
     }
 
+    public HashKey hashKey() {
+        return hashKey == null ? hashKey = HashKey.fromTrytes(hash) : hashKey;
+    }
+
+    public HashKey addressKey() {
+        return decodeKeyField(Field.ADDRESS);
+    }
+
+    public HashKey tagKey() {
+        return decodeKeyField(Field.TAG);
+    }
+
+    public HashKey trunkHashKey() {
+        return decodeKeyField(Field.TRUNK_HASH);
+    }
+
+    public HashKey branchHashKey() {
+        return decodeKeyField(Field.BRANCH_HASH);
+    }
+
+    public HashKey nonceKey() {
+        return decodeKeyField(Field.NONCE);
+    }
+
+    public boolean addressEquals(HashKey address) {
+        return fieldEquals(Field.ADDRESS, address);
+    }
+
+    public boolean tagEquals(HashKey tag) {
+        return fieldEquals(Field.TAG, tag);
+    }
+
+    public boolean trunkHashEquals(HashKey trunkHash) {
+        return fieldEquals(Field.TRUNK_HASH, trunkHash);
+    }
+
+    public boolean branchHashEquals(HashKey branchHash) {
+        return fieldEquals(Field.BRANCH_HASH, branchHash);
+    }
+
     public String essence() {
         return essence == null ? essence = decodeTryteField(Field.ESSENCE) : essence;
     }
@@ -359,13 +736,13 @@ public class Transaction {
     }
 
     public void setBranch(Transaction branch) {
-        if(branch != null && !branch.hash.equals(branchHash()))
+        if(branch != null && !branchHashEquals(branch.hashKey()))
             throw new IllegalArgumentException("incorrect branch (expected: '"+branchHash()+"', given: '"+branch.hash+"')");
         this.branch = branch;
     }
 
     public void setTrunk(Transaction trunk) {
-        if(trunk != null && !trunk.hash.equals(trunkHash()))
+        if(trunk != null && !trunkHashEquals(trunk.hashKey()))
             throw new IllegalArgumentException("incorrect trunk (expected: '" + trunk.hash + "' given: '" + trunkHash+"')");
         this.trunk = trunk;
     }
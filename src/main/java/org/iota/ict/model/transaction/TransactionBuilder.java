@@ -1,6 +1,7 @@
 package org.iota.ict.model.transaction;
 
 import org.iota.ict.utils.Trytes;
+import org.iota.ict.utils.crypto.Curl;
 
 import java.math.BigInteger;
 
@@ -58,14 +59,28 @@ public class TransactionBuilder {
     }
 
     public String getEssence() {
-        String essence = extraDataDigest;
-        essence += address;
-        essence += Trytes.fromNumber(value, Transaction.Field.VALUE.tryteLength);
-        essence += Trytes.fromNumber(BigInteger.valueOf(issuanceTimestamp), Transaction.Field.ISSUANCE_TIMESTAMP.tryteLength);
-        essence += Trytes.fromNumber(BigInteger.valueOf(timelockLowerBound), Transaction.Field.TIMELOCK_LOWER_BOUND.tryteLength);
-        essence += Trytes.fromNumber(BigInteger.valueOf(timelockUpperBound), Transaction.Field.TIMELOCK_UPPER_BOUND.tryteLength);
-        essence += bundleNonce;
+        StringBuilder essence = new StringBuilder(Transaction.Field.ESSENCE.tryteLength);
+        essence.append(extraDataDigest);
+        essence.append(address);
+        essence.append(Trytes.fromNumber(value, Transaction.Field.VALUE.tryteLength));
+        essence.append(Trytes.fromLong(issuanceTimestamp, Transaction.Field.ISSUANCE_TIMESTAMP.tryteLength));
+        essence.append(Trytes.fromLong(timelockLowerBound, Transaction.Field.TIMELOCK_LOWER_BOUND.tryteLength));
+        essence.append(Trytes.fromLong(timelockUpperBound, Transaction.Field.TIMELOCK_UPPER_BOUND.tryteLength));
+        essence.append(bundleNonce);
         assert essence.length() == Transaction.Field.ESSENCE.tryteLength;
-        return essence;
+        return essence.toString();
+    }
+
+    /**
+     * Absorbs the same trytes as {@link #getEssence()} without concatenating them.
+     */
+    public void absorbEssence(Curl sponge) {
+        sponge.absorbTrytes(extraDataDigest);
+        sponge.absorbTrytes(address);
+        sponge.absorbTrytes(Trytes.fromNumber(value, Transaction.Field.VALUE.tryteLength));
+        sponge.absorbTrytes(Trytes.fromLong(issuanceTimestamp, Transaction.Field.ISSUANCE_TIMESTAMP.tryteLength));
+        sponge.absorbTrytes(Trytes.fromLong(timelockLowerBound, Transaction.Field.TIMELOCK_LOWER_BOUND.tryteLength));
+        sponge.absorbTrytes(Trytes.fromLong(timelockUpperBound, Transaction.Field.TIMELOCK_UPPER_BOUND.tryteLength));
+        sponge.absorbTrytes(bundleNonce);
     }
 }
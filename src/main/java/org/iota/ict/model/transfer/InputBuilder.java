@@ -3,7 +3,7 @@ package org.iota.ict.model.transfer;
 import org.iota.ict.model.bc.BalanceChange;
 import org.iota.ict.model.bc.BalanceChangeBuilder;
 import org.iota.ict.model.transaction.Transaction;
-import org.iota.ict.model.transaction.TransactionBuilder;
+import org.iota.ict.utils.crypto.Curl;
 import org.iota.ict.utils.crypto.SignatureSchemeImplementation;
 
 import java.math.BigInteger;
@@ -33,9 +33,14 @@ public class InputBuilder extends BalanceChangeBuilder {
     @Override
     public String getEssence() {
         StringBuilder essence = new StringBuilder();
-        for (TransactionBuilder builder : buildersFromTailToHead) {
-            essence.insert(0, builder.getEssence());
-        }
+        for (int i = buildersFromTailToHead.length - 1; i >= 0; i--)
+            essence.append(buildersFromTailToHead[i].getEssence());
         return essence.toString();
     }
+
+    @Override
+    public void absorbEssence(Curl sponge) {
+        for (int i = buildersFromTailToHead.length - 1; i >= 0; i--)
+            buildersFromTailToHead[i].absorbEssence(sponge);
+    }
 }
@@ -1,11 +1,11 @@
 package org.iota.ict.model.transfer;
 
-import com.iota.curl.IotaCurlHash;
 import org.iota.ict.model.bc.BalanceChangeBuilder;
 import org.iota.ict.model.transaction.Transaction;
 import org.iota.ict.model.transaction.TransactionBuilder;
 import org.iota.ict.utils.Constants;
 import org.iota.ict.utils.Trytes;
+import org.iota.ict.utils.crypto.Curl;
 
 import java.math.BigInteger;
 
@@ -25,9 +25,19 @@ public class OutputBuilder extends BalanceChangeBuilder {
     @Override
     public String getEssence() {
         StringBuilder essence = new StringBuilder();
-        for (TransactionBuilder builder : buildersFromTailToHead) {
-            essence.insert(0, builder.getEssence()).insert(0, IotaCurlHash.iotaCurlHash(builder.signatureFragments, builder.signatureFragments.length(), Constants.CURL_ROUNDS_BUNDLE_HASH));
+        for (int i = buildersFromTailToHead.length - 1; i >= 0; i--) {
+            TransactionBuilder builder = buildersFromTailToHead[i];
+            essence.append(Curl.hash(builder.signatureFragments, Constants.CURL_ROUNDS_BUNDLE_HASH)).append(builder.getEssence());
         }
         return essence.toString();
     }
+
+    @Override
+    public void absorbEssence(Curl sponge) {
+        for (int i = buildersFromTailToHead.length - 1; i >= 0; i--) {
+            TransactionBuilder builder = buildersFromTailToHead[i];
+            sponge.absorbTrytes(Curl.hash(builder.signatureFragments, Constants.CURL_ROUNDS_BUNDLE_HASH));
+            builder.absorbEssence(sponge);
+        }
+    }
 }
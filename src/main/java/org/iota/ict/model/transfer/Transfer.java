@@ -8,10 +8,14 @@ import org.iota.ict.utils.Trytes;
 import org.iota.ict.utils.crypto.SignatureSchemeImplementation;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A {@link Transfer} is a {@link Bundle} which transfers value. Every transfer can be interpreted as a bundle and every
@@ -48,6 +52,20 @@ public class Transfer {
     }
 
     private boolean isSumZero() {
+        try {
+            long sum = 0;
+            for (BalanceChange change : inputs)
+                sum = Math.addExact(sum, change.longValue());
+            for (BalanceChange change : outputs)
+                sum = Math.addExact(sum, change.longValue());
+            return sum == 0;
+        } catch (ArithmeticException e) {
+            // only for absurdly large values
+            return isSumZeroExact();
+        }
+    }
+
+    private boolean isSumZeroExact() {
         BigInteger sum = BigInteger.ZERO;
         for (BalanceChange change : inputs) {
             sum = sum.add(change.value);
@@ -65,18 +83,29 @@ public class Transfer {
         return signatureVerificationState == SignatureVerificationState.SIGNATURE_VALID;
     }
 
+    /**
+     * Verifies the signature fragments of all inputs in parallel on the common {@link ForkJoinPool}, one task per fragment.
+     */
     private boolean verifyAllInputs() {
-        boolean allInputsValid = true;
+        AtomicBoolean invalid = new AtomicBoolean(false);
+        List<FragmentVerification> verifications = new ArrayList<>();
         for (BalanceChange input : inputs) {
-            if (!verifyInput(input)) {
-                allInputsValid = false;
-                break;
+            if (!isSignatureStructureValid(input))
+                return false;
+            for (int i = 0; i < input.getAmountOfSignatureOrMessageFragments(); i++) {
+                String bundleHashFragment = bundleHash.substring((i % 3) * 27, (i % 3 + 1) * 27);
+                verifications.add(new FragmentVerification(input.address, input.getSignatureOrMessageFragment(i), bundleHashFragment, invalid));
             }
         }
-        return allInputsValid;
+
+        if (verifications.size() == 1)
+            verifications.get(0).invoke();
+        else if (verifications.size() > 1)
+            ForkJoinPool.commonPool().invoke(new AllFragmentsVerification(verifications));
+        return !invalid.get();
     }
 
-    private boolean verifyInput(BalanceChange input) {
+    private boolean isSignatureStructureValid(BalanceChange input) {
         if(securityLevel == 0)
             return false;
         // security level must equal amount of fragments for level 1 and 2
@@ -84,24 +113,7 @@ public class Transfer {
             return false;
         if((securityLevel == 3) && input.getAmountOfSignatureOrMessageFragments() < 3)
             return false;
-        return isSignatureValid(input);
-    }
-
-    private boolean isSignatureValid(BalanceChange input) {
-        try {
-            for(int i = 0; i < input.getAmountOfSignatureOrMessageFragments(); i++) {
-                String signatureFragmentTrytes = input.getSignatureOrMessageFragment(i);
-                String bundleHashFragment = bundleHash.substring((i%3)*27, (i%3+1)*27);
-                SignatureSchemeImplementation.Signature signatureFragment = new SignatureSchemeImplementation.Signature(signatureFragmentTrytes, bundleHashFragment);
-                String signedAddress = signatureFragment.deriveAddress();
-                if(!signedAddress.equals(input.address))
-                    return false;
-            }
-            return true;
-        } catch (Throwable t) {
-            t.printStackTrace();
-            return false;
-        }
+        return true;
     }
 
     static int calcSecurityLevel(String bundleHash) {
@@ -132,6 +144,54 @@ public class Transfer {
         return new HashSet<>(outputs);
     }
 
+    /**
+     * Verifies all signature fragments of a transfer in parallel.
+     */
+    private static class AllFragmentsVerification extends RecursiveAction {
+
+        private final List<FragmentVerification> verifications;
+
+        private AllFragmentsVerification(List<FragmentVerification> verifications) {
+            this.verifications = verifications;
+        }
+
+        @Override
+        protected void compute() {
+            invokeAll(verifications);
+        }
+    }
+
+    /**
+     * Checks whether a single signature fragment was signed by the private key of the input address. Sets the shared
+     * {@link #invalid} flag on failure, which lets all other verifications of the same transfer skip their work.
+     */
+    private static class FragmentVerification extends RecursiveAction {
+
+        private final String address, signatureFragment, bundleHashFragment;
+        private final AtomicBoolean invalid;
+
+        private FragmentVerification(String address, String signatureFragment, String bundleHashFragment, AtomicBoolean invalid) {
+            this.address = address;
+            this.signatureFragment = signatureFragment;
+            this.bundleHashFragment = bundleHashFragment;
+            this.invalid = invalid;
+        }
+
+        @Override
+        protected void compute() {
+            if (invalid.get())
+                return;
+            try {
+                SignatureSchemeImplementation.Signature signature = new SignatureSchemeImplementation.Signature(signatureFragment, bundleHashFragment);
+                if (!signature.deriveAddress().equals(address))
+                    invalid.set(true);
+            } catch (Throwable t) {
+                t.printStackTrace();
+                invalid.set(true);
+            }
+        }
+    }
+
     /**
      * Helper class to modularize the input/output filtering process. Might seem unnecessarily complex but allowed to avoid
      * code duplication: the code for input collection and output collection were pretty similar but parts could not be reused
@@ -155,8 +215,9 @@ public class Transfer {
 
         private void assignTransactionToInputOrOutput(Transaction t) {
 
-            boolean valueNegative = t.value.compareTo(BigInteger.ZERO) < 0;
-            boolean valueZero = t.value.compareTo(BigInteger.ZERO) == 0;
+            int valueSignum = t.valueSignum();
+            boolean valueNegative = valueSignum < 0;
+            boolean valueZero = valueSignum == 0;
             boolean canAppendToBuilder = currentBuilder != null && valueZero && currentBuilder.getAddress().equals(t.address());
 
             // transaction is part of current change
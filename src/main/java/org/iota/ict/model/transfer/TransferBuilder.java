@@ -1,13 +1,14 @@
 package org.iota.ict.model.transfer;
 
-import com.iota.curl.IotaCurlHash;
 import org.iota.ict.model.bundle.BundleBuilder;
 import org.iota.ict.model.bc.BalanceChangeBuilderInterface;
 import org.iota.ict.utils.Constants;
+import org.iota.ict.utils.crypto.Curl;
 
 import java.math.BigInteger;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Set;
 
 /**
@@ -63,9 +64,10 @@ public final class TransferBuilder {
     }
 
     private static String determineBundleHash(List<BalanceChangeBuilderInterface> orderedChanges) {
-        StringBuilder concat = new StringBuilder();
-        for (BalanceChangeBuilderInterface change : orderedChanges)
-            concat.insert(0, change.getEssence());
-        return IotaCurlHash.iotaCurlHash(concat.toString(), concat.length(), Constants.CURL_ROUNDS_BUNDLE_HASH);
+        // bundles are hashed from head to tail, the changes are ordered from tail to head
+        Curl sponge = new Curl(Constants.CURL_ROUNDS_BUNDLE_HASH);
+        for (ListIterator<BalanceChangeBuilderInterface> it = orderedChanges.listIterator(orderedChanges.size()); it.hasPrevious(); )
+            it.previous().absorbEssence(sponge);
+        return sponge.squeeze();
     }
 }
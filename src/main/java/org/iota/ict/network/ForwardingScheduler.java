@@ -0,0 +1,167 @@
+package org.iota.ict.network;
+
+import org.iota.ict.model.transaction.Transaction;
+import org.iota.ict.utils.Constants;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Bounded timer wheel holding the transactions to be forwarded by the {@link Sender} until their forward delay has passed.
+ * Time is divided into ticks, each tick maps to one slot of the wheel. Scheduling and draining all transactions due in a
+ * tick are therefore constant time operations per transaction, independent of how many transactions are scheduled. Delays
+ * longer than one rotation of the wheel are supported, such tasks are skipped until their tick has come.
+ * <p>
+ * Transactions which would be too old to be accepted by neighbors at the time they are sent are dropped right away
+ * instead of occupying the wheel. If the wheel is full, the task due next is dropped in favour of the new one, since the
+ * oldest transactions are the least useful to neighbors.
+ */
+public class ForwardingScheduler {
+
+    private final long tickMs;
+    private final int capacity;
+    private final ArrayDeque<Task>[] slots;
+    private final int slotMask;
+    /**
+     * Last tick whose slot has been drained.
+     */
+    private long drainedTick;
+    private int size;
+    private long droppedStale, droppedOverflow;
+
+    /**
+     * @param capacity  Maximum amount of scheduled tasks.
+     * @param tickMs    Resolution of the forward delays.
+     * @param wheelSize Amount of slots, will be rounded up to the next power of two.
+     * @param now       Current time, no tasks can be scheduled before.
+     */
+    @SuppressWarnings("unchecked")
+    public ForwardingScheduler(int capacity, long tickMs, int wheelSize, long now) {
+        if (capacity < 1 || tickMs < 1 || wheelSize < 1)
+            throw new IllegalArgumentException("capacity, tick and wheel size must be positive");
+        this.capacity = capacity;
+        this.tickMs = tickMs;
+        int slotCount = Integer.highestOneBit(wheelSize) == wheelSize ? wheelSize : Integer.highestOneBit(wheelSize) << 1;
+        this.slots = new ArrayDeque[slotCount];
+        for (int i = 0; i < slotCount; i++)
+            slots[i] = new ArrayDeque<>();
+        this.slotMask = slotCount - 1;
+        this.drainedTick = now / tickMs;
+    }
+
+    /**
+     * Schedules a transaction to be forwarded to all neighbors.
+     *
+     * @return Whether the transaction was scheduled, {@code false} if it would be stale at {@code sendingTime}.
+     */
+    public boolean schedule(Transaction transaction, long sendingTime) {
+        return schedule(new Task(transaction, null), sendingTime);
+    }
+
+    /**
+     * Schedules a task again, e.g. to defer it for a single neighbor.
+     */
+    public synchronized boolean schedule(Task task, long sendingTime) {
+        if (isStale(task.transaction, sendingTime)) {
+            droppedStale++;
+            return false;
+        }
+        if (size == capacity)
+            dropNextDue();
+        // tasks due already are sent in the next tick, slots up to the drained tick have already been passed
+        task.tick = Math.max(sendingTime / tickMs, drainedTick + 1);
+        slots[(int) task.tick & slotMask].addLast(task);
+        size++;
+        return true;
+    }
+
+    private void dropNextDue() {
+        for (long tick = drainedTick + 1; ; tick++) {
+            Iterator<Task> iterator = slots[(int) tick & slotMask].iterator();
+            while (iterator.hasNext()) {
+                // tasks of later rotations share the slot but are not due next
+                if (iterator.next().tick == tick) {
+                    iterator.remove();
+                    size--;
+                    droppedOverflow++;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all tasks due at {@code now} and adds them to {@code due}, tick by tick. Stale tasks are dropped instead.
+     */
+    public synchronized void drainDue(long now, List<Task> due) {
+        long nowTick = now / tickMs;
+        long ticksToDrain = Math.min(nowTick - drainedTick, slots.length);
+        for (long tick = drainedTick + 1; tick <= drainedTick + ticksToDrain && size > 0; tick++) {
+            Iterator<Task> iterator = slots[(int) tick & slotMask].iterator();
+            while (iterator.hasNext()) {
+                Task task = iterator.next();
+                if (task.tick > nowTick)
+                    continue; // due in a later rotation
+                iterator.remove();
+                size--;
+                if (isStale(task.transaction, now))
+                    droppedStale++;
+                else
+                    due.add(task);
+            }
+        }
+        drainedTick = Math.max(drainedTick, nowTick);
+    }
+
+    static boolean isStale(Transaction transaction, long sendingTime) {
+        return Math.abs(transaction.issuanceTimestamp - sendingTime) > Constants.TIMESTAMP_DIFFERENCE_TOLERANCE_IN_MILLIS * 0.9;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return Fraction of the capacity in use, between {@code 0} and {@code 1}.
+     */
+    public synchronized double load() {
+        return (double) size / capacity;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return Amount of transactions dropped because they would have been too old when sent.
+     */
+    public synchronized long droppedStale() {
+        return droppedStale;
+    }
+
+    /**
+     * @return Amount of transactions dropped because the scheduler was full.
+     */
+    public synchronized long droppedOverflow() {
+        return droppedOverflow;
+    }
+
+    /**
+     * A transaction to be forwarded, either to all neighbors or to a single one.
+     */
+    public static class Task {
+
+        public final Transaction transaction;
+        /**
+         * The only neighbor to forward to, {@code null} for all neighbors.
+         */
+        public final Neighbor neighbor;
+        private long tick;
+
+        public Task(Transaction transaction, Neighbor neighbor) {
+            this.transaction = transaction;
+            this.neighbor = neighbor;
+        }
+    }
+}
@@ -3,24 +3,37 @@ package org.iota.ict.network;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import java.net.*;
+
+import org.iota.ict.model.transaction.Transaction;
 import org.iota.ict.utils.Constants;
 import org.iota.ict.utils.Stats;
+import org.iota.ict.utils.TokenBucket;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class defines a neighbored Ict node. Neighbor nodes usually run remotely on a different device and connection
  * is established via the Internet. Besides the address, this class collect stats about the transaction flow from the
  * neighbor.
+ * <p>
+ * Each neighbor has its own queue of transactions waiting to be sent to it and its own send rate limit. This way a slow
+ * neighbor only delays the transactions sent to itself. If the queue is full, the oldest transaction is dropped.
  */
 public class Neighbor {
 
     public static final Logger logger = LogManager.getLogger("Neighbor");
+    protected static final int OUTBOUND_QUEUE_CAPACITY = 1000;
     private String address;
-    private InetSocketAddress socketAddress;
+    private volatile InetSocketAddress socketAddress;
     private List<Stats> statsHistory = new ArrayList<>();
     private double maxAllowedTransactionsForRound;
+    private final BlockingQueue<Transaction> outbound = new ArrayBlockingQueue<>(OUTBOUND_QUEUE_CAPACITY);
+    private final TokenBucket sendRateLimiter = new TokenBucket(0);
+    private final AtomicLong outboundDropped = new AtomicLong(), outboundStale = new AtomicLong();
 
     public Neighbor(String address, long maxTransactionsAbsolute) {
         this.address = address;
@@ -31,32 +44,119 @@ public class Neighbor {
         statsHistory.add(new Stats(this));
     }
 
-    public void resolveHost() {
+    /**
+     * Resolves the host name again in case its ip changed (e.g. dynamic DNS).
+     *
+     * @return {@code true} if the socket address changed.
+     */
+    public boolean resolveHost() {
         try {
-            if (!socketAddress.getAddress().equals(InetAddress.getByName(socketAddress.getHostName())))
-                socketAddress = new InetSocketAddress(socketAddress.getHostName(), socketAddress.getPort());
+            InetAddress resolved = InetAddress.getByName(socketAddress.getHostName());
+            if (!resolved.equals(socketAddress.getAddress())) {
+                socketAddress = new InetSocketAddress(resolved, socketAddress.getPort());
+                return true;
+            }
         } catch (UnknownHostException e) {
             logger.warn(("Unknown Host for: " + socketAddress.getHostString()) + " (" + e.getMessage() + ")");
         }
+        return false;
     }
 
     public boolean sentPacket(DatagramPacket packet) {
+        return sentPacket((InetSocketAddress) packet.getSocketAddress());
+    }
+
+    public boolean sentPacket(InetSocketAddress origin) {
         //if (address.equals(packet.getSocketAddress()))
         //    return true;
-        boolean sameIP = sentPacketFromSameIP(packet);
-        boolean samePort = socketAddress.getPort() == packet.getPort();
+        boolean sameIP = sentPacketFromSameIP(origin);
+        boolean samePort = socketAddress.getPort() == origin.getPort();
         return sameIP && samePort;
     }
 
     public boolean sentPacketFromSameIP(DatagramPacket packet) {
+        return sentPacketFromSameIP((InetSocketAddress) packet.getSocketAddress());
+    }
+
+    public boolean sentPacketFromSameIP(InetSocketAddress origin) {
         try {
-            return socketAddress.getAddress().getHostAddress().equals(packet.getAddress().getHostAddress());
+            return socketAddress.getAddress().getHostAddress().equals(origin.getAddress().getHostAddress());
         } catch (NullPointerException e) {
             // cannot resolve ip
             return false;
         }
     }
 
+    /**
+     * Queues a transaction to be sent to this neighbor. Drops the oldest queued transaction if the queue is full.
+     */
+    public void queueForSending(Transaction transaction) {
+        while (!outbound.offer(transaction)) {
+            if (outbound.poll() != null)
+                outboundDropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Transactions which became too old to be accepted while waiting in the queue are dropped instead of being returned.
+     *
+     * @return The next transaction to send or {@code null} if none is queued or the send rate limit is reached.
+     */
+    public Transaction pollForSending() {
+        long now = System.currentTimeMillis();
+        Transaction next;
+        while ((next = outbound.peek()) != null && ForwardingScheduler.isStale(next, now))
+            if (outbound.remove(next))
+                outboundStale.incrementAndGet();
+        if (outbound.isEmpty() || !sendRateLimiter.tryAcquire())
+            return null;
+        return outbound.poll();
+    }
+
+    /**
+     * Takes a permit of the send rate limit for a packet which was not queued with {@link #queueForSending(Transaction)}.
+     *
+     * @return Whether the packet may be sent now.
+     */
+    public boolean tryAcquireSendPermit() {
+        return sendRateLimiter.tryAcquire();
+    }
+
+    /**
+     * @return Nanoseconds until the send rate limit allows the next packet, {@code 0} if it can be sent right away.
+     */
+    public long nanosUntilSendPermit() {
+        return sendRateLimiter.nanosUntilNextPermit();
+    }
+
+    /**
+     * @param transactionsPerSecond Maximum amount of transactions to send to this neighbor per second, {@code 0} for unlimited.
+     */
+    public void setSendRate(long transactionsPerSecond) {
+        sendRateLimiter.setRate(transactionsPerSecond);
+    }
+
+    /**
+     * @return Amount of transactions waiting to be sent to this neighbor.
+     */
+    public int outboundQueueSize() {
+        return outbound.size();
+    }
+
+    /**
+     * @return Amount of transactions which were not sent to this neighbor because its queue was full.
+     */
+    public long outboundDropped() {
+        return outboundDropped.get();
+    }
+
+    /**
+     * @return Amount of transactions which were not sent to this neighbor because they became too old in the queue.
+     */
+    public long outboundStale() {
+        return outboundStale.get();
+    }
+
     public void newRound(long maxAllowedTransactionsForRound, boolean log) {
         this.maxAllowedTransactionsForRound = maxAllowedTransactionsForRound;
         if(log) reportStatsOfRound();
@@ -0,0 +1,46 @@
+package org.iota.ict.network;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable lookup table which determines the {@link Neighbor} who sent a packet. Packets are primarily routed by their
+ * exact origin (ip and port). If no neighbor uses that port, the packet is routed to the first neighbor with the same ip
+ * since the port of a neighbor might change (e.g. behind a NAT). Since the table is immutable, it has to be rebuilt via
+ * {@link #NeighborRoutingTable(Collection)} whenever the neighbors or their addresses change.
+ */
+public class NeighborRoutingTable {
+
+    public static final NeighborRoutingTable EMPTY = new NeighborRoutingTable(Collections.<Neighbor>emptyList());
+
+    private final Map<InetSocketAddress, Neighbor> neighborsByAddress = new HashMap<>();
+    private final Map<InetAddress, Neighbor> neighborsByIP = new HashMap<>();
+
+    /**
+     * @param neighbors Neighbors to route to. If multiple neighbors share an address, the first one is preferred.
+     */
+    public NeighborRoutingTable(Collection<Neighbor> neighbors) {
+        for (Neighbor neighbor : neighbors) {
+            InetSocketAddress address = neighbor.getSocketAddress();
+            if (address.isUnresolved())
+                continue; // cannot receive any packets from this neighbor until its host is resolved
+            if (!neighborsByAddress.containsKey(address))
+                neighborsByAddress.put(address, neighbor);
+            if (!neighborsByIP.containsKey(address.getAddress()))
+                neighborsByIP.put(address.getAddress(), neighbor);
+        }
+    }
+
+    /**
+     * @param origin Socket address from which the packet was received.
+     * @return The neighbor who sent the packet or {@code null} if it was not sent by any neighbor.
+     */
+    public Neighbor route(InetSocketAddress origin) {
+        Neighbor neighbor = neighborsByAddress.get(origin);
+        return neighbor != null ? neighbor : neighborsByIP.get(origin.getAddress());
+    }
+}
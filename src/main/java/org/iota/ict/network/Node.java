@@ -11,23 +11,28 @@ import org.iota.ict.utils.properties.Properties;
 import org.iota.ict.utils.properties.PropertiesUser;
 import org.json.JSONObject;
 
-import java.net.DatagramSocket;
+import java.io.IOException;
 import java.net.InetSocketAddress;
-import java.net.SocketException;
+import java.nio.channels.DatagramChannel;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class Node extends RestartableThread implements PropertiesUser {
 
     protected final static Logger LOGGER = LogManager.getLogger("Node");
     protected final IctInterface ict;
 
-    protected final List<Neighbor> neighbors = new LinkedList<>();
+    /**
+     * Copy-on-write since the neighbors are iterated for every packet but only change when the properties are updated.
+     */
+    protected final List<Neighbor> neighbors = new CopyOnWriteArrayList<>();
+    protected volatile NeighborRoutingTable routingTable = NeighborRoutingTable.EMPTY;
     protected final SenderInterface sender;
     protected final Receiver receiver;
     protected FinalProperties properties;
 
     protected InetSocketAddress address;
-    protected DatagramSocket socket;
+    protected DatagramChannel channel;
 
     protected int round;
 
@@ -45,12 +50,17 @@ public class Node extends RestartableThread implements PropertiesUser {
         for (String neighbor : properties.neighbors()) {
             neighbor(neighbor);
         }
+        rebuildRoutingTable();
     }
 
     public int getSenderQueueSize() {
         return sender.queueSize();
     }
 
+    public int getReceiverBacklog() {
+        return receiver.backlog();
+    }
+
     public void log() {
         int queueSize = sender.queueSize();
         LOGGER.debug("forwarding queue size: " + queueSize);
@@ -58,20 +68,28 @@ public class Node extends RestartableThread implements PropertiesUser {
             LOGGER.warn("There is a backlog of " + queueSize + " transactions to be forwarded. This might cause memory issues. You can monitor this metric via `--debug`.");
             IssueCollector.log();
         }
+        sender.log();
         receiver.log();
     }
 
     @Override
     public void onStart() {
         this.address = new InetSocketAddress(properties.host(), properties.port());
-        this.socket = createDatagramSocket(address);
+        this.channel = createDatagramChannel(address);
     }
 
     @Override
     public void onTerminated() {
-        if (!socket.isClosed())
-            socket.close();
-        socket = null;
+        closeChannel();
+        channel = null;
+    }
+
+    void closeChannel() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.warn("Failed closing channel.", e);
+        }
     }
 
     @Override
@@ -79,23 +97,27 @@ public class Node extends RestartableThread implements PropertiesUser {
     }
 
     @Override
-    public void updateProperties(FinalProperties newProperties) {
+    public synchronized void updateProperties(FinalProperties newProperties) {
         FinalProperties oldProperties = properties;
         this.properties = newProperties;
         updateNeighborsBecausePropertiesChanged(oldProperties, newProperties);
+        rebuildRoutingTable();
+        for (Neighbor neighbor : neighbors)
+            neighbor.setSendRate(newProperties.neighborSendRate());
 
         if (address.getPort() != newProperties.port() || !address.getHostName().equals(newProperties.host()))
             updateHostAndPort(newProperties.host(), newProperties.port());
 
         sender.updateProperties(newProperties);
+        receiver.updateProperties(newProperties);
     }
 
     private void updateHostAndPort(String newHost, int newPort) {
-        receiver.terminate(); // closes socket()
+        receiver.terminate(); // closes channel
         sender.terminate();
 
         address = new InetSocketAddress(newHost, newPort);
-        this.socket = createDatagramSocket(address);
+        this.channel = createDatagramChannel(address);
 
         sender.start();
         receiver.start();
@@ -118,9 +140,18 @@ public class Node extends RestartableThread implements PropertiesUser {
     }
 
     private void neighbor(String neighbor) {
-        if (neighbors.size() >= Constants.MAX_NEIGHBOR_COUNT)
+        if (neighbors.size() >= properties.maxNeighbors())
             throw new IllegalStateException("Already reached maximum amount of neighbors.");
-        neighbors.add(new Neighbor(neighbor, properties.antiSpamAbs()));
+        Neighbor nb = new Neighbor(neighbor, properties.antiSpamAbs());
+        nb.setSendRate(properties.neighborSendRate());
+        neighbors.add(nb);
+    }
+
+    /**
+     * Replaces the routing table at once so the receiver never observes a partially updated table.
+     */
+    private void rebuildRoutingTable() {
+        routingTable = new NeighborRoutingTable(neighbors);
     }
 
     private void updateNeighborsBecausePropertiesChanged(Properties oldProp, Properties newProp) {
@@ -161,10 +192,15 @@ public class Node extends RestartableThread implements PropertiesUser {
             neighbor(toAdd);
     }
 
-    private static DatagramSocket createDatagramSocket(InetSocketAddress address) {
+    /**
+     * @return A bound channel in blocking mode. Sending and receiving can happen concurrently from the sender and receiver thread.
+     */
+    private static DatagramChannel createDatagramChannel(InetSocketAddress address) {
         try {
-            return new DatagramSocket(address);
-        } catch (SocketException e) {
+            DatagramChannel channel = DatagramChannel.open();
+            channel.bind(address);
+            return channel;
+        } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
@@ -193,7 +229,10 @@ public class Node extends RestartableThread implements PropertiesUser {
             long tolerance = ict.getProperties().antiSpamAbs();
             neighbor.newRound(tolerance, true);
         }
+        boolean addressesChanged = false;
         for (Neighbor neighbor : ict.getNeighbors())
-            neighbor.resolveHost();
+            addressesChanged |= neighbor.resolveHost();
+        if (addressesChanged)
+            rebuildRoutingTable();
     }
 }
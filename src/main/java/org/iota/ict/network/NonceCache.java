@@ -0,0 +1,133 @@
+package org.iota.ict.network;
+
+import org.iota.ict.model.tangle.Tangle;
+import org.iota.ict.model.transaction.Transaction;
+import org.iota.ict.utils.HashKey;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size cache which maps the nonces of recently received transactions to their hashes. It allows the {@link Receiver}
+ * to recognize duplicate packets without hashing them again. Nonces are identified by a 64-bit fingerprint of their raw
+ * bytes, so lookups do not allocate anything. Since fingerprints can collide, every candidate is verified by comparing
+ * the packet with the bytes of the cached transaction.
+ * <p>
+ * The cache is divided into buckets of {@link #BUCKET_SIZE} entries. Each nonce can only be stored in the bucket
+ * determined by its fingerprint. If the bucket is full, an entry is evicted with the CLOCK algorithm: entries which
+ * were hit since the clock hand last passed them get a second chance. Lookups are lock-free and can happen from multiple
+ * threads while entries are added.
+ */
+public class NonceCache {
+
+    static final int BUCKET_SIZE = 4;
+    private static final int NONCE_OFFSET = Transaction.Field.NONCE.byteOffset, NONCE_LENGTH = Transaction.Field.NONCE.byteLength;
+
+    private final int bucketMask;
+    private final AtomicLongArray fingerprints;
+    private final AtomicReferenceArray<HashKey> hashes;
+    private final AtomicIntegerArray referenced;
+    private final byte[] clockHands;
+
+    private final AtomicLong lookups = new AtomicLong(), hits = new AtomicLong();
+
+    /**
+     * @param capacity Minimum amount of entries, will be rounded up to the next power of two.
+     */
+    public NonceCache(int capacity) {
+        int minBuckets = Math.max(1, (capacity + BUCKET_SIZE - 1) / BUCKET_SIZE);
+        int buckets = Integer.highestOneBit(minBuckets);
+        if (buckets < minBuckets)
+            buckets <<= 1;
+        bucketMask = buckets - 1;
+        fingerprints = new AtomicLongArray(buckets * BUCKET_SIZE);
+        hashes = new AtomicReferenceArray<>(buckets * BUCKET_SIZE);
+        referenced = new AtomicIntegerArray(buckets * BUCKET_SIZE);
+        clockHands = new byte[buckets];
+    }
+
+    /**
+     * @param packet Bytes of a received packet.
+     * @return Fingerprint of the nonce in {@code packet}.
+     */
+    public static long fingerprint(byte[] packet) {
+        // FNV-1a
+        long fingerprint = 0xcbf29ce484222325L;
+        for (int i = NONCE_OFFSET; i < NONCE_OFFSET + NONCE_LENGTH; i++) {
+            fingerprint ^= packet[i] & 0xFF;
+            fingerprint *= 0x100000001b3L;
+        }
+        return fingerprint;
+    }
+
+    /**
+     * @param packet      Bytes of a received packet.
+     * @param fingerprint Fingerprint of the nonce in {@code packet} (see {@link #fingerprint(byte[])}).
+     * @param tangle      Tangle in which to look up the cached hashes.
+     * @return A transaction from {@code tangle} whose bytes equal those of the packet or {@code null} if none is cached.
+     */
+    public Transaction find(byte[] packet, long fingerprint, Tangle tangle) {
+        lookups.incrementAndGet();
+        int start = bucketOf(fingerprint) * BUCKET_SIZE;
+        for (int i = start; i < start + BUCKET_SIZE; i++) {
+            if (fingerprints.get(i) != fingerprint)
+                continue;
+            HashKey hash = hashes.get(i);
+            Transaction candidate = hash == null ? null : tangle.findTransactionByHash(hash);
+            if (candidate != null && candidate.equalBytes(packet)) {
+                referenced.lazySet(i, 1);
+                hits.incrementAndGet();
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Caches the hash of a transaction. Must not be called by multiple threads concurrently.
+     *
+     * @param fingerprint Fingerprint of the nonce of the transaction (see {@link #fingerprint(byte[])}).
+     * @param hash        Hash of the transaction.
+     */
+    public void put(long fingerprint, HashKey hash) {
+        int bucket = bucketOf(fingerprint);
+        int start = bucket * BUCKET_SIZE;
+        int hand = clockHands[bucket];
+        // at most one full turn clearing reference bits before an entry without second chance is found
+        while (referenced.get(start + hand) != 0) {
+            referenced.lazySet(start + hand, 0);
+            hand = (hand + 1) % BUCKET_SIZE;
+        }
+        int victim = start + hand;
+        // a concurrent lookup might combine the new fingerprint with the old hash, which is caught by the verification
+        fingerprints.set(victim, fingerprint);
+        hashes.set(victim, hash);
+        clockHands[bucket] = (byte) ((hand + 1) % BUCKET_SIZE);
+    }
+
+    private int bucketOf(long fingerprint) {
+        return (int) (fingerprint ^ (fingerprint >>> 32)) & bucketMask;
+    }
+
+    public int capacity() {
+        return fingerprints.length();
+    }
+
+    public long lookups() {
+        return lookups.get();
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * @return Share of lookups which found a duplicate, {@code 0} if there were no lookups yet.
+     */
+    public double hitRate() {
+        long lookups = this.lookups.get();
+        return lookups == 0 ? 0 : (double) hits.get() / lookups;
+    }
+}
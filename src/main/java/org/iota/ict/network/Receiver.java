@@ -8,43 +8,82 @@ import org.iota.ict.model.tangle.Tangle;
 import org.iota.ict.model.transaction.Transaction;
 import org.iota.ict.network.gossip.GossipEvent;
 import org.iota.ict.utils.Constants;
-import org.iota.ict.utils.MultiHashMap;
+import org.iota.ict.utils.HashKey;
 import org.iota.ict.utils.RestartableThread;
-import org.iota.ict.utils.Trytes;
+import org.iota.ict.utils.crypto.BatchCurl;
+import org.iota.ict.utils.properties.FinalProperties;
 
 import java.io.IOException;
-import java.net.DatagramPacket;
-import java.util.*;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class receives transactions from neighbors. Together with the {@link Sender}, they are the two important gateways
  * for transaction gossip between Ict nodes. Each Ict instance has exactly one {@link Receiver} and one {@link Sender}
  * to communicate with its neighbors.
+ * <p>
+ * Incoming packets are processed in three stages so that the channel is drained as fast as possible. The receiver thread
+ * itself only reads packets into pooled buffers and determines the neighbor who sent them. Multiple {@link DecodeWorker}s
+ * decode the packets in parallel, which includes the expensive hash calculation of new transactions. Each worker takes
+ * all packets waiting in the queue (up to {@link BatchCurl#MAX_BATCH_SIZE}) and hashes them together. A single
+ * {@link InsertStage} finally adds the transactions to the tangle, updates the neighbor stats and answers requests.
+ * The stages are connected by bounded queues. If the decoding falls behind, packets are dropped and counted. Duplicates
+ * of recently received transactions are recognized by the {@link NonceCache} without hashing them again. Request-only
+ * packets, which carry the {@link Transaction#NULL_TRANSACTION} (see {@link Sender}), are neither hashed nor added to the
+ * tangle, only their request is answered.
  *
  * @see Ict
  * @see Sender
  */
 public class Receiver extends RestartableThread {
 
-    protected static final long NONCE_CACHE_LIMIT = 5000;
+    protected static final int DECODE_QUEUE_CAPACITY = 1000;
+    protected static final int INSERT_QUEUE_CAPACITY = 1000;
+    protected static final int DECODE_WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
 
-    protected static final Queue<String> noncesCached = new LinkedList<>();
-    protected static final MultiHashMap<String, String> transactionHashesByNonce = new MultiHashMap<>();
     protected static final Logger LOGGER = LogManager.getLogger("Receiver");
+    private static final long NULL_TRANSACTION_FINGERPRINT = nullTransactionFingerprint();
     protected Node node;
+    /**
+     * Replaced when {@code nonce_cache_size} changes, the cached nonces are lost then.
+     */
+    protected volatile NonceCache nonceCache;
+    private int nonceCacheSize;
+
+    protected final BlockingQueue<ReceivedPacket> decodeQueue = new ArrayBlockingQueue<>(DECODE_QUEUE_CAPACITY);
+    protected final BlockingQueue<ReceivedPacket> insertQueue = new ArrayBlockingQueue<>(INSERT_QUEUE_CAPACITY);
+    protected final BlockingQueue<byte[]> bufferPool = new ArrayBlockingQueue<>(DECODE_QUEUE_CAPACITY + INSERT_QUEUE_CAPACITY);
+
+    protected final AtomicLong packetsReceived = new AtomicLong(), packetsDropped = new AtomicLong(), transactionsHashed = new AtomicLong();
 
     public Receiver(Node node) {
         super(LOGGER);
         this.node = node;
+        this.nonceCacheSize = node.properties.nonceCacheSize();
+        this.nonceCache = new NonceCache(nonceCacheSize);
+        for (int i = 0; i < DECODE_WORKERS; i++)
+            subWorkers.add(new DecodeWorker());
+        subWorkers.add(new InsertStage());
     }
 
     @Override
     public void run() {
+        // direct so the channel can receive into it without an additional copy, one byte larger to detect oversized packets
+        ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(Constants.PACKET_SIZE_BYTES + 1);
         while (isRunning()) {
-            DatagramPacket packet = new DatagramPacket(new byte[Constants.PACKET_SIZE_BYTES], Constants.PACKET_SIZE_BYTES);
             try {
-                node.socket.receive(packet);
-                processIncoming(packet);
+                receiveBuffer.clear();
+                InetSocketAddress origin = (InetSocketAddress) node.channel.receive(receiveBuffer);
+                packetsReceived.incrementAndGet();
+                receiveBuffer.flip();
+                dispatch(origin, receiveBuffer);
             } catch (IOException e) {
                 if (isRunning())
                     e.printStackTrace();
@@ -54,64 +93,131 @@ public class Receiver extends RestartableThread {
 
     @Override
     public void onTerminate() {
-        node.socket.close();
+        node.closeChannel();
     }
 
-    private void processIncoming(DatagramPacket packet) {
+    public void updateProperties(FinalProperties properties) {
+        if (properties.nonceCacheSize() != nonceCacheSize) {
+            nonceCacheSize = properties.nonceCacheSize();
+            nonceCache = new NonceCache(nonceCacheSize);
+        }
+    }
 
-        Neighbor sender = determineNeighborWhoSent(packet);
+    private void dispatch(InetSocketAddress origin, ByteBuffer packet) {
+        Neighbor sender = node.routingTable.route(origin);
         if (sender == null)
             return;
 
+        byte[] buffer = acquireBuffer();
+        boolean validSize = packet.remaining() == Constants.PACKET_SIZE_BYTES;
+        if (validSize)
+            packet.get(buffer);
+        ReceivedPacket received = new ReceivedPacket(sender, buffer);
+        received.invalidSize = !validSize;
+        // check here already to not waste any time on decoding spam
+        received.exceededLimit = sender.reachedLimitOfAllowedTransactions();
+        BlockingQueue<ReceivedPacket> target = received.exceededLimit ? insertQueue : decodeQueue;
+        if (!target.offer(received)) {
+            packetsDropped.incrementAndGet();
+            releaseBuffer(received.data);
+        }
+    }
+
+    private static long nullTransactionFingerprint() {
+        byte[] packet = new byte[Constants.PACKET_SIZE_BYTES];
+        Transaction.NULL_TRANSACTION.copyBytes(packet, 0);
+        return NonceCache.fingerprint(packet);
+    }
+
+    private byte[] acquireBuffer() {
+        byte[] buffer = bufferPool.poll();
+        return buffer != null ? buffer : new byte[Constants.PACKET_SIZE_BYTES];
+    }
+
+    private void releaseBuffer(byte[] buffer) {
+        bufferPool.offer(buffer);
+    }
+
+    /**
+     * Decodes a batch of packets. Runs in parallel in the {@link DecodeWorker}s. Transactions which are not known from the
+     * {@link NonceCache} are hashed together (see {@link Transaction#calcHashes(List)}).
+     */
+    private void decode(List<ReceivedPacket> batch) {
+        List<ReceivedPacket> toHash = new ArrayList<>(batch.size());
+        List<byte[]> bytesToHash = new ArrayList<>(batch.size());
+        for (ReceivedPacket received : batch) {
+            byte[] bytes = received.data;
+            received.requestedHash = HashKey.fromBytes(bytes, Constants.TRANSACTION_SIZE_BYTES, Transaction.Field.BRANCH_HASH.byteLength);
+            received.nonceFingerprint = NonceCache.fingerprint(bytes);
+            // the fingerprint rules out almost all other packets before comparing all bytes
+            received.requestOnly = !received.invalidSize && received.nonceFingerprint == NULL_TRANSACTION_FINGERPRINT
+                    && Transaction.NULL_TRANSACTION.equalBytes(bytes);
+            if (!received.invalidSize && !received.requestOnly) {
+                received.transaction = nonceCache.find(bytes, received.nonceFingerprint, node.ict.getTangle());
+                received.cached = received.transaction != null;
+                if (!received.cached) {
+                    toHash.add(received);
+                    // the buffer is reused, so the transaction requires its own copy
+                    bytesToHash.add(Arrays.copyOf(bytes, Constants.PACKET_SIZE_BYTES));
+                }
+            }
+            received.data = null;
+            releaseBuffer(bytes);
+        }
+
+        if (!bytesToHash.isEmpty()) {
+            String[] hashes = Transaction.calcHashes(bytesToHash);
+            transactionsHashed.addAndGet(hashes.length);
+            for (int i = 0; i < hashes.length; i++)
+                toHash.get(i).transaction = unpack(bytesToHash.get(i), hashes[i]);
+        }
+
+        for (ReceivedPacket received : batch)
+            if (received.transaction != null)
+                received.outdated = Math.abs(received.transaction.issuanceTimestamp - System.currentTimeMillis()) > Constants.TIMESTAMP_DIFFERENCE_TOLERANCE_IN_MILLIS;
+    }
+
+    private static Transaction unpack(byte[] bytes, String hash) {
+        try {
+            return Transaction.fromValidatedBytes(bytes, hash);
+        } catch (Throwable t) {
+            return null;
+        }
+    }
+
+    /**
+     * Applies the decoded packet. Only runs in the {@link InsertStage}, so the stats are never modified concurrently.
+     */
+    private void insert(ReceivedPacket received) {
+        Neighbor sender = received.sender;
         sender.getStats().receivedAll++;
 
-        if (sender.reachedLimitOfAllowedTransactions()) {
+        if (received.exceededLimit) {
             sender.getStats().ignored++;
             return;
         }
 
-        Transaction transaction = unpack(packet);
+        if (received.requestOnly) {
+            processRequest(sender, received.requestedHash);
+            return;
+        }
+
+        Transaction transaction = received.transaction;
 
         if (transaction == null) {
             sender.getStats().invalid++;
             return;
         }
 
-        if (Math.abs(transaction.issuanceTimestamp - System.currentTimeMillis()) > Constants.TIMESTAMP_DIFFERENCE_TOLERANCE_IN_MILLIS) {
+        if (received.outdated) {
             sender.getStats().ignored++;
             return;
         }
 
-        noncesCached.add(transaction.nonce());
-        transactionHashesByNonce.add(transaction.nonce(), transaction.hash);
-
-        while (noncesCached.size() > NONCE_CACHE_LIMIT) {
-            String nonce = noncesCached.poll();
-            transactionHashesByNonce.remove(nonce);
-        }
-
+        if (!received.cached)
+            nonceCache.put(received.nonceFingerprint, transaction.hashKey());
         updateTransactionLog(sender, transaction);
-
-        String requestedHash = Trytes.fromBytes(packet.getData(), Constants.TRANSACTION_SIZE_BYTES, Transaction.Field.BRANCH_HASH.byteLength);
-        processRequest(sender, requestedHash);
-    }
-
-    private Transaction unpack(DatagramPacket packet) {
-        byte[] bytes = packet.getData();
-
-        String nonce = Trytes.fromBytes(bytes, Transaction.Field.NONCE.byteOffset, Transaction.Field.NONCE.byteLength);
-        for(String hash : transactionHashesByNonce.get(nonce)) {
-            Transaction candidate = node.ict.findTransactionByHash(hash);
-            if(candidate != null && candidate.equalBytes(bytes)) {
-                return candidate;
-            }
-        }
-
-        try {
-            return new Transaction(bytes);
-        } catch (Throwable t) {
-            return null;
-        }
+        processRequest(sender, received.requestedHash);
     }
 
     private void updateTransactionLog(Neighbor sender, Transaction transaction) {
@@ -125,10 +231,10 @@ public class Receiver extends RestartableThread {
         log.senders.add(sender);
     }
 
-    private void processRequest(Neighbor requester, String requestHash) {
-        if (requestHash.equals(Trytes.NULL_HASH))
+    private void processRequest(Neighbor requester, HashKey requestHash) {
+        if (requestHash.equals(HashKey.NULL_HASH))
             return; // no transaction requested
-        Transaction requested = node.ict.findTransactionByHash(requestHash);
+        Transaction requested = node.ict.getTangle().findTransactionByHash(requestHash);
         requester.getStats().requested++;
         if (requested == null)
             return; // unknown transaction
@@ -141,17 +247,119 @@ public class Receiver extends RestartableThread {
         node.sender.queue(requested);
     }
 
-    private Neighbor determineNeighborWhoSent(DatagramPacket packet) {
-        for (Neighbor nb : node.neighbors)
-            if (nb.sentPacket(packet))
-                return nb;
-        for (Neighbor nb : node.neighbors)
-            if (nb.sentPacketFromSameIP(packet))
-                return nb;
-        return null;
+    /**
+     * @return Amount of packets received from the socket since this receiver was created.
+     */
+    public long packetsReceived() {
+        return packetsReceived.get();
+    }
+
+    /**
+     * @return Amount of packets which were dropped because the decoding could not keep up.
+     */
+    public long packetsDropped() {
+        return packetsDropped.get();
+    }
+
+    /**
+     * @return Amount of packets waiting to be processed (decoded or inserted).
+     */
+    public int backlog() {
+        return decodeQueue.size() + insertQueue.size();
     }
 
     public void log() {
-        logger.debug("stored nonces: " + transactionHashesByNonce.size());
+        logger.debug("nonce cache lookups: " + nonceCache.lookups() + ", hit rate: " + String.format("%.3f", nonceCache.hitRate()) + ", capacity: " + nonceCache.capacity());
+        logger.debug("packets received: " + packetsReceived.get() + ", dropped: " + packetsDropped.get() + ", transactions hashed: " + transactionsHashed.get()
+                + ", decode queue: " + decodeQueue.size() + "/" + DECODE_QUEUE_CAPACITY + ", insert queue: " + insertQueue.size() + "/" + INSERT_QUEUE_CAPACITY);
+    }
+
+    protected static class ReceivedPacket {
+        protected final Neighbor sender;
+        protected byte[] data;
+        protected boolean exceededLimit, invalidSize, outdated, cached, requestOnly;
+        protected long nonceFingerprint;
+        protected Transaction transaction;
+        protected HashKey requestedHash;
+
+        protected ReceivedPacket(Neighbor sender, byte[] data) {
+            this.sender = sender;
+            this.data = data;
+        }
+    }
+
+    /**
+     * Base for the worker threads which take packets from a queue.
+     */
+    protected abstract class Stage extends RestartableThread {
+
+        private final BlockingQueue<ReceivedPacket> input;
+
+        protected Stage(BlockingQueue<ReceivedPacket> input) {
+            super(null);
+            this.input = input;
+        }
+
+        @Override
+        public void run() {
+            while (isRunning()) {
+                try {
+                    ReceivedPacket received = input.poll(100, TimeUnit.MILLISECONDS);
+                    if (received != null)
+                        process(received);
+                } catch (InterruptedException e) {
+                    // terminating
+                } catch (Throwable t) {
+                    LOGGER.error("Failed processing received packet.", t);
+                }
+            }
+        }
+
+        @Override
+        public void onTerminate() {
+            runningThread.interrupt();
+        }
+
+        protected abstract void process(ReceivedPacket received) throws InterruptedException;
+    }
+
+    protected class DecodeWorker extends Stage {
+
+        private final List<ReceivedPacket> batch = new ArrayList<>(BatchCurl.MAX_BATCH_SIZE);
+
+        protected DecodeWorker() {
+            super(decodeQueue);
+        }
+
+        @Override
+        protected void process(ReceivedPacket received) throws InterruptedException {
+            // take whatever else is waiting so the transactions can be hashed together
+            batch.add(received);
+            decodeQueue.drainTo(batch, BatchCurl.MAX_BATCH_SIZE - 1);
+            try {
+                decode(batch);
+                for (ReceivedPacket decoded : batch)
+                    insertQueue.put(decoded);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    protected class InsertStage extends Stage {
+
+        protected InsertStage() {
+            super(insertQueue);
+        }
+
+        @Override
+        protected void process(ReceivedPacket received) {
+            if (received.data != null) {
+                // skipped decoding, buffer still in use
+                releaseBuffer(received.data);
+                received.data = null;
+            }
+            insert(received);
+        }
     }
 }
@@ -0,0 +1,195 @@
+package org.iota.ict.network;
+
+import org.iota.ict.model.tangle.Tangle;
+import org.iota.ict.utils.HashKey;
+
+import java.util.*;
+
+/**
+ * Keeps track of the transactions requested from neighbors. Each missing hash is requested only once no matter how often
+ * it is reported missing. The {@link Sender} asks a different neighbor on every attempt until all neighbors have been
+ * asked, with an exponential back-off between attempts. Requests end once the transaction arrives or expire after
+ * {@link #REQUEST_EXPIRY_MS}.
+ * <p>
+ * Requests ready to be sent are ordered by the amount of referrers waiting for them, so transactions blocking the most
+ * others are requested first. The priorities are updated by {@link #maintain(long, Tangle, Collection)}, which the
+ * {@link Sender} calls regularly.
+ */
+public class RequestManager {
+
+    protected static final long RETRY_BASE_DELAY_MS = 250;
+    protected static final int MAX_BACK_OFF_SHIFT = 5;
+    protected static final long REQUEST_EXPIRY_MS = 60000;
+    /**
+     * Amount of ready requests considered for a neighbor before giving up because it has been asked for all of them.
+     */
+    private static final int MAX_CANDIDATES = 8;
+
+    private final Map<HashKey, Request> outstanding = new HashMap<>();
+    private final PriorityQueue<Request> ready = new PriorityQueue<>(16, new Comparator<Request>() {
+        @Override
+        public int compare(Request request1, Request request2) {
+            return request1.priority != request2.priority
+                    ? Integer.compare(request2.priority, request1.priority)
+                    : Long.compare(request1.requestedAt, request2.requestedAt);
+        }
+    });
+    private final PriorityQueue<Request> backingOff = new PriorityQueue<>(16, new Comparator<Request>() {
+        @Override
+        public int compare(Request request1, Request request2) {
+            return Long.compare(request1.nextAttempt, request2.nextAttempt);
+        }
+    });
+    private final List<Request> skipped = new ArrayList<>(MAX_CANDIDATES);
+    /**
+     * Lets senders skip the lock while nothing is ready, which is the case for most packets.
+     */
+    private volatile int amountReady;
+    private long sent, answered, expired;
+
+    /**
+     * Requests a transaction unless it has been requested already.
+     */
+    public synchronized void request(HashKey hash, long now) {
+        if (outstanding.containsKey(hash))
+            return;
+        Request request = new Request(hash, now);
+        outstanding.put(hash, request);
+        makeReady(request, now);
+        amountReady = ready.size();
+    }
+
+    private void makeReady(Request request, long now) {
+        request.readySince = now;
+        ready.add(request);
+    }
+
+    /**
+     * @return Whether there is a request to be sent right away.
+     */
+    public boolean hasReady() {
+        return amountReady > 0;
+    }
+
+    /**
+     * Takes the request with the highest priority which has not been sent to {@code neighbor} yet and schedules its retry.
+     *
+     * @return The hash to request from {@code neighbor}, {@code null} if there is none.
+     */
+    public HashKey nextRequestFor(Neighbor neighbor, long now) {
+        return nextRequestFor(neighbor, now, Long.MAX_VALUE);
+    }
+
+    /**
+     * Like {@link #nextRequestFor(Neighbor, long)}, but only considers requests which have been waiting to be sent since
+     * {@code readyBefore}, e.g. because no gossip was sent which could have carried them.
+     */
+    public HashKey nextRequestFor(Neighbor neighbor, long now, long readyBefore) {
+        if (amountReady == 0)
+            return null;
+        synchronized (this) {
+            Request chosen = null;
+            while (chosen == null && skipped.size() < MAX_CANDIDATES && !ready.isEmpty()) {
+                Request candidate = ready.poll();
+                if (candidate.done)
+                    continue;
+                if (candidate.readySince <= readyBefore && candidate.asked.add(neighbor))
+                    chosen = candidate;
+                else
+                    skipped.add(candidate);
+            }
+            ready.addAll(skipped);
+            skipped.clear();
+            if (chosen != null) {
+                chosen.attempts++;
+                chosen.nextAttempt = now + (RETRY_BASE_DELAY_MS << Math.min(chosen.attempts - 1, MAX_BACK_OFF_SHIFT));
+                backingOff.add(chosen);
+                sent++;
+            }
+            amountReady = ready.size();
+            return chosen == null ? null : chosen.hash;
+        }
+    }
+
+    /**
+     * Ends the request for a transaction which has arrived.
+     */
+    public synchronized void received(HashKey hash) {
+        Request request = outstanding.remove(hash);
+        if (request != null) {
+            // removal from the queues is deferred until the request is polled or maintained
+            request.done = true;
+            answered++;
+        }
+    }
+
+    /**
+     * Removes requests which have been answered or expired, makes requests whose back-off has passed ready again and
+     * updates the priorities.
+     *
+     * @param neighbors Current neighbors. Once all of them have been asked for a transaction, they are asked again.
+     */
+    public synchronized void maintain(long now, Tangle tangle, Collection<Neighbor> neighbors) {
+        while (!backingOff.isEmpty() && backingOff.peek().nextAttempt <= now)
+            makeReady(backingOff.poll(), now);
+
+        List<Request> stillReady = new ArrayList<>(ready.size());
+        for (Request request : ready) {
+            if (request.done)
+                continue;
+            if (tangle.findTransactionByHash(request.hash) != null) {
+                outstanding.remove(request.hash);
+                answered++;
+            } else if (request.requestedAt + REQUEST_EXPIRY_MS <= now) {
+                outstanding.remove(request.hash);
+                expired++;
+            } else {
+                request.priority = tangle.amountOfWaitingReferrers(request.hash);
+                if (request.asked.containsAll(neighbors))
+                    request.asked.clear();
+                stillReady.add(request);
+            }
+        }
+        ready.clear();
+        ready.addAll(stillReady);
+        amountReady = ready.size();
+    }
+
+    public synchronized int amountOutstanding() {
+        return outstanding.size();
+    }
+
+    /**
+     * @return Amount of requests sent to neighbors, counting every attempt.
+     */
+    public synchronized long requestsSent() {
+        return sent;
+    }
+
+    public synchronized long requestsAnswered() {
+        return answered;
+    }
+
+    public synchronized long requestsExpired() {
+        return expired;
+    }
+
+    private static class Request {
+
+        private final HashKey hash;
+        private final long requestedAt;
+        private final Set<Neighbor> asked = new HashSet<>();
+        private int attempts;
+        private long nextAttempt, readySince;
+        /**
+         * Amount of referrers waiting for the transaction.
+         */
+        private int priority = 1;
+        private boolean done;
+
+        private Request(HashKey hash, long requestedAt) {
+            this.hash = hash;
+            this.requestedAt = requestedAt;
+        }
+    }
+}
@@ -11,11 +11,11 @@ import org.iota.ict.model.transaction.Transaction;
 import org.iota.ict.utils.properties.FinalProperties;
 import org.iota.ict.utils.properties.Properties;
 
-import java.net.DatagramPacket;
-import java.util.Comparator;
-import java.util.Queue;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class sends transactions to neighbors. Together with the {@link Receiver}, they are the two important gateways
@@ -23,29 +23,61 @@ import java.util.concurrent.ThreadLocalRandom;
  * to communicate with its neighbors.
  * <p>
  * The sending process happens in its own Thread to not block other components. Before being sent, transactions are put
- * into a {@link #queue}. This class also requests transactions which are not known to the Ict but were referenced by
- * received transactions either through the branch or trunk.
+ * into a {@link ForwardingScheduler} for their forward delay. This class also requests transactions which are not known
+ * to the Ict but were referenced by received transactions either through the branch or trunk. The requests are managed by
+ * the {@link RequestManager} and attached to outgoing transactions. If a request could not be attached to any transaction
+ * for a while because there was no gossip to a neighbor, it is sent in a request-only packet, which carries the
+ * {@link Transaction#NULL_TRANSACTION} instead of a transaction. The {@link Receiver} of the neighbor only answers the
+ * request of such a packet, nothing is added to its tangle.
+ * <p>
+ * The forward delay is random but shrinks as the scheduler fills up, so a growing backlog is forwarded faster. Every
+ * {@link #TICK_MS}, all transactions whose forward delay has passed are moved into the outbound queues of the neighbors
+ * (see {@link Neighbor#queueForSending(Transaction)}) as one batch. Neighbors whose outbound queue is more than half full
+ * get a transaction only after another delay, which gives them the chance to receive it from someone else first. Multiple
+ * {@link SendWorker}s drain the outbound queues round-robin, each one responsible for a share of the neighbors.
+ * <p>
+ * No thread wakes up without traffic. The sender thread only ticks while transactions are scheduled and maintains the
+ * requests only while there are any. The send workers wait until transactions are moved into the outbound queues or
+ * requests become ready, and for rate limited neighbors until their next packet is allowed.
  *
  * @see Ict
  * @see Receiver
  */
 public class Sender extends RestartableThread implements SenderInterface {
 
+    protected static final int SEND_WORKERS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    protected static final int FORWARD_QUEUE_CAPACITY = 10000;
+    protected static final long TICK_MS = 5;
+    private static final int WHEEL_SIZE = 1024;
+    private static final long REQUEST_MAINTENANCE_INTERVAL_MS = 100;
+
     private Node node;
-    private final SendingTaskQueue queue = new SendingTaskQueue();
+    private final ForwardingScheduler scheduler = new ForwardingScheduler(FORWARD_QUEUE_CAPACITY, TICK_MS, WHEEL_SIZE, System.currentTimeMillis());
+    private final List<ForwardingScheduler.Task> due = new ArrayList<>();
+    private final Object outboundSignal = new Object();
+    /**
+     * Incremented whenever the send workers are notified, so they do not miss a notification while checking the queues.
+     */
+    private volatile long outboundSignals;
+    private final Object workSignal = new Object();
+    private volatile boolean idle;
 
-    private final Queue<String> transactionsToRequest = new PriorityBlockingQueue<>();
+    private final RequestManager requestManager = new RequestManager();
+    private long nextRequestMaintenance;
     private static final Logger LOGGER = LogManager.getLogger("Sender");
-    private Properties properties;
+    private volatile Properties properties;
 
     public Sender(Node node, Properties properties) {
         super(LOGGER);
         this.node = node;
         this.properties = properties;
+        for (int i = 0; i < SEND_WORKERS; i++)
+            subWorkers.add(new SendWorker(i));
     }
 
     @Override
     public void onReceive(GossipEvent event) {
+        requestManager.received(event.getTransaction().hashKey());
         Tangle.TransactionLog log = node.ict.getTangle().createTransactionLogIfAbsent(event.getTransaction());
         if (!log.wasSent && log.senders.size() < node.neighbors.size()) {
             log.wasSent = true;
@@ -61,40 +93,86 @@ public class Sender extends RestartableThread implements SenderInterface {
     @Override
     public void run() {
         while (isRunning()) {
-            if (!queue.isEmpty() && queue.peek().sendingTime <= System.currentTimeMillis()) {
-                sendTransaction(queue.poll().transaction);
-            } else {
-                waitForNextTransaction();
+            long now = System.currentTimeMillis();
+            if (now >= nextRequestMaintenance) {
+                requestManager.maintain(now, node.ict.getTangle(), node.neighbors);
+                nextRequestMaintenance = now + REQUEST_MAINTENANCE_INTERVAL_MS;
+                if (requestManager.hasReady())
+                    signalOutbound();
             }
+            scheduler.drainDue(now, due);
+            if (!due.isEmpty()) {
+                for (ForwardingScheduler.Task task : due)
+                    forward(task, now);
+                due.clear();
+                signalOutbound();
+            }
+            waitForWork();
         }
     }
 
-    private void waitForNextTransaction() {
+    private void waitForWork() {
         try {
-            synchronized (queue) {
-                // keep queue.isEmpty() within the synchronized block so notify is not called after the empty check and before queue.wait()
-                queue.wait(queue.isEmpty() ? properties.roundDuration() : Math.max(1, queue.peek().sendingTime - System.currentTimeMillis()));
+            if (scheduler.size() > 0) {
+                Thread.sleep(TICK_MS - System.currentTimeMillis() % TICK_MS);
+                return;
+            }
+            synchronized (workSignal) {
+                idle = true;
+                // checked again after setting idle, a transaction queued before would not have notified
+                if (scheduler.size() == 0)
+                    workSignal.wait(requestManager.amountOutstanding() > 0 ? REQUEST_MAINTENANCE_INTERVAL_MS : 0);
             }
         } catch (InterruptedException e) {
-            if (isRunning())
-                logger.error("Unexpected interrupt.", e);
+            // terminating
+        } finally {
+            idle = false;
+        }
+    }
+
+    private void wakeUp() {
+        if (idle) {
+            synchronized (workSignal) {
+                workSignal.notify();
+            }
         }
     }
 
-    private void sendTransaction(Transaction transaction) {
-        Tangle.TransactionLog transactionLog = node.ict.getTangle().findTransactionLog(transaction);
-        if (Math.abs(transaction.issuanceTimestamp - System.currentTimeMillis()) > Constants.TIMESTAMP_DIFFERENCE_TOLERANCE_IN_MILLIS * 0.9)
+    private void signalOutbound() {
+        synchronized (outboundSignal) {
+            outboundSignals++;
+            outboundSignal.notifyAll();
+        }
+    }
+
+    private void forward(ForwardingScheduler.Task task, long now) {
+        Tangle.TransactionLog transactionLog = node.ict.getTangle().findTransactionLog(task.transaction);
+        if (task.neighbor != null) {
+            // deferred before, not deferred again
+            if (transactionLog == null || !transactionLog.senders.contains(task.neighbor))
+                task.neighbor.queueForSending(task.transaction);
             return;
-        for (Neighbor nb : node.neighbors)
-            if (transactionLog == null || !transactionLog.senders.contains(nb))
-                sendTransactionToNeighbor(nb, transaction);
+        }
+        for (Neighbor nb : node.neighbors) {
+            if (transactionLog != null && transactionLog.senders.contains(nb))
+                continue;
+            if (nb.outboundQueueSize() > Neighbor.OUTBOUND_QUEUE_CAPACITY / 2)
+                scheduler.schedule(new ForwardingScheduler.Task(task.transaction, nb), now + Math.max(TICK_MS, properties.maxForwardDelay()));
+            else
+                nb.queueForSending(task.transaction);
+        }
     }
 
-    private void sendTransactionToNeighbor(Neighbor nb, Transaction transaction) {
+    /**
+     * @param requestedHash Hash of the transaction to request, {@code null} to not request any.
+     */
+    private void sendPacketToNeighbor(ByteBuffer packetBuffer, Neighbor nb, Transaction transaction, HashKey requestedHash) {
         try {
-            DatagramPacket packet = transaction.toDatagramPacket(transactionsToRequest.isEmpty() ? Trytes.NULL_HASH : transactionsToRequest.poll());
-            packet.setSocketAddress(nb.getSocketAddress());
-            node.socket.send(packet);
+            packetBuffer.clear();
+            transaction.copyBytes(packetBuffer);
+            (requestedHash != null ? requestedHash : HashKey.NULL_HASH).writeBytes(packetBuffer);
+            packetBuffer.flip();
+            node.channel.send(packetBuffer, nb.getSocketAddress());
         } catch (Exception e) {
             if (isRunning())
                 logger.error("Failed to send transaction to neighbor.", e);
@@ -103,57 +181,126 @@ public class Sender extends RestartableThread implements SenderInterface {
 
     @Override
     public void onTerminate() {
-        synchronized (queue) {
-            queue.notify();
-        }
+        runningThread.interrupt();
     }
 
     public void queue(Transaction transaction) {
-        long forwardDelay = properties.minForwardDelay() + ThreadLocalRandom.current().nextLong(properties.maxForwardDelay() - properties.minForwardDelay());
-        queue.add(new SendingTask(System.currentTimeMillis() + forwardDelay, transaction));
-        synchronized (queue) {
-            queue.notify();
-        }
+        Properties properties = this.properties;
+        long spread = properties.maxForwardDelay() - properties.minForwardDelay();
+        long forwardDelay = properties.minForwardDelay() + (spread > 0 ? (long) (ThreadLocalRandom.current().nextLong(spread) * (1 - scheduler.load())) : 0);
+        if (scheduler.schedule(transaction, System.currentTimeMillis() + forwardDelay))
+            wakeUp();
     }
 
     @Override
     public void updateProperties(FinalProperties properties) {
         this.properties = properties;
-        synchronized (queue) {
-            // notify queue to stop wait() and enforce new round duration
-            queue.notify();
-        }
     }
 
     @Override
     public void request(String requestedHash) {
-        transactionsToRequest.add(requestedHash);
+        requestManager.request(HashKey.fromTrytes(requestedHash), System.currentTimeMillis());
+        wakeUp();
     }
 
-    private static class SendingTask {
+    /**
+     * @return Amount of transactions waiting for their forward delay to pass or waiting in the outbound queue of a neighbor.
+     */
+    public int queueSize() {
+        int size = scheduler.size();
+        for (Neighbor nb : node.neighbors)
+            size += nb.outboundQueueSize();
+        return size;
+    }
+
+    @Override
+    public void log() {
+        long droppedStaleInOutbound = 0;
+        for (Neighbor nb : node.neighbors)
+            droppedStaleInOutbound += nb.outboundStale();
+        logger.debug("forward scheduler: " + scheduler.size() + "/" + scheduler.capacity() + ", dropped as stale: " + scheduler.droppedStale()
+                + " (+" + droppedStaleInOutbound + " in outbound queues), dropped on overflow: " + scheduler.droppedOverflow());
+        logger.debug("requests outstanding: " + requestManager.amountOutstanding() + ", sent: " + requestManager.requestsSent()
+                + ", answered: " + requestManager.requestsAnswered() + ", expired: " + requestManager.requestsExpired());
+    }
+
+    /**
+     * Sends the transactions queued for every {@link #SEND_WORKERS}-th neighbor, one transaction per neighbor at a time.
+     */
+    protected class SendWorker extends RestartableThread {
 
-        private final long sendingTime;
-        private final Transaction transaction;
+        private final int index;
+        /**
+         * Reused for every packet. Direct so the channel does not have to copy it again.
+         */
+        private final ByteBuffer packetBuffer = ByteBuffer.allocateDirect(Constants.PACKET_SIZE_BYTES);
 
-        private SendingTask(long sendingTime, Transaction transaction) {
-            this.sendingTime = sendingTime;
-            this.transaction = transaction;
+        protected SendWorker(int index) {
+            super(null);
+            this.index = index;
         }
-    }
 
-    public int queueSize() {
-        return queue.size();
-    }
+        @Override
+        public void run() {
+            while (isRunning()) {
+                long signalsSeen = outboundSignals;
+                boolean sentAny = false;
+                long waitNanos = Long.MAX_VALUE;
+                int i = 0;
+                // iterates over a snapshot, neighbors might be added or removed concurrently
+                for (Neighbor nb : node.neighbors) {
+                    if (i++ % SEND_WORKERS != index)
+                        continue;
+                    Transaction transaction = nb.pollForSending();
+                    if (transaction != null) {
+                        sendPacketToNeighbor(packetBuffer, nb, transaction, requestManager.nextRequestFor(nb, System.currentTimeMillis()));
+                        sentAny = true;
+                    } else if (nb.outboundQueueSize() > 0) {
+                        // rate limited
+                        waitNanos = Math.min(waitNanos, nb.nanosUntilSendPermit());
+                    } else if (requestManager.hasReady()) {
+                        sentAny |= sendStandaloneRequest(nb);
+                    }
+                }
+                if (!sentAny)
+                    waitForOutbound(signalsSeen, waitNanos);
+            }
+        }
 
+        private boolean sendStandaloneRequest(Neighbor nb) {
+            long now = System.currentTimeMillis();
+            // give gossip the chance to carry the request first
+            HashKey requestedHash = requestManager.nextRequestFor(nb, now, now - RequestManager.RETRY_BASE_DELAY_MS);
+            if (requestedHash == null || !nb.tryAcquireSendPermit())
+                return false; // if rate limited, the request is retried after its back-off
+            sendPacketToNeighbor(packetBuffer, nb, Transaction.NULL_TRANSACTION, requestedHash);
+            return true;
+        }
 
-    private static class SendingTaskQueue extends PriorityBlockingQueue<SendingTask> {
-        private SendingTaskQueue() {
-            super(1, new Comparator<SendingTask>() {
-                @Override
-                public int compare(SendingTask task1, SendingTask task2) {
-                    return Long.compare(task1.sendingTime, task2.sendingTime);
+        /**
+         * @param waitNanos Maximum time to wait, {@link Long#MAX_VALUE} to wait until notified.
+         */
+        private void waitForOutbound(long signalsSeen, long waitNanos) {
+            if (waitNanos == 0)
+                return;
+            try {
+                synchronized (outboundSignal) {
+                    if (outboundSignals != signalsSeen)
+                        return; // notified while checking the queues
+                    if (waitNanos == Long.MAX_VALUE)
+                        outboundSignal.wait();
+                    else
+                        TimeUnit.NANOSECONDS.timedWait(outboundSignal, waitNanos);
                 }
-            });
+            } catch (InterruptedException e) {
+                // terminating
+            }
+        }
+
+        @Override
+        public void onTerminate() {
+            runningThread.interrupt();
         }
     }
+
 }
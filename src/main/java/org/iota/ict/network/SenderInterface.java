@@ -12,4 +12,6 @@ public interface SenderInterface extends Restartable, PropertiesUser, GossipList
     void queue(Transaction transaction);
 
     int queueSize();
+
+    void log();
 }
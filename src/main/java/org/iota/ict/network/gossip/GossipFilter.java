@@ -1,45 +1,80 @@
 package org.iota.ict.network.gossip;
 
 import org.iota.ict.model.transaction.Transaction;
+import org.iota.ict.utils.HashKey;
 
 import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
 
+/**
+ * Selects gossip by address and tag. Can be checked directly with {@link #passes(Transaction)} or registered in a
+ * {@link GossipSubscriptionIndex} to match it together with the filters of all other subscribers.
+ */
 public class GossipFilter implements Serializable {
 
+    private static final int MAX_WATCHED_FOR_LINEAR_SCAN = 8;
+
     private boolean watchingAll;
-    private final Set<String> watchedAddresses = new HashSet<>();
-    private final Set<String> watchedTags = new HashSet<>();
+    // stored as keys so transactions can be matched without decoding their fields into strings
+    private final Set<HashKey> watchedAddresses = new HashSet<>();
+    private final Set<HashKey> watchedTags = new HashSet<>();
+
+    public GossipFilter() {
+    }
+
+    /**
+     * Creates an independent copy of {@code filter}.
+     */
+    public GossipFilter(GossipFilter filter) {
+        watchingAll = filter.watchingAll;
+        watchedAddresses.addAll(filter.watchedAddresses);
+        watchedTags.addAll(filter.watchedTags);
+    }
 
     public GossipFilter watchAddress(String address) {
         assert address.length() == Transaction.Field.ADDRESS.tryteLength;
-        watchedAddresses.add(address);
+        watchedAddresses.add(HashKey.fromTrytes(address));
         return this;
     }
 
     public GossipFilter unwatchAddress(String address) {
-        watchedAddresses.remove(address);
+        watchedAddresses.remove(HashKey.fromTrytes(address));
         return this;
     }
 
     public GossipFilter watchTag(String tag) {
         assert tag.length() == Transaction.Field.TAG.tryteLength;
-        watchedTags.add(tag);
+        watchedTags.add(HashKey.fromTrytes(tag));
         return this;
     }
 
     public GossipFilter unwatchTag(String tag) {
-        watchedTags.remove(tag);
+        watchedTags.remove(HashKey.fromTrytes(tag));
         return this;
     }
 
     public Set<String> getWatchedTags() {
-        return new HashSet<>(watchedTags);
+        return toStrings(watchedTags);
     }
 
     public Set<String> getWatchedAddresses() {
-        return new HashSet<>(watchedAddresses);
+        return toStrings(watchedAddresses);
+    }
+
+    private static Set<String> toStrings(Set<HashKey> keys) {
+        Set<String> strings = new HashSet<>();
+        for (HashKey key : keys)
+            strings.add(key.toString());
+        return strings;
+    }
+
+    Set<HashKey> getWatchedAddressKeys() {
+        return watchedAddresses;
+    }
+
+    Set<HashKey> getWatchedTagKeys() {
+        return watchedTags;
     }
 
     public GossipFilter setWatchingAll(boolean watchingAll) {
@@ -52,6 +87,16 @@ public class GossipFilter implements Serializable {
     }
 
     public boolean passes(Transaction transaction) {
-        return watchingAll || watchedAddresses.contains(transaction.address()) || watchedTags.contains(transaction.tag());
+        return watchingAll || matchesAny(transaction, Transaction.Field.ADDRESS, watchedAddresses) || matchesAny(transaction, Transaction.Field.TAG, watchedTags);
+    }
+
+    private static boolean matchesAny(Transaction transaction, Transaction.Field field, Set<HashKey> watched) {
+        if (watched.size() > MAX_WATCHED_FOR_LINEAR_SCAN)
+            return watched.contains(field == Transaction.Field.ADDRESS ? transaction.addressKey() : transaction.tagKey());
+        // for few watched keys, comparing them with the bytes in place is cheaper than creating a key for the lookup
+        for (HashKey key : watched)
+            if (transaction.fieldEquals(field, key))
+                return true;
+        return false;
     }
-}
\ No newline at end of file
+}
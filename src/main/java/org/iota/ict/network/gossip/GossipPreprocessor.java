@@ -1,10 +1,15 @@
 package org.iota.ict.network.gossip;
 
 import org.iota.ict.eee.chain.ChainedEffectListenerImplementation;
+import org.iota.ict.eee.chain.DirectHandOff;
 import org.iota.ict.eee.dispatch.EffectDispatcher;
 import org.iota.ict.utils.Constants;
 
-public class GossipPreprocessor extends ChainedEffectListenerImplementation<GossipEvent> implements GossipListener {
+/**
+ * Queues gossip at its position in {@link org.iota.ict.utils.Constants.Environments#GOSSIP_PREPROCESSOR_CHAIN}. Since it
+ * only queues, effects are handed over directly when passed on by the previous preprocessor.
+ */
+public class GossipPreprocessor extends ChainedEffectListenerImplementation<GossipEvent> implements GossipListener, DirectHandOff {
 
     public GossipPreprocessor(EffectDispatcher dispatcher, int chainPosition) {
         super(dispatcher, Constants.Environments.GOSSIP_PREPROCESSOR_CHAIN, chainPosition);
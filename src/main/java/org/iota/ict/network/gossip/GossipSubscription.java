@@ -0,0 +1,66 @@
+package org.iota.ict.network.gossip;
+
+import org.iota.ict.eee.EffectListener;
+import org.iota.ict.eee.Environment;
+
+/**
+ * Registration of a {@link GossipListener} in a {@link GossipSubscriptionIndex}. Each subscription has its own environment
+ * through which the index forwards matching gossip, so the dispatcher delivers it like to any other listener.
+ */
+public class GossipSubscription implements EffectListener<GossipEvent> {
+
+    private final GossipSubscriptionIndex index;
+    private final GossipListener listener;
+    private final Environment environment;
+    private volatile GossipFilter filter;
+    /**
+     * Last event forwarded to this subscription, to not forward an event matching both address and tag twice.
+     */
+    GossipEvent lastMatched;
+
+    GossipSubscription(GossipSubscriptionIndex index, long id, GossipFilter filter, GossipListener listener) {
+        this.index = index;
+        this.listener = listener;
+        this.environment = new Environment("gossip_subscription#" + id);
+        this.filter = new GossipFilter(filter);
+    }
+
+    /**
+     * Replaces the filter. Changes to a filter after it has been passed to the index are not considered until it is
+     * passed again with this method.
+     */
+    public void updateFilter(GossipFilter filter) {
+        this.filter = new GossipFilter(filter);
+        index.recompile();
+    }
+
+    /**
+     * @return Copy of the current filter.
+     */
+    public GossipFilter getFilter() {
+        return new GossipFilter(filter);
+    }
+
+    GossipFilter filter() {
+        return filter;
+    }
+
+    public void cancel() {
+        index.unsubscribe(this);
+    }
+
+    @Override
+    public void onReceive(GossipEvent event) {
+        listener.onReceive(event);
+    }
+
+    @Override
+    public Environment getEnvironment() {
+        return environment;
+    }
+
+    @Override
+    public String toString() {
+        return listener.toString();
+    }
+}
@@ -0,0 +1,127 @@
+package org.iota.ict.network.gossip;
+
+import org.iota.ict.eee.dispatch.EffectDispatcher;
+import org.iota.ict.utils.HashKey;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Matches gossip against the {@link GossipFilter}s of all subscribers at once. The filters are compiled into a single
+ * index from watched addresses and tags to the subscriptions watching them. Each transaction is looked up once per field
+ * with keys created directly from its bytes, and only the matching subscriptions receive the event. The index is
+ * replaced as a whole whenever a subscription changes, so matching does not need any locks.
+ */
+public class GossipSubscriptionIndex extends GossipListener.Implementation {
+
+    private static final GossipSubscription[] NONE = new GossipSubscription[0];
+
+    private final EffectDispatcher dispatcher;
+    private final AtomicLong subscriptionCounter = new AtomicLong();
+    private final Set<GossipSubscription> subscriptions = new LinkedHashSet<>();
+    private volatile Index index = new Index(Collections.<GossipSubscription>emptySet());
+
+    public GossipSubscriptionIndex(EffectDispatcher dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * @param filter   Gossip to forward to {@code listener}. Later changes to the filter require {@link GossipSubscription#updateFilter(GossipFilter)}.
+     * @param listener Receives all gossip passing {@code filter}.
+     */
+    public GossipSubscription subscribe(GossipFilter filter, GossipListener listener) {
+        GossipSubscription subscription = new GossipSubscription(this, subscriptionCounter.incrementAndGet(), filter, listener);
+        dispatcher.addListener(subscription);
+        synchronized (subscriptions) {
+            subscriptions.add(subscription);
+            recompile();
+        }
+        return subscription;
+    }
+
+    void unsubscribe(GossipSubscription subscription) {
+        synchronized (subscriptions) {
+            if (!subscriptions.remove(subscription))
+                return;
+            recompile();
+        }
+        dispatcher.removeListener(subscription);
+    }
+
+    void recompile() {
+        synchronized (subscriptions) {
+            index = new Index(subscriptions);
+        }
+    }
+
+    public int amountOfSubscriptions() {
+        return index.amountOfSubscriptions;
+    }
+
+    @Override
+    public void onReceive(GossipEvent event) {
+        Index index = this.index;
+        for (GossipSubscription subscription : index.watchingAll)
+            forward(subscription, event);
+        if (!index.byAddress.isEmpty())
+            forwardAll(index.byAddress.get(event.getTransaction().addressKey()), event);
+        if (!index.byTag.isEmpty())
+            forwardAll(index.byTag.get(event.getTransaction().tagKey()), event);
+    }
+
+    private void forwardAll(GossipSubscription[] subscriptions, GossipEvent event) {
+        if (subscriptions != null)
+            for (GossipSubscription subscription : subscriptions)
+                forward(subscription, event);
+    }
+
+    private void forward(GossipSubscription subscription, GossipEvent event) {
+        if (subscription.lastMatched == event)
+            return;
+        subscription.lastMatched = event;
+        dispatcher.submitEffect(subscription.getEnvironment(), event);
+    }
+
+    private static class Index {
+
+        private final int amountOfSubscriptions;
+        private final GossipSubscription[] watchingAll;
+        private final Map<HashKey, GossipSubscription[]> byAddress, byTag;
+
+        private Index(Collection<GossipSubscription> subscriptions) {
+            amountOfSubscriptions = subscriptions.size();
+            List<GossipSubscription> watchingAll = new ArrayList<>();
+            Map<HashKey, List<GossipSubscription>> byAddress = new HashMap<>(), byTag = new HashMap<>();
+            for (GossipSubscription subscription : subscriptions) {
+                GossipFilter filter = subscription.filter();
+                if (filter.isWatchingAll()) {
+                    watchingAll.add(subscription);
+                    continue;
+                }
+                add(byAddress, filter.getWatchedAddressKeys(), subscription);
+                add(byTag, filter.getWatchedTagKeys(), subscription);
+            }
+            this.watchingAll = watchingAll.toArray(NONE);
+            this.byAddress = toArrays(byAddress);
+            this.byTag = toArrays(byTag);
+        }
+
+        private static void add(Map<HashKey, List<GossipSubscription>> index, Set<HashKey> keys, GossipSubscription subscription) {
+            for (HashKey key : keys) {
+                List<GossipSubscription> subscriptions = index.get(key);
+                if (subscriptions == null) {
+                    subscriptions = new ArrayList<>(1);
+                    index.put(key, subscriptions);
+                }
+                subscriptions.add(subscription);
+            }
+        }
+
+        private static Map<HashKey, GossipSubscription[]> toArrays(Map<HashKey, List<GossipSubscription>> index) {
+            Map<HashKey, GossipSubscription[]> arrays = new HashMap<>();
+            for (Map.Entry<HashKey, List<GossipSubscription>> entry : index.entrySet())
+                arrays.put(entry.getKey(), entry.getValue().toArray(NONE));
+            return arrays;
+        }
+    }
+}
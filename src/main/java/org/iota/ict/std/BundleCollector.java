@@ -3,11 +3,10 @@ package org.iota.ict.std;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.iota.ict.Ict;
-import org.iota.ict.eee.EffectListener;
-import org.iota.ict.eee.Environment;
 import org.iota.ict.model.transaction.Transaction;
 import org.iota.ict.network.gossip.GossipEvent;
 import org.iota.ict.network.gossip.GossipPreprocessor;
+import org.iota.ict.utils.HashKey;
 import org.iota.ict.utils.RestartableThread;
 
 import java.util.*;
@@ -15,20 +14,56 @@ import java.util.*;
 /**
  * This class collects bundles before they are further processed by other components. It ensures that no incomplete bundles
  * enter the internal state of the Ict node.
+ * <p>
+ * Transactions of incomplete bundles are kept in {@link Segment}s, chains of transactions linked by their trunks. Each
+ * segment is indexed by both of its open ends, so an arriving transaction is merged with the segments above and below it
+ * in constant time. Once a segment reaches from a bundle head to a bundle tail, it is passed on. Segments which did not
+ * grow for {@link #DEFAULT_MAX_AGE_MS} are dropped, as are the oldest segments if more than {@link #DEFAULT_MAX_TRANSACTIONS}
+ * transactions are held.
  * */
 public class BundleCollector extends RestartableThread {
 
+    protected static final long DEFAULT_MAX_AGE_MS = 300000;
+    protected static final int DEFAULT_MAX_TRANSACTIONS = 50000;
+
     private final Ict ict;
     private static final Logger LOGGER = LogManager.getLogger("BndlColl");
 
     private GossipPreprocessor gossipPreprocessor;
-    private Map<String, GossipEvent> existingTransactionsByHash = new HashMap<>();
-    private Map<String, GossipEvent> existingTransactionsByTrunk = new HashMap<>();
+    private final long maxAgeMs;
+    private final int maxTransactions;
+
+    /**
+     * Incomplete segments whose upper end is not a bundle head, by the hash of that transaction.
+     */
+    private final Map<HashKey, Segment> segmentsByUpperHash = new HashMap<>();
+    /**
+     * Incomplete segments whose lower end is not a bundle tail, by the trunk hash of that transaction.
+     */
+    private final Map<HashKey, Segment> segmentsByLowerTrunk = new HashMap<>();
+    /**
+     * All incomplete segments, ordered by their last update (oldest first).
+     */
+    private final Set<Segment> segmentsByAge = new LinkedHashSet<>();
+    private int heldTransactions;
+    private long bundlesPassedOn, transactionsExpired;
 
     public BundleCollector(Ict ict) {
+        this(ict, DEFAULT_MAX_AGE_MS, DEFAULT_MAX_TRANSACTIONS);
+    }
+
+    /**
+     * @param maxAgeMs        Incomplete segments which did not receive a transaction for this long are dropped.
+     * @param maxTransactions Maximum amount of transactions held in incomplete segments.
+     */
+    public BundleCollector(Ict ict, long maxAgeMs, int maxTransactions) {
         super(LOGGER);
+        if (maxTransactions < 1)
+            throw new IllegalArgumentException("maxTransactions must be positive");
         this.gossipPreprocessor = new GossipPreprocessor(ict, -1000);
         this.ict = ict;
+        this.maxAgeMs = maxAgeMs;
+        this.maxTransactions = maxTransactions;
     }
 
     @Override
@@ -36,8 +71,7 @@ public class BundleCollector extends RestartableThread {
         while (isRunning()) {
             try {
                 GossipEvent gossipEvent = gossipPreprocessor.takeEffect();
-                addIncompleteBundleTransaction(gossipEvent);
-                passOnBundleIfComplete(gossipEvent);
+                collect(gossipEvent, System.currentTimeMillis());
             } catch (InterruptedException e) {
                 if(isRunning())
                     throw new RuntimeException(e);
@@ -46,49 +80,107 @@ public class BundleCollector extends RestartableThread {
         ict.removeListener(gossipPreprocessor);
     }
 
-    private void addIncompleteBundleTransaction(GossipEvent event) {
+    synchronized void collect(GossipEvent event, long now) {
+        Segment segment = new Segment(event);
         Transaction transaction = event.getTransaction();
-        if(!transaction.isBundleHead)
-            existingTransactionsByHash.put(transaction.hash, event);
-        if(!transaction.isBundleTail)
-            existingTransactionsByTrunk.put(transaction.trunkHash(), event);
-    }
 
-    private void passOnBundleIfComplete(GossipEvent last) {
+        Segment lower = transaction.isBundleTail ? null : segmentsByUpperHash.get(transaction.trunkHashKey());
+        if (lower != null) {
+            unregister(lower);
+            segment = lower.append(segment);
+        }
+        Segment upper = transaction.isBundleHead ? null : segmentsByLowerTrunk.get(transaction.hashKey());
+        if (upper != null) {
+            unregister(upper);
+            segment = segment.append(upper);
+        }
+
+        if (segment.isComplete()) {
+            passOn(segment);
+        } else {
+            segment.lastUpdate = now;
+            register(segment);
+        }
+        heldTransactions += 1 - (segment.isComplete() ? segment.size : 0);
+        expire(now);
+    }
 
-        GossipEvent head = findHead(last);
-        List<GossipEvent> headToTail = fetchToTail(head);
+    private void passOn(Segment segment) {
+        // from tail to head
+        for (Link link = segment.lower; link != null; link = link.next)
+            gossipPreprocessor.passOn(link.event);
+        bundlesPassedOn++;
+    }
 
-        if(headToTail == null)
-            // bundle not yet complete
-            return;
+    private void register(Segment segment) {
+        if (segment.upperHash != null)
+            segmentsByUpperHash.put(segment.upperHash, segment);
+        if (segment.lowerTrunk != null)
+            segmentsByLowerTrunk.put(segment.lowerTrunk, segment);
+        segmentsByAge.add(segment);
+    }
 
-        for(int i = headToTail.size()-1; i >= 0; i--)
-            gossipPreprocessor.passOn(headToTail.get(i));
+    private void unregister(Segment segment) {
+        removeKeys(segment);
+        segmentsByAge.remove(segment);
+    }
 
-        for(GossipEvent event : headToTail)
-            existingTransactionsByTrunk.remove(event.getTransaction().hash);
+    private void removeKeys(Segment segment) {
+        // another segment might have taken the key in case of conflicting transactions
+        if (segment.upperHash != null && segmentsByUpperHash.get(segment.upperHash) == segment)
+            segmentsByUpperHash.remove(segment.upperHash);
+        if (segment.lowerTrunk != null && segmentsByLowerTrunk.get(segment.lowerTrunk) == segment)
+            segmentsByLowerTrunk.remove(segment.lowerTrunk);
     }
 
-    private GossipEvent findHead(GossipEvent last) {
-        while (last != null && !last.getTransaction().isBundleHead) {
-            last = existingTransactionsByTrunk.get(last.getTransaction().hash);
+    /**
+     * Drops segments which are too old or exceed the transaction budget. Runs on every collected transaction and on
+     * every {@link #log()}, so bundles also expire while no gossip arrives.
+     */
+    synchronized void expire(long now) {
+        Iterator<Segment> oldestFirst = segmentsByAge.iterator();
+        while (oldestFirst.hasNext()) {
+            Segment oldest = oldestFirst.next();
+            if (heldTransactions <= maxTransactions && oldest.lastUpdate >= now - maxAgeMs)
+                break;
+            oldestFirst.remove();
+            removeKeys(oldest);
+            heldTransactions -= oldest.size;
+            transactionsExpired += oldest.size;
         }
-        return last;
     }
 
-    private List<GossipEvent> fetchToTail(GossipEvent last) {
-        List<GossipEvent> toTail = new LinkedList<>();
-        toTail.add(last);
-        while (last != null && !last.getTransaction().isBundleTail) {
-            last = existingTransactionsByHash.get(last.getTransaction().trunkHash());
-            toTail.add(last);
-        }
-        return last == null ? null : toTail;
+    /**
+     * @return Amount of bundles which have not been received completely yet. A bundle whose transactions have not been
+     *         connected yet is counted multiple times.
+     */
+    public synchronized int incompleteBundles() {
+        return segmentsByAge.size();
+    }
+
+    /**
+     * @return Amount of transactions held back because their bundle is incomplete.
+     */
+    public synchronized int heldTransactions() {
+        return heldTransactions;
+    }
+
+    public synchronized long bundlesPassedOn() {
+        return bundlesPassedOn;
+    }
+
+    /**
+     * @return Amount of transactions which have been dropped because their bundle did not complete in time or because
+     *         too many transactions were held.
+     */
+    public synchronized long transactionsExpired() {
+        return transactionsExpired;
     }
 
     public void log() {
-        logger.debug("incomplete bundle parts: " + existingTransactionsByHash.size()+"+"+existingTransactionsByTrunk.size());
+        expire(System.currentTimeMillis());
+        logger.debug("incomplete bundle parts: " + incompleteBundles() + " (" + heldTransactions() + " transactions), bundles passed on: "
+                + bundlesPassedOn() + ", transactions expired: " + transactionsExpired());
     }
 
     @Override
@@ -100,4 +192,54 @@ public class BundleCollector extends RestartableThread {
     public void onTerminate() {
         runningThread.interrupt();
     }
+
+    private static class Link {
+        private final GossipEvent event;
+        private Link next;
+
+        private Link(GossipEvent event) {
+            this.event = event;
+        }
+    }
+
+    /**
+     * Chain of transactions in which each transaction is the trunk of the next one, linked from the lowest (closest to
+     * the tail) to the uppermost one (closest to the head).
+     */
+    private static class Segment {
+
+        private Link lower, upper;
+        private int size;
+        private long lastUpdate;
+        private HashKey upperHash, lowerTrunk;
+
+        private Segment(GossipEvent event) {
+            lower = upper = new Link(event);
+            size = 1;
+            updateKeys();
+        }
+
+        /**
+         * Links {@code above} on top of this segment.
+         *
+         * @return This segment, now containing the transactions of both.
+         */
+        private Segment append(Segment above) {
+            upper.next = above.lower;
+            upper = above.upper;
+            size += above.size;
+            updateKeys();
+            return this;
+        }
+
+        private void updateKeys() {
+            Transaction upperTransaction = upper.event.getTransaction(), lowerTransaction = lower.event.getTransaction();
+            upperHash = upperTransaction.isBundleHead ? null : upperTransaction.hashKey();
+            lowerTrunk = lowerTransaction.isBundleTail ? null : lowerTransaction.trunkHashKey();
+        }
+
+        private boolean isComplete() {
+            return upperHash == null && lowerTrunk == null;
+        }
+    }
 }
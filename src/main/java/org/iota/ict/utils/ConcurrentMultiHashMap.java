@@ -0,0 +1,81 @@
+package org.iota.ict.utils;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Thread-safe map from keys to sets of values, intended for secondary indexes with many concurrent writers. Adding and
+ * removing a value takes constant time regardless of how many values are mapped to the same key. Neither writers nor
+ * readers lock. Unlike {@link MultiHashMap}, {@link #get(Object)} does not copy the values but returns a read-only view.
+ * <p>
+ * The set of a key is dropped once it becomes empty. To do so without locking, the set is first retired. Writers who
+ * added to a retired set add again once it has been replaced, while the set is restored if a value arrived meanwhile.
+ */
+public class ConcurrentMultiHashMap<K, V> {
+
+    private final ConcurrentMap<K, Values<V>> implementation = new ConcurrentHashMap<>();
+
+    public void add(K key, V value) {
+        while (true) {
+            Values<V> values = implementation.get(key);
+            if (values == null) {
+                Values<V> created = new Values<>();
+                created.set.add(value);
+                values = implementation.putIfAbsent(key, created);
+                if (values == null)
+                    return;
+            }
+            values.set.add(value);
+            // the set was about to be dropped while adding, retry until it has been dropped or restored
+            if (!values.retired.get())
+                return;
+        }
+    }
+
+    public void remove(K key, V value) {
+        Values<V> values = implementation.get(key);
+        if (values == null || !values.set.remove(value))
+            return;
+        if (values.retired.get()) {
+            // a writer might have moved the value to the set replacing the retired one
+            Values<V> current = implementation.get(key);
+            if (current != null && current != values)
+                current.set.remove(value);
+        } else if (values.set.isEmpty() && values.retired.compareAndSet(false, true)) {
+            // writers seeing the set not retired yet have added before this check
+            if (values.set.isEmpty())
+                implementation.remove(key, values);
+            else
+                values.retired.set(false);
+        }
+    }
+
+    /**
+     * @return Read-only and weakly consistent view of all values mapped to {@code key}. Reflects changes until all values
+     *         of the key have been removed.
+     */
+    public Set<V> get(K key) {
+        Values<V> values = implementation.get(key);
+        return values == null ? Collections.<V>emptySet() : Collections.unmodifiableSet(values.set);
+    }
+
+    public boolean containsKey(K key) {
+        return implementation.containsKey(key);
+    }
+
+    /**
+     * @return Amount of keys.
+     */
+    public int size() {
+        return implementation.size();
+    }
+
+    private static class Values<V> {
+
+        private final Set<V> set = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean retired = new AtomicBoolean();
+    }
+}
@@ -21,7 +21,6 @@ public class Constants {
     public static final String DEFAULT_PROPERTY_FILE_PATH = "ict.cfg";
     public static final String WEB_GUI_PATH = "web/dist/";
 
-    public static final int MAX_NEIGHBOR_COUNT = 3;
     public static final int TRANSACTION_SIZE_TRITS = Transaction.Field.NONCE.tritOffset + Transaction.Field.NONCE.tritLength;
     public static final int TRANSACTION_SIZE_TRYTES = TRANSACTION_SIZE_TRITS / 3;
     public static final int TRANSACTION_SIZE_BYTES = TRANSACTION_SIZE_TRITS / 9 * 2;
@@ -0,0 +1,231 @@
+package org.iota.ict.utils;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+
+/**
+ * Compact and immutable representation of a tryte sequence of up to 81 trytes (hashes, addresses, tags, nonces) which is
+ * intended to be used as key in hash based collections. Instead of one {@code char} per tryte, the trytes are stored in
+ * their compressed byte form (see {@link Trytes#toBytes(String)}), packed into seven {@code long}s. The hash code is
+ * calculated once during instantiation so lookups do not have to re-hash the whole sequence.
+ * <p>
+ * Two instances are equal if and only if they were created from the same tryte sequence. Instances can be created directly
+ * from the compressed bytes of a transaction (see {@link #fromBytes(byte[], int, int)}) without decoding any {@link String}.
+ */
+public final class HashKey implements Comparable<HashKey>, Serializable {
+
+    public static final int MAX_TRYTE_LENGTH = 81;
+    private static final int MAX_BYTE_LENGTH = MAX_TRYTE_LENGTH / 3 * 2;
+    private static final int LENGTH_SHIFT = 56;
+
+    public static final HashKey NULL_HASH = fromTrytes(Trytes.NULL_HASH);
+
+    private final long l0, l1, l2, l3, l4, l5, l6;
+    private final int hashCode;
+
+    private HashKey(long[] packed) {
+        l0 = packed[0];
+        l1 = packed[1];
+        l2 = packed[2];
+        l3 = packed[3];
+        l4 = packed[4];
+        l5 = packed[5];
+        l6 = packed[6];
+        hashCode = calcHashCode();
+    }
+
+    /**
+     * @param trytes Tryte sequence to represent. Its length must be a multiple of 3 and must not exceed {@link #MAX_TRYTE_LENGTH}.
+     * @return Key representing {@code trytes}.
+     * @throws IllegalArgumentException if {@code trytes} contains non-tryte characters or has an unsupported length.
+     */
+    public static HashKey fromTrytes(String trytes) {
+        int length = trytes.length();
+        if (length % 3 != 0 || length > MAX_TRYTE_LENGTH)
+            throw new IllegalArgumentException("cannot create key from " + length + " trytes");
+        long[] packed = new long[7];
+        for (int i = 0; i < length / 3; i++) {
+            int i0 = tryteIndex(trytes.charAt(3 * i));
+            int i1 = tryteIndex(trytes.charAt(3 * i + 1));
+            int i2 = tryteIndex(trytes.charAt(3 * i + 2));
+            putBytePair(packed, 2 * i, i0, i1, i2);
+        }
+        packed[6] |= (long) length << LENGTH_SHIFT;
+        return new HashKey(packed);
+    }
+
+    /**
+     * Creates a key directly from compressed bytes (see {@link Trytes#fromBytes(byte[], int, int)}) without decoding them
+     * into a {@link String}. The result is equal to {@code fromTrytes(Trytes.fromBytes(bytes, offset, byteLength))}.
+     *
+     * @param bytes      Bytes containing the compressed tryte sequence.
+     * @param offset     Index of the first byte of the sequence.
+     * @param byteLength Amount of bytes to read, must be even.
+     * @return Key representing the tryte sequence encoded in the given bytes.
+     */
+    public static HashKey fromBytes(byte[] bytes, int offset, int byteLength) {
+        assertValidByteLength(byteLength);
+        long[] packed = new long[7];
+        for (int i = 0; i < packed.length; i++)
+            packed[i] = packedWord(bytes, offset, byteLength, i);
+        return new HashKey(packed);
+    }
+
+    /**
+     * Compares this key with compressed bytes without creating a key from them.
+     *
+     * @return {@code true} if and only if {@code fromBytes(bytes, offset, byteLength).equals(this)}.
+     */
+    public boolean equalsBytes(byte[] bytes, int offset, int byteLength) {
+        assertValidByteLength(byteLength);
+        for (int i = 0; i < 7; i++)
+            if (word(i) != packedWord(bytes, offset, byteLength, i))
+                return false;
+        return true;
+    }
+
+    /**
+     * @return The hash code of {@code fromBytes(bytes, offset, byteLength)} without creating that key.
+     */
+    public static int hashCodeOfBytes(byte[] bytes, int offset, int byteLength) {
+        assertValidByteLength(byteLength);
+        long hash = 0;
+        for (int i = 0; i < 7; i++)
+            hash = 31 * hash + packedWord(bytes, offset, byteLength, i);
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private static void assertValidByteLength(int byteLength) {
+        if (byteLength % 2 != 0 || byteLength > MAX_BYTE_LENGTH)
+            throw new IllegalArgumentException("cannot create key from " + byteLength + " bytes");
+    }
+
+    /**
+     * @return The {@code wordIndex}-th of the seven {@code long}s representing the compressed tryte sequence.
+     */
+    private static long packedWord(byte[] bytes, int offset, int byteLength, int wordIndex) {
+        long word = 0;
+        for (int i = 8 * wordIndex; i < Math.min(byteLength, 8 * wordIndex + 8); i++)
+            word |= (long) normalizedByte(bytes, offset, i) << (8 * (i % 8));
+        if (wordIndex == 6)
+            word |= (long) (byteLength / 2 * 3) << LENGTH_SHIFT;
+        return word;
+    }
+
+    private static int normalizedByte(byte[] bytes, int offset, int byteIndex) {
+        int b0 = bytes[offset + byteIndex - byteIndex % 2] & 0xFF;
+        int b1 = bytes[offset + byteIndex - byteIndex % 2 + 1] & 0xFF;
+        // decode with the same rules as Trytes.fromBytes() so that non-canonical encodings result in the same key
+        int i2 = (b0 % 8 + 8 * (b1 % 8)) % 27;
+        return byteIndex % 2 == 0 ? (b0 / 8) % 27 * 8 + i2 % 8 : (b1 / 8) % 27 * 8 + i2 / 8;
+    }
+
+    private static int tryteIndex(char tryte) {
+        int index = tryte == '9' ? 0 : tryte - 'A' + 1;
+        if (index < 0 || index > 26)
+            throw new IllegalArgumentException("'" + tryte + "' is not a tryte");
+        return index;
+    }
+
+    private static void putBytePair(long[] packed, int byteIndex, int i0, int i1, int i2) {
+        putByte(packed, byteIndex, i0 * 8 + i2 % 8);
+        putByte(packed, byteIndex + 1, i1 * 8 + i2 / 8);
+    }
+
+    private static void putByte(long[] packed, int byteIndex, int value) {
+        packed[byteIndex / 8] |= (long) value << (8 * (byteIndex % 8));
+    }
+
+    private long word(int index) {
+        switch (index) {
+            case 0: return l0;
+            case 1: return l1;
+            case 2: return l2;
+            case 3: return l3;
+            case 4: return l4;
+            case 5: return l5;
+            default: return l6;
+        }
+    }
+
+    private int calcHashCode() {
+        // must stay in sync with hashCodeOfBytes()
+        long hash = l0;
+        hash = 31 * hash + l1;
+        hash = 31 * hash + l2;
+        hash = 31 * hash + l3;
+        hash = 31 * hash + l4;
+        hash = 31 * hash + l5;
+        hash = 31 * hash + l6;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * @return Amount of trytes in the represented sequence.
+     */
+    public int tryteLength() {
+        return (int) (l6 >>> LENGTH_SHIFT);
+    }
+
+    /**
+     * Writes the compressed bytes of the represented tryte sequence into {@code target}.
+     *
+     * @param target Array to write into.
+     * @param offset Index at which to write the first byte. {@code tryteLength() / 3 * 2} bytes will be written.
+     */
+    public void writeBytes(byte[] target, int offset) {
+        int byteLength = tryteLength() / 3 * 2;
+        for (int i = 0; i < byteLength; i++)
+            target[offset + i] = (byte) (word(i / 8) >>> (8 * (i % 8)));
+    }
+
+    /**
+     * Puts the compressed bytes of the represented tryte sequence into {@code target} at its current position.
+     */
+    public void writeBytes(ByteBuffer target) {
+        int byteLength = tryteLength() / 3 * 2;
+        for (int i = 0; i < byteLength; i++)
+            target.put((byte) (word(i / 8) >>> (8 * (i % 8))));
+    }
+
+    public byte[] toBytes() {
+        byte[] bytes = new byte[tryteLength() / 3 * 2];
+        writeBytes(bytes, 0);
+        return bytes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof HashKey))
+            return false;
+        HashKey key = (HashKey) o;
+        return hashCode == key.hashCode && l0 == key.l0 && l1 == key.l1 && l2 == key.l2 && l3 == key.l3
+                && l4 == key.l4 && l5 == key.l5 && l6 == key.l6;
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public int compareTo(HashKey key) {
+        for (int i = 0; i < 7; i++) {
+            int cmp = Long.compare(word(i), key.word(i));
+            if (cmp != 0)
+                return cmp;
+        }
+        return 0;
+    }
+
+    /**
+     * @return The represented tryte sequence.
+     */
+    @Override
+    public String toString() {
+        byte[] bytes = toBytes();
+        return Trytes.fromBytes(bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,81 @@
+package org.iota.ict.utils;
+
+/**
+ * Rate limiter which allows up to {@code permitsPerSecond} actions per second. Permits which are not used are saved up
+ * for at most one second, which allows short bursts.
+ */
+public class TokenBucket {
+
+    public static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+    };
+
+    private final Clock clock;
+    private long permitsPerSecond;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * @param permitsPerSecond Maximum rate, {@code 0} for unlimited.
+     */
+    public TokenBucket(long permitsPerSecond) {
+        this(permitsPerSecond, SYSTEM_CLOCK);
+    }
+
+    /**
+     * @param permitsPerSecond Maximum rate, {@code 0} for unlimited.
+     * @param clock            Source of the time by which the permits are refilled.
+     */
+    public TokenBucket(long permitsPerSecond, Clock clock) {
+        this.clock = clock;
+        this.lastRefillNanos = clock.nanoTime();
+        setRate(permitsPerSecond);
+    }
+
+    /**
+     * @param permitsPerSecond Maximum rate, {@code 0} for unlimited.
+     */
+    public synchronized void setRate(long permitsPerSecond) {
+        if (permitsPerSecond < 0)
+            throw new IllegalArgumentException("rate must not be negative");
+        this.permitsPerSecond = permitsPerSecond;
+        tokens = Math.min(tokens, permitsPerSecond);
+    }
+
+    /**
+     * @return {@code true} if a permit was available and has been consumed.
+     */
+    public synchronized boolean tryAcquire() {
+        if (permitsPerSecond == 0)
+            return true;
+        refill();
+        if (tokens < 1)
+            return false;
+        tokens--;
+        return true;
+    }
+
+    /**
+     * @return Nanoseconds until the next permit is available, {@code 0} if one is available already.
+     */
+    public synchronized long nanosUntilNextPermit() {
+        if (permitsPerSecond == 0)
+            return 0;
+        refill();
+        return tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) * 1E9 / permitsPerSecond);
+    }
+
+    private void refill() {
+        long now = clock.nanoTime();
+        tokens = Math.min(permitsPerSecond, tokens + (now - lastRefillNanos) * permitsPerSecond / 1E9);
+        lastRefillNanos = now;
+    }
+
+    public interface Clock {
+
+        long nanoTime();
+    }
+}
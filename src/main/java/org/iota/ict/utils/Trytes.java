@@ -10,14 +10,19 @@ import java.util.Arrays;
  * <p>
  * When compressed to bytes, 3 trytes (= 9 trits) are stored in 2 bytes. The first byte encodes the first 5 trits, the
  * second byte the other 4 trits.
+ * <p>
+ * All conversions are based on precomputed lookup tables. Numbers which fit into a {@code long} are converted without
+ * {@link BigInteger}. Methods accepting a target array write into it instead of allocating a new one.
  */
 public final class Trytes {
 
     public static final String NULL_HASH = "999999999999999999999999999999999999999999999999999999999999999999999999999999999";
     public static final String TRYTES = "9ABCDEFGHIJKLMNOPQRSTUVWXYZ";
     public static final char[] TRYTE_CHARS = TRYTES.toCharArray();
-    private static final BigInteger BI3 = BigInteger.valueOf(3), BI27 = BigInteger.valueOf(27);
+    private static final BigInteger BI27 = BigInteger.valueOf(27);
     static final int MAX_TRYTE_TRIPLET_ABS = 9841; // 9841 = (3^9-1)/2
+    private static final int MAX_TRYTES_PER_LONG = 13; // 27^13 < 2^63
+    private static final BigInteger BI27_POW_MAX_TRYTES_PER_LONG = BI27.pow(MAX_TRYTES_PER_LONG);
 
     public static final byte[][] TRITS_BY_TRYTE = {
             {0, 0, 0}, {1, 0, 0}, {-1, 1, 0}, //9AB
@@ -31,119 +36,210 @@ public final class Trytes {
             {0, -1, 0}, {1, -1, 0}, {-1, 0, 0} //XYZ
     };
 
-    public static BigInteger toNumber(String trytes) {
-        BigInteger number = BigInteger.ZERO;
-        for (int i = trytes.length() - 1; i >= 0; i--) {
-            char c = trytes.charAt(i);
-            int tryteIndex = c == '9' ? 0 : c - 'A' + 1;
-            byte[] trits = TRITS_BY_TRYTE[tryteIndex];
-            number = number.multiply(BI27).add(BigInteger.valueOf(trits[2] * 9 + trits[1] * 3 + trits[0]));
+    /**
+     * Index in {@link #TRYTES} by character, {@code -1} for non-tryte characters.
+     */
+    private static final byte[] TRYTE_INDEX_BY_CHAR = new byte[128];
+    /**
+     * Balanced value (-13 to 13) of each tryte by its index in {@link #TRYTES}.
+     */
+    private static final int[] VALUE_BY_TRYTE_INDEX = new int[TRYTES.length()];
+
+    static {
+        Arrays.fill(TRYTE_INDEX_BY_CHAR, (byte) -1);
+        for (int i = 0; i < TRYTE_CHARS.length; i++) {
+            TRYTE_INDEX_BY_CHAR[TRYTE_CHARS[i]] = (byte) i;
+            VALUE_BY_TRYTE_INDEX[i] = TRITS_BY_TRYTE[i][0] + 3 * TRITS_BY_TRYTE[i][1] + 9 * TRITS_BY_TRYTE[i][2];
         }
+    }
+
+    private static int tryteIndex(char tryte) {
+        int index = tryte < TRYTE_INDEX_BY_CHAR.length ? TRYTE_INDEX_BY_CHAR[tryte] : -1;
+        if (index < 0)
+            throw new IllegalArgumentException("'" + tryte + "' is not a tryte");
+        return index;
+    }
+
+    private static int tryteValue(char tryte) {
+        return VALUE_BY_TRYTE_INDEX[tryteIndex(tryte)];
+    }
+
+    private static char tryteOfValue(int value) {
+        return TRYTE_CHARS[value < 0 ? value + 27 : value];
+    }
+
+    public static BigInteger toNumber(String trytes) {
+        if (trytes.length() <= MAX_TRYTES_PER_LONG)
+            return BigInteger.valueOf(toLong(trytes));
+        // combine chunks which fit into a long, starting with the most significant one
+        int chunkEnd = trytes.length();
+        int chunkStart = chunkEnd - ((chunkEnd - 1) % MAX_TRYTES_PER_LONG + 1);
+        BigInteger number = BigInteger.valueOf(toLong(trytes, chunkStart, chunkEnd));
+        for (chunkEnd = chunkStart; chunkEnd > 0; chunkEnd -= MAX_TRYTES_PER_LONG)
+            number = number.multiply(BI27_POW_MAX_TRYTES_PER_LONG).add(BigInteger.valueOf(toLong(trytes, chunkEnd - MAX_TRYTES_PER_LONG, chunkEnd)));
         return number;
     }
 
     public static long toLong(String trytes) {
+        return toLong(trytes, 0, trytes.length());
+    }
+
+    /**
+     * @return {@code true} if all trytes beyond the first 13 are zero, in which case {@link #toLong(String)} cannot overflow.
+     *         Might be {@code false} for a few numbers which would still fit into a {@code long}.
+     */
+    public static boolean fitsIntoLong(String trytes) {
+        for (int i = MAX_TRYTES_PER_LONG; i < trytes.length(); i++)
+            if (trytes.charAt(i) != '9')
+                return false;
+        return true;
+    }
+
+    private static long toLong(String trytes, int start, int end) {
         long number = 0;
-        for (int i = trytes.length() - 1; i >= 0; i--) {
-            char c = trytes.charAt(i);
-            int tryteIndex = c == '9' ? 0 : c - 'A' + 1;
-            byte[] trits = TRITS_BY_TRYTE[tryteIndex];
-            number = number * 27 + trits[2] * 9 + trits[1] * 3 + trits[0];
-        }
+        for (int i = end - 1; i >= start; i--)
+            number = number * 27 + tryteValue(trytes.charAt(i));
         return number;
     }
 
     public static byte[] toTrits(String trytes) {
         byte[] trits = new byte[trytes.length() * 3];
-        for (int i = 0; i < trytes.length(); i++) {
-            byte[] tritTriplet = toTrits(trytes.charAt(i));
-            trits[3 * i + 0] = tritTriplet[0];
-            trits[3 * i + 1] = tritTriplet[1];
-            trits[3 * i + 2] = tritTriplet[2];
-            //System.arraycopy(tritTriplet, 0, trits, 3 * i, 3);
-        }
+        toTrits(trytes, trits, 0);
         return trits;
     }
 
-    public static int sumTrytes(String trytes) {
-        int sum = 0;
-        for (char c : trytes.toCharArray()) {
-            byte[] tritTriplet = toTrits(c);
-            sum += tritTriplet[0] + 3 * tritTriplet[1] + 9 * tritTriplet[2];
+    /**
+     * Writes the trits of {@code trytes} into {@code target}.
+     *
+     * @param offset Index in {@code target} at which to write the first trit. {@code 3 * trytes.length()} trits will be written.
+     */
+    public static void toTrits(String trytes, byte[] target, int offset) {
+        toTrits(trytes, 0, trytes.length(), target, offset);
+    }
+
+    /**
+     * Writes the trits of a section of {@code trytes} into {@code target}.
+     *
+     * @param tryteOffset Index of the first tryte to convert.
+     * @param tryteLength Amount of trytes to convert.
+     * @param offset      Index in {@code target} at which to write the first trit.
+     */
+    public static void toTrits(String trytes, int tryteOffset, int tryteLength, byte[] target, int offset) {
+        for (int i = 0; i < tryteLength; i++)
+            putTrits(tryteIndex(trytes.charAt(tryteOffset + i)), target, offset + 3 * i);
+    }
+
+    /**
+     * Writes the trits of compressed bytes (see {@link #toBytes(String)}) into {@code target} without decoding them into
+     * a {@link String}. Equivalent to {@code toTrits(fromBytes(bytes, bytesOffset, bytesLength), target, offset)}.
+     *
+     * @param offset Index in {@code target} at which to write the first trit. {@code bytesLength / 2 * 9} trits will be written.
+     */
+    public static void bytesToTrits(byte[] bytes, int bytesOffset, int bytesLength, byte[] target, int offset) {
+        assert bytesLength % 2 == 0;
+        for (int i = 0; i < bytesLength / 2; i++) {
+            int b0 = bytes[bytesOffset + 2 * i] & 0xFF;
+            int b1 = bytes[bytesOffset + 2 * i + 1] & 0xFF;
+            putTrits((b0 >> 3) % 27, target, offset + 9 * i);
+            putTrits((b1 >> 3) % 27, target, offset + 9 * i + 3);
+            putTrits(((b0 & 7) + ((b1 & 7) << 3)) % 27, target, offset + 9 * i + 6);
         }
-        return sum;
     }
 
-    private static byte[] toTrits(char tryte) {
-        return TRITS_BY_TRYTE[TRYTES.indexOf(tryte)];
+    private static void putTrits(int tryteIndex, byte[] target, int offset) {
+        byte[] tritTriplet = TRITS_BY_TRYTE[tryteIndex];
+        target[offset] = tritTriplet[0];
+        target[offset + 1] = tritTriplet[1];
+        target[offset + 2] = tritTriplet[2];
+    }
+
+    public static int sumTrytes(String trytes) {
+        int sum = 0;
+        for (int i = 0; i < trytes.length(); i++)
+            sum += tryteValue(trytes.charAt(i));
+        return sum;
     }
 
     public static String fromTrits(byte[] trits) {
-        assert trits.length % 3 == 0;
-        byte[] trytes = new byte[trits.length / 3];
-        for (int i = 0; i < trytes.length; i++)
-            trytes[i] = tryteFromTrits(Arrays.copyOfRange(trits, i * 3, i * 3 + 3), 0);
-        return new String(trytes);
+        return fromTrits(trits, 0, trits.length);
     }
 
-    private static byte tryteFromTrits(byte[] trits, int offset) {
-        int index = trits[offset + 0] + 3 * trits[offset + 1] + 9 * trits[offset + 2];
-        return (byte) TRYTES.charAt((index + 27) % 27);
+    /**
+     * @param offset Index of the first trit to convert.
+     * @param length Amount of trits to convert, must be a multiple of 3.
+     */
+    public static String fromTrits(byte[] trits, int offset, int length) {
+        assert length % 3 == 0;
+        char[] trytes = new char[length / 3];
+        for (int i = 0; i < trytes.length; i++) {
+            int tritPos = offset + 3 * i;
+            trytes[i] = tryteOfValue(trits[tritPos] + 3 * trits[tritPos + 1] + 9 * trits[tritPos + 2]);
+        }
+        return new String(trytes);
     }
 
     public static String fromAscii(String ascii) {
-        assert toNumber(fromNumber(BigInteger.valueOf(9245), 3)).longValue() == 9245;
-
         if (ascii.length() % 2 != 0)
             ascii += (char) 0;
         char[] trytes = new char[ascii.length() / 2 * 3];
         for (int i = 0; i + 1 < ascii.length(); i += 2) {
             int intVal = ascii.charAt(i) * 127 + ascii.charAt(i + 1) - MAX_TRYTE_TRIPLET_ABS;
-            String tryteTriplet = fromNumber(BigInteger.valueOf(intVal), 3);
-            trytes[i / 2 * 3 + 0] = tryteTriplet.charAt(0);
-            trytes[i / 2 * 3 + 1] = tryteTriplet.charAt(1);
-            trytes[i / 2 * 3 + 2] = tryteTriplet.charAt(2);
+            putLong(intVal, trytes, i / 2 * 3, 3);
         }
         return new String(trytes);
     }
 
     public static String toAscii(String trytes) {
         // unpad 9 triplets
-        trytes = unpadRight(trytes);
-        trytes = padRight(trytes, trytes.length() + 2 - (trytes.length() + 2) % 3);
-        assert trytes.length() % 3 == 0;
+        int length = unpaddedLength(trytes);
+        length += 2 - (length + 2) % 3;
 
         // convert tryte triplets to ascii tuples
-        char[] ascii = new char[trytes.length() / 3 * 2];
-        for (int i = 0; i < trytes.length() / 3; i++) {
-            String tryteTriplet = trytes.substring(3 * i, 3 * i + 3);
-            int intVal = (int) toLong(tryteTriplet) + MAX_TRYTE_TRIPLET_ABS;
+        char[] ascii = new char[length / 3 * 2];
+        for (int i = 0; i < length / 3; i++) {
+            int intVal = tripletValue(trytes, 3 * i) + MAX_TRYTE_TRIPLET_ABS;
             ascii[2 * i + 0] = (char) (intVal / 127);
             ascii[2 * i + 1] = (char) (intVal % 127);
         }
-        String evenSizedAscii = new String(ascii);
-        return evenSizedAscii.length() > 0 && evenSizedAscii.charAt(evenSizedAscii.length() - 1) == 0
-                ? evenSizedAscii.substring(0, evenSizedAscii.length() - 1)
-                : evenSizedAscii;
+        int asciiLength = ascii.length > 0 && ascii[ascii.length - 1] == 0 ? ascii.length - 1 : ascii.length;
+        return new String(ascii, 0, asciiLength);
+    }
+
+    /**
+     * @return Numeric value of the three trytes at {@code offset}. Positions beyond the end of {@code trytes} count as '9'.
+     */
+    private static int tripletValue(String trytes, int offset) {
+        int value = 0;
+        for (int i = Math.min(trytes.length(), offset + 3) - 1; i >= offset; i--)
+            value += tryteValue(trytes.charAt(i)) * (i == offset ? 1 : i == offset + 1 ? 27 : 729);
+        return value;
     }
 
     public static String padRight(String trytes, int length) {
         char[] padded = new char[length];
-        System.arraycopy(trytes.toCharArray(), 0, padded, 0, trytes.length());
+        trytes.getChars(0, trytes.length(), padded, 0);
         for (int i = trytes.length(); i < length; i++)
             padded[i] = '9';
         return new String(padded);
     }
 
     public static boolean isTrytes(String string) {
-        return string.matches("^[A-Z9]*$");
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c >= TRYTE_INDEX_BY_CHAR.length || TRYTE_INDEX_BY_CHAR[c] < 0)
+                return false;
+        }
+        return true;
     }
 
-
     static String unpadRight(String padded) {
+        return padded.substring(0, unpaddedLength(padded));
+    }
+
+    private static int unpaddedLength(String padded) {
         int cutPos;
         for (cutPos = padded.length(); cutPos > 0 && padded.charAt(cutPos - 1) == '9'; cutPos--) ;
-        return padded.substring(0, cutPos);
+        return cutPos;
     }
 
     public static String randomSequenceOfLength(int length) {
@@ -156,18 +252,23 @@ public final class Trytes {
     public static byte[] toBytes(String trytes) {
         assert trytes.length() % 3 == 0;
         byte[] bytes = new byte[trytes.length() / 3 * 2];
-        byte[] tryteArray = trytes.getBytes();
+        toBytes(trytes, bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Writes the compressed bytes of {@code trytes} into {@code target}.
+     *
+     * @param offset Index in {@code target} at which to write the first byte. {@code trytes.length() / 3 * 2} bytes will be written.
+     */
+    public static void toBytes(String trytes, byte[] target, int offset) {
         for (int i = 0; i < trytes.length() / 3; i++) {
-            byte t0 = tryteArray[3 * i];
-            byte t1 = tryteArray[3 * i + 1];
-            byte t2 = tryteArray[3 * i + 2];
-            int i0 = t0 == '9' ? 0 : t0 - 'A' + 1;
-            int i1 = t1 == '9' ? 0 : t1 - 'A' + 1;
-            int i2 = t2 == '9' ? 0 : t2 - 'A' + 1;
-            bytes[2 * i] = (byte) (i0 * 8 + i2 % 8);
-            bytes[2 * i + 1] = (byte) (i1 * 8 + i2 / 8);
+            int i0 = tryteIndex(trytes.charAt(3 * i));
+            int i1 = tryteIndex(trytes.charAt(3 * i + 1));
+            int i2 = tryteIndex(trytes.charAt(3 * i + 2));
+            target[offset + 2 * i] = (byte) (i0 * 8 + i2 % 8);
+            target[offset + 2 * i + 1] = (byte) (i1 * 8 + i2 / 8);
         }
-        return bytes;
     }
 
     public static String fromBytes(byte[] bytes, int bytesOffset, int bytesLength) {
@@ -175,35 +276,62 @@ public final class Trytes {
         char[] trytes = new char[bytesLength / 2 * 3];
         for (int i = 0; i < trytes.length / 3; i++) {
             int bytesPos = bytesOffset + 2 * i;
-            int b0 = bytes[bytesPos] < 0 ? bytes[bytesPos] + 256 : bytes[bytesPos];
-            int b1 = bytes[bytesPos + 1] < 0 ? bytes[bytesPos + 1] + 256 : bytes[bytesPos + 1];
-            trytes[3 * i] = TRYTE_CHARS[(b0 / 8)%TRYTE_CHARS.length];
-            trytes[3 * i + 1] = TRYTE_CHARS[(b1 / 8)%TRYTE_CHARS.length];
-            trytes[3 * i + 2] = TRYTE_CHARS[(b0 % 8 + 8 * (b1 % 8))%TRYTE_CHARS.length];
+            int b0 = bytes[bytesPos] & 0xFF;
+            int b1 = bytes[bytesPos + 1] & 0xFF;
+            trytes[3 * i] = TRYTE_CHARS[(b0 >> 3) % 27];
+            trytes[3 * i + 1] = TRYTE_CHARS[(b1 >> 3) % 27];
+            trytes[3 * i + 2] = TRYTE_CHARS[((b0 & 7) + ((b1 & 7) << 3)) % 27];
         }
         return new String(trytes);
     }
 
     public static String fromNumber(BigInteger value, int tryteLength) {
+        if (value.bitLength() < 64)
+            return fromLong(value.longValue(), tryteLength);
         assert value.abs().longValue() <= (Math.pow(3, tryteLength * 3) - 1) / 2;
-        final byte[] trits = new byte[tryteLength * 3];
 
+        char[] trytes = new char[tryteLength];
         BigInteger number = value.abs();
-
-        for (int i = 0; i < tryteLength * 3; i++) {
-            BigInteger[] divisionResult = number.divideAndRemainder(BI3);
-            BigInteger quotient = divisionResult[0];
-            BigInteger remainder = divisionResult[1];
-            if (remainder.compareTo(BigInteger.ONE) > 0) {
-                trits[i] = (byte) (value.signum() >= 0 ? -1 : 1);
-                number = quotient.add(BigInteger.ONE);
-            } else {
-                trits[i] = (byte) ((value.signum() >= 0 ? 1 : -1) * remainder.byteValue());
-                number = quotient;
+        for (int i = 0; i < tryteLength; i++) {
+            BigInteger[] divisionResult = number.divideAndRemainder(BI27);
+            int tryteValue = divisionResult[1].intValue();
+            number = divisionResult[0];
+            if (tryteValue > 13) {
+                tryteValue -= 27;
+                number = number.add(BigInteger.ONE);
             }
+            trytes[i] = tryteOfValue(value.signum() >= 0 ? tryteValue : -tryteValue);
         }
+        return new String(trytes);
+    }
+
+    public static String fromLong(long value, int tryteLength) {
+        char[] trytes = new char[tryteLength];
+        putLong(value, trytes, 0, tryteLength);
+        return new String(trytes);
+    }
 
-        return fromTrits(trits);
+    /**
+     * Writes the tryte representation of {@code value} into {@code target}. Trytes which exceed {@code tryteLength} are cut off.
+     *
+     * @param offset      Index in {@code target} at which to write the least significant tryte.
+     * @param tryteLength Amount of trytes to write.
+     */
+    public static void putLong(long value, char[] target, int offset, int tryteLength) {
+        for (int i = 0; i < tryteLength; i++) {
+            // value = 27 * quotient + remainder with remainder in [-13, 13], calculated without overflowing
+            long quotient = value / 27;
+            int remainder = (int) (value % 27);
+            if (remainder > 13) {
+                remainder -= 27;
+                quotient++;
+            } else if (remainder < -13) {
+                remainder += 27;
+                quotient--;
+            }
+            target[offset + i] = tryteOfValue(remainder);
+            value = quotient;
+        }
     }
 
     private static char randomTryte() {
@@ -1,5 +1,8 @@
 package org.iota.ict.utils.crypto;
 
+import java.io.File;
+import java.io.IOException;
+
 public class AutoIndexedMerkleTree extends MerkleTree {
 
     protected int index;
@@ -14,6 +17,14 @@ public class AutoIndexedMerkleTree extends MerkleTree {
         this.index = startIndex;
     }
 
+    /**
+     * @see MerkleTree#MerkleTree(String, int, int, File) for the role of {@code file}.
+     */
+    public AutoIndexedMerkleTree(String seed, int securityLevel, int depth, int startIndex, File file) throws IOException {
+        super(seed, securityLevel, depth, file);
+        this.index = startIndex;
+    }
+
     @Override
     public Signature sign(int index, String toSign) {
         throw new RuntimeException("Please use the other sign() function without the 'index' parameter.");
@@ -0,0 +1,165 @@
+package org.iota.ict.utils.crypto;
+
+import org.iota.ict.utils.Trytes;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Bit-sliced {@link Curl} which hashes up to {@link #MAX_BATCH_SIZE} messages of equal length at once. Each trit of the
+ * state is stored in two {@code long}s, one bit per message (lane), so a single transformation advances all lanes. The
+ * encoding is the one of bct-curl: {@code -1} as {@code (low=1, high=0)}, {@code 0} as {@code (1, 1)} and {@code 1} as
+ * {@code (0, 1)}. Lanes are loaded one chunk ({@link Curl#HASH_LENGTH} trits) at a time, then {@link #transform()}
+ * absorbs that chunk in all lanes. Instances are not thread-safe.
+ * <p>
+ * A transformation costs about as much as a few scalar ones, so batches should contain several messages to pay off.
+ */
+public final class BatchCurl {
+
+    public static final int MAX_BATCH_SIZE = 64;
+    private static final int STATE_LENGTH = Curl.STATE_LENGTH;
+    private static final int HASH_LENGTH = Curl.HASH_LENGTH;
+    private static final int[] INDICES = Curl.INDICES;
+
+    private final int rounds;
+    private final long[] low = new long[STATE_LENGTH], high = new long[STATE_LENGTH];
+    private final long[] lowScratchpad = new long[STATE_LENGTH], highScratchpad = new long[STATE_LENGTH];
+    private final byte[] chunk = new byte[HASH_LENGTH];
+    private boolean squeezed;
+
+    public BatchCurl(int rounds) {
+        if (rounds <= 0)
+            throw new IllegalArgumentException("rounds must be positive");
+        this.rounds = rounds;
+        reset();
+    }
+
+    /**
+     * Sets all trits of all lanes to zero.
+     */
+    public void reset() {
+        Arrays.fill(low, -1L);
+        Arrays.fill(high, -1L);
+        squeezed = false;
+    }
+
+    /**
+     * Loads the next chunk of a lane. Becomes effective with the next {@link #transform()}.
+     *
+     * @param offset Index of the first of the {@link Curl#HASH_LENGTH} trits to load.
+     */
+    public void load(int lane, byte[] trits, int offset) {
+        long bit = 1L << lane, mask = ~bit;
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            byte trit = trits[offset + i];
+            low[i] = trit == 1 ? low[i] & mask : low[i] | bit;
+            high[i] = trit == -1 ? high[i] & mask : high[i] | bit;
+        }
+        squeezed = false;
+    }
+
+    /**
+     * Loads the next chunk of a lane from compressed bytes.
+     *
+     * @param offset Index of the first of the {@link Curl#HASH_BYTE_LENGTH} bytes to load.
+     */
+    public void loadBytes(int lane, byte[] bytes, int offset) {
+        Trytes.bytesToTrits(bytes, offset, Curl.HASH_BYTE_LENGTH, chunk, 0);
+        load(lane, chunk, 0);
+    }
+
+    /**
+     * Loads the next chunk of a lane from a tryte sequence.
+     *
+     * @param offset Index of the first of the {@link Curl#HASH_TRYTE_LENGTH} trytes to load.
+     */
+    public void loadTrytes(int lane, String trytes, int offset) {
+        Trytes.toTrits(trytes, offset, Curl.HASH_TRYTE_LENGTH, chunk, 0);
+        load(lane, chunk, 0);
+    }
+
+    /**
+     * Loads a chunk of zero trits into all lanes.
+     */
+    public void loadZeros() {
+        Arrays.fill(low, 0, HASH_LENGTH, -1L);
+        Arrays.fill(high, 0, HASH_LENGTH, -1L);
+        squeezed = false;
+    }
+
+    /**
+     * Absorbs the loaded chunks.
+     */
+    public void transform() {
+        long[] low = this.low, high = this.high, lowScratchpad = this.lowScratchpad, highScratchpad = this.highScratchpad;
+        for (int round = 0; round < rounds; round++) {
+            System.arraycopy(low, 0, lowScratchpad, 0, STATE_LENGTH);
+            System.arraycopy(high, 0, highScratchpad, 0, STATE_LENGTH);
+            for (int i = 0; i < STATE_LENGTH; i++) {
+                int a = INDICES[i], b = INDICES[i + 1];
+                long alpha = lowScratchpad[a];
+                long beta = highScratchpad[a];
+                long gamma = highScratchpad[b];
+                long delta = (alpha | ~gamma) & (lowScratchpad[b] ^ beta);
+                low[i] = ~delta;
+                high[i] = (alpha ^ gamma) | delta;
+            }
+        }
+    }
+
+    /**
+     * Writes the hash of a lane into {@code target}. Must be called for all lanes of interest before {@link #nextSqueeze()}.
+     */
+    public void squeeze(int lane, byte[] target, int offset) {
+        for (int i = 0; i < HASH_LENGTH; i++) {
+            long lowBit = (low[i] >>> lane) & 1, highBit = (high[i] >>> lane) & 1;
+            target[offset + i] = (byte) (lowBit == highBit ? 0 : highBit == 1 ? 1 : -1);
+        }
+        squeezed = true;
+    }
+
+    /**
+     * Advances all lanes to the next {@link Curl#HASH_LENGTH} trits of their hashes.
+     */
+    public void nextSqueeze() {
+        if (squeezed)
+            transform();
+        squeezed = false;
+    }
+
+    /**
+     * Hashes each tryte sequence separately, equivalent to calling {@link Curl#hash(String, int)} for each of them.
+     *
+     * @param messages Up to {@link #MAX_BATCH_SIZE} tryte sequences of equal length.
+     * @return Hashes in the order of {@code messages}.
+     */
+    public static String[] hash(List<String> messages, int rounds) {
+        if (messages.size() > MAX_BATCH_SIZE)
+            throw new IllegalArgumentException("cannot hash more than " + MAX_BATCH_SIZE + " messages at once");
+        String[] hashes = new String[messages.size()];
+        if (messages.isEmpty())
+            return hashes;
+        int tryteLength = messages.get(0).length();
+        for (String message : messages)
+            if (message.length() != tryteLength)
+                throw new IllegalArgumentException("all messages must have the same length");
+        if (!Curl.isAligned(tryteLength) || messages.size() == 1) {
+            for (int i = 0; i < hashes.length; i++)
+                hashes[i] = Curl.hash(messages.get(i), rounds);
+            return hashes;
+        }
+
+        BatchCurl curl = new BatchCurl(rounds);
+        for (int offset = 0; offset < tryteLength; offset += Curl.HASH_TRYTE_LENGTH) {
+            for (int lane = 0; lane < hashes.length; lane++)
+                curl.loadTrytes(lane, messages.get(lane), offset);
+            curl.transform();
+        }
+        byte[] hash = new byte[HASH_LENGTH];
+        for (int lane = 0; lane < hashes.length; lane++) {
+            curl.squeeze(lane, hash, 0);
+            hashes[lane] = Trytes.fromTrits(hash);
+        }
+        return hashes;
+    }
+}
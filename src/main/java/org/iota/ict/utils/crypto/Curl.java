@@ -0,0 +1,197 @@
+package org.iota.ict.utils.crypto;
+
+import com.iota.curl.IotaCurlHash;
+import org.iota.ict.utils.Trytes;
+
+import java.util.Arrays;
+
+/**
+ * Curl-P sponge operating directly on trit arrays or on compressed transaction bytes (see {@link Trytes#toBytes(String)}).
+ * Unlike {@link IotaCurlHash}, input does not have to be converted into a tryte {@link String} first and can be absorbed
+ * piece by piece, e.g. while a bundle is being fetched. The state is transformed whenever a chunk of {@link #HASH_LENGTH}
+ * trits is complete. An incomplete last chunk is transformed on the first squeeze, which results in the same hash as
+ * {@link IotaCurlHash} for input of any length. Instances are not thread-safe but can be reused after {@link #reset()}.
+ *
+ * @see BatchCurl to hash up to 64 messages at once.
+ */
+public final class Curl {
+
+    public static final int HASH_LENGTH = 243;
+    public static final int HASH_TRYTE_LENGTH = HASH_LENGTH / 3;
+    public static final int HASH_BYTE_LENGTH = HASH_LENGTH / 9 * 2;
+    static final int STATE_LENGTH = 3 * HASH_LENGTH;
+
+    private static final byte[] TRUTH_TABLE = {1, 0, -1, 2, 1, -1, 0, 2, -1, 1, 0};
+    /**
+     * Index of the state trit read in each step of a round. Step {@code i} combines trits {@code INDICES[i]} and {@code INDICES[i+1]}.
+     */
+    static final int[] INDICES = new int[STATE_LENGTH + 1];
+
+    static {
+        for (int i = 0; i < STATE_LENGTH; i++)
+            INDICES[i + 1] = INDICES[i] < 365 ? INDICES[i] + 364 : INDICES[i] - 365;
+    }
+
+    private final int rounds;
+    private final byte[] state = new byte[STATE_LENGTH];
+    private final byte[] scratchpad = new byte[STATE_LENGTH];
+    /**
+     * Amount of trits of the current chunk which have already been absorbed into the state but not transformed yet.
+     */
+    private int chunkPosition;
+    /**
+     * Buffer for input which does not start at a tryte or byte pair boundary of the chunk.
+     */
+    private final byte[] unalignedTrits = new byte[9];
+    /**
+     * Whether the state has already been squeezed. The transformation before the next squeeze is deferred until then,
+     * so hashes of a single chunk do not pay for an unused transformation.
+     */
+    private boolean squeezed;
+
+    public Curl(int rounds) {
+        if (rounds <= 0)
+            throw new IllegalArgumentException("rounds must be positive");
+        this.rounds = rounds;
+    }
+
+    public void reset() {
+        Arrays.fill(state, (byte) 0);
+        chunkPosition = 0;
+        squeezed = false;
+    }
+
+    /**
+     * Absorbs trits. The input does not have to end at a chunk boundary, see {@link Curl}.
+     */
+    public void absorb(byte[] trits, int offset, int length) {
+        squeezed = false;
+        while (length > 0) {
+            int amount = Math.min(length, HASH_LENGTH - chunkPosition);
+            System.arraycopy(trits, offset, state, chunkPosition, amount);
+            offset += amount;
+            length -= amount;
+            advance(amount);
+        }
+    }
+
+    /**
+     * Absorbs compressed bytes without decoding them into trytes first.
+     *
+     * @param byteLength Amount of bytes to absorb, must be even.
+     */
+    public void absorbBytes(byte[] bytes, int offset, int byteLength) {
+        if (byteLength % 2 != 0)
+            throw new IllegalArgumentException("byte length must be even");
+        squeezed = false;
+        for (int i = 0; i < byteLength; i += 2) {
+            if (chunkPosition % 9 == 0) {
+                // 9 trits of a byte pair always fit into the chunk
+                Trytes.bytesToTrits(bytes, offset + i, 2, state, chunkPosition);
+                advance(9);
+            } else {
+                Trytes.bytesToTrits(bytes, offset + i, 2, unalignedTrits, 0);
+                absorb(unalignedTrits, 0, 9);
+            }
+        }
+    }
+
+    /**
+     * Absorbs a section of a tryte sequence.
+     */
+    public void absorbTrytes(String trytes, int offset, int tryteLength) {
+        squeezed = false;
+        while (tryteLength > 0 && chunkPosition % 3 != 0) {
+            // only after absorbing single trits
+            Trytes.toTrits(trytes, offset++, 1, unalignedTrits, 0);
+            absorb(unalignedTrits, 0, 3);
+            tryteLength--;
+        }
+        while (tryteLength > 0) {
+            int amount = Math.min(tryteLength, (HASH_LENGTH - chunkPosition) / 3);
+            Trytes.toTrits(trytes, offset, amount, state, chunkPosition);
+            offset += amount;
+            tryteLength -= amount;
+            advance(3 * amount);
+        }
+    }
+
+    public void absorbTrytes(String trytes) {
+        absorbTrytes(trytes, 0, trytes.length());
+    }
+
+    /**
+     * Absorbs {@code length} zero trits, e.g. the null hash padding of transactions.
+     */
+    public void absorbZeros(int length) {
+        squeezed = false;
+        while (length > 0) {
+            int amount = Math.min(length, HASH_LENGTH - chunkPosition);
+            Arrays.fill(state, chunkPosition, chunkPosition + amount, (byte) 0);
+            length -= amount;
+            advance(amount);
+        }
+    }
+
+    private void advance(int absorbedTrits) {
+        chunkPosition += absorbedTrits;
+        if (chunkPosition == HASH_LENGTH) {
+            transform();
+            chunkPosition = 0;
+        }
+    }
+
+    /**
+     * Writes the next {@link #HASH_LENGTH} trits of the hash into {@code target}.
+     */
+    public void squeeze(byte[] target, int offset) {
+        if (chunkPosition > 0) {
+            // incomplete last chunk, absorbed as is like in IotaCurlHash
+            transform();
+            chunkPosition = 0;
+        } else if (squeezed) {
+            transform();
+        }
+        System.arraycopy(state, 0, target, offset, HASH_LENGTH);
+        squeezed = true;
+    }
+
+    /**
+     * @return The next {@link #HASH_TRYTE_LENGTH} trytes of the hash.
+     */
+    public String squeeze() {
+        byte[] hash = new byte[HASH_LENGTH];
+        squeeze(hash, 0);
+        return Trytes.fromTrits(hash);
+    }
+
+    private void transform() {
+        byte[] state = this.state, scratchpad = this.scratchpad;
+        for (int round = 0; round < rounds; round++) {
+            System.arraycopy(state, 0, scratchpad, 0, STATE_LENGTH);
+            int previous = scratchpad[0];
+            for (int i = 0; i < STATE_LENGTH; i++) {
+                int next = scratchpad[INDICES[i + 1]];
+                state[i] = TRUTH_TABLE[previous + (next << 2) + 5];
+                previous = next;
+            }
+        }
+    }
+
+    static boolean isAligned(int tryteLength) {
+        return tryteLength > 0 && tryteLength % HASH_TRYTE_LENGTH == 0;
+    }
+
+    /**
+     * Drop-in replacement for {@link IotaCurlHash#iotaCurlHash(String, int, int)} with {@code length = trytes.length()}.
+     *
+     * @return Hash of {@code trytes} as 81 trytes.
+     */
+    public static String hash(String trytes, int rounds) {
+        Curl curl = new Curl(rounds);
+        curl.absorbTrytes(trytes);
+        if (trytes.isEmpty())
+            curl.absorbZeros(HASH_LENGTH); // IotaCurlHash transforms once even without input
+        return curl.squeeze();
+    }
+}
@@ -1,13 +1,85 @@
 package org.iota.ict.utils.crypto;
 
+import org.iota.ict.utils.Trytes;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Merkle tree of {@link SignatureSchemeImplementation} key pairs, which allows to sign with {@code 2^depth} keys under a
+ * single address (the root hash). Only the hashes of the nodes (including the leaves' addresses) are kept in memory, in
+ * their compressed byte form. The key pair of a leaf is derived again from the seed when it is used in {@link #sign(int, String)}.
+ * <p>
+ * Building the tree requires the derivation of all leaves and is done in parallel on the common {@link ForkJoinPool}. To
+ * avoid doing this on every start, the node hashes can be stored in a file (see {@link #MerkleTree(String, int, int, File)}).
+ * <p>
+ * The children of each node are ordered by their hashes. The index of a leaf (as used in {@link #sign(int, String)} and
+ * returned by {@link Signature#deriveIndex()}) reflects this order and not the index with which the leaf was derived from the seed.
+ */
 public class MerkleTree {
 
+    private static final int HASH_BYTE_LENGTH = Curl.HASH_BYTE_LENGTH;
+    private static final int MAX_DEPTH = 24;
+    private static final int FILE_MAGIC = 0x4d45524b;
+    /**
+     * Subtrees with at most this many leaves are built in a single task.
+     */
+    private static final int LEAVES_PER_TASK = 4;
+
+    private final String seed;
     private final int securityLevel;
-    MerkleInnerNode root;
+    private final int depth;
+    /**
+     * Node hashes by level, {@code levels[0]} are the leaves, {@code levels[depth]} is the root. The nodes of each level are
+     * ordered by the seed index of their first leaf. The children of node {@code i} are the nodes {@code 2i} and {@code 2i+1}
+     * of the level below.
+     */
+    private final byte[][] levels;
 
     public MerkleTree(String seed, int securityLevel, int depth) {
+        this.seed = seed;
         this.securityLevel = securityLevel;
-        this.root = new MerkleInnerNode(seed, 0, securityLevel, depth);
+        this.depth = depth;
+        this.levels = allocateLevels(depth);
+        ForkJoinPool.commonPool().invoke(new BuildTask(depth, 0, true));
+    }
+
+    /**
+     * Restores the node hashes from {@code file} if it was created with the same parameters. Otherwise builds the tree and
+     * stores its hashes in {@code file}.
+     *
+     * @throws IOException if the tree had to be built and could not be stored.
+     */
+    public MerkleTree(String seed, int securityLevel, int depth, File file) throws IOException {
+        this.seed = seed;
+        this.securityLevel = securityLevel;
+        this.depth = depth;
+        this.levels = allocateLevels(depth);
+        if (!restore(file)) {
+            ForkJoinPool.commonPool().invoke(new BuildTask(depth, 0, true));
+            store(file);
+        }
+    }
+
+    private static byte[][] allocateLevels(int depth) {
+        if (depth < 1 || depth > MAX_DEPTH)
+            throw new IllegalArgumentException("depth must be in interval [1," + MAX_DEPTH + "]");
+        byte[][] levels = new byte[depth + 1][];
+        for (int level = 0; level <= depth; level++)
+            levels[level] = new byte[(1 << (depth - level)) * HASH_BYTE_LENGTH];
+        return levels;
     }
 
     public int getSecurityLevel() {
@@ -15,105 +87,133 @@ public class MerkleTree {
     }
 
     public int getDepth() {
-        return root.getDepth();
+        return depth;
     }
 
     public String getAddress() {
-        return root.getHash();
+        return getHash(depth, 0);
     }
 
     public Signature sign(int index, String toSign) {
-        if(index < 0 || index >= Math.pow(2, root.depth))
-            throw new IllegalArgumentException("index: " + index + " not in interval [0,"+(int)(Math.pow(2, root.depth)-1)+"]");
-        String[] merklePath = new String[root.depth];
-        root.writeMerklePath(merklePath, index);
-        MerkleLeave leave = root.getLeave(index);
-        SignatureScheme.Signature leaveSignature = leave.privateKey.sign(toSign);
+        if(index < 0 || index >= 1 << depth)
+            throw new IllegalArgumentException("index: " + index + " not in interval [0,"+((1 << depth)-1)+"]");
+        String[] merklePath = new String[depth];
+        int node = 0;
+        for (int level = depth; level > 0; level--) {
+            int childWidth = 1 << (level - 1);
+            String hashA = getHash(level - 1, 2 * node), hashB = getHash(level - 1, 2 * node + 1);
+            boolean aIsLeft = hashA.compareTo(hashB) < 0;
+            // set bit selects the left child (lower hash), the sibling becomes part of the merkle path
+            boolean selectLeft = index >= childWidth;
+            boolean selectA = selectLeft == aIsLeft;
+            merklePath[level - 1] = selectA ? hashB : hashA;
+            node = selectA ? 2 * node : 2 * node + 1;
+            index %= childWidth;
+        }
+        SignatureScheme.PrivateKey privateKey = SignatureSchemeImplementation.derivePrivateKeyFromSeed(seed, node, securityLevel);
+        SignatureScheme.Signature leaveSignature = privateKey.sign(toSign);
         return new Signature(leaveSignature.toString(), merklePath, toSign);
     }
 
-    private static String hashNodes(String nodeA, String nodeB) {
-        int comp = nodeA.compareTo(nodeB);
-        return SignatureSchemeImplementation.hash((comp < 0 ? nodeA : nodeB) + (comp < 0 ? nodeB : nodeA));
+    private String getHash(int level, int node) {
+        return Trytes.fromBytes(levels[level], node * HASH_BYTE_LENGTH, HASH_BYTE_LENGTH);
     }
 
-    private interface MerkleNode {
-        String getHash();
-        int getDepth();
-        MerkleLeave getLeave(int index);
-        void writeMerklePath(String[] path, int index);
+    private void setHash(int level, int node, String hash) {
+        Trytes.toBytes(hash, levels[level], node * HASH_BYTE_LENGTH);
     }
 
-    private static class MerkleInnerNode implements MerkleNode {
-
-        private final int depth;
-        private final String hash;
-
-        private final MerkleNode childLeft;
-        private final MerkleNode childRight;
-
-        MerkleInnerNode(String seed, int indexOffset, int securityLevel, int depth) {
-            this.depth = depth;
-            int childWidth = (int)Math.pow(2, depth-1);
-            MerkleNode childA = depth > 1 ? new MerkleInnerNode(seed, indexOffset, securityLevel, depth-1) : new MerkleLeave(seed, indexOffset, securityLevel);
-            MerkleNode childB = depth > 1 ? new MerkleInnerNode(seed, indexOffset+childWidth, securityLevel, depth-1) : new MerkleLeave(seed, indexOffset+childWidth, securityLevel);
-            assert childA.getDepth()+1 == depth;
-            int comp = childA.getHash().compareTo(childB.getHash());
-            childLeft = comp < 0 ? childA : childB;
-            childRight = comp < 0 ? childB : childA;
-            hash = SignatureSchemeImplementation.hash(childLeft.getHash() + childRight.getHash());
+    /**
+     * @param deriveLeaves Whether to derive the leaves from the seed or to only combine the leaves set already.
+     */
+    private void buildSubtree(int level, int node, boolean deriveLeaves) {
+        if (level == 0) {
+            if (deriveLeaves)
+                setHash(0, node, SignatureSchemeImplementation.deriveAddressFromSeed(seed, node, securityLevel));
+        } else {
+            buildSubtree(level - 1, 2 * node, deriveLeaves);
+            buildSubtree(level - 1, 2 * node + 1, deriveLeaves);
+            combineChildren(level, node);
         }
+    }
 
-        @Override
-        public int getDepth() {
-            return depth;
-        }
+    private void combineChildren(int level, int node) {
+        setHash(level, node, hashNodes(getHash(level - 1, 2 * node), getHash(level - 1, 2 * node + 1)));
+    }
 
-        @Override
-        public String getHash() {
-            return hash;
+    /**
+     * Writes the node hashes into {@code file}. The seed is not stored. The hashes are written into a temporary file first
+     * which then replaces {@code file}, so an interrupted write never leaves a truncated file behind.
+     */
+    public void store(File file) throws IOException {
+        File temporary = new File(file.getPath() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(temporary);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+            out.writeInt(FILE_MAGIC);
+            out.writeInt(securityLevel);
+            out.writeInt(depth);
+            for (byte[] level : levels)
+                out.write(level);
+            out.flush();
+            fileOut.getFD().sync();
         }
-
-        @Override
-        public MerkleLeave getLeave(int index) {
-            int childWidth = (int)Math.pow(2, depth-1);
-            return (index >= childWidth ? childLeft : childRight).getLeave(index%childWidth);
+        try {
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
         }
+    }
 
-        @Override
-        public  void writeMerklePath(String[] path, int index) {
-            int childWidth = (int)Math.pow(2, depth-1);
-            path[depth-1] = (index >= childWidth ? childRight : childLeft).getHash();
-            (index >= childWidth ? childLeft : childRight).writeMerklePath(path, index%childWidth);
+    /**
+     * @return Whether the hashes could be restored. {@code false} if the file does not exist, is corrupted or belongs to a
+     *         different tree. Since the seed is not stored, the first leaf is derived again and compared. The inner nodes
+     *         are recomputed from the leaves, which is cheap compared to deriving the leaves, and the resulting root must
+     *         equal the stored one.
+     */
+    private boolean restore(File file) {
+        if (!file.exists())
+            return false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != FILE_MAGIC || in.readInt() != securityLevel || in.readInt() != depth)
+                return false;
+            for (byte[] level : levels)
+                in.readFully(level);
+            if (in.read() != -1)
+                return false;
+        } catch (IOException e) {
+            return false;
         }
+        if (!getHash(0, 0).equals(SignatureSchemeImplementation.deriveAddressFromSeed(seed, 0, securityLevel)))
+            return false;
+        byte[] storedRoot = levels[depth].clone();
+        ForkJoinPool.commonPool().invoke(new BuildTask(depth, 0, false));
+        return Arrays.equals(storedRoot, levels[depth]);
     }
 
-    private static class MerkleLeave implements MerkleNode {
-
-        private final SignatureScheme.PrivateKey privateKey;
-        private final SignatureScheme.PublicKey publicKey;
-
-        MerkleLeave(String seed, int index, int securityLevel) {
-            this.privateKey = SignatureSchemeImplementation.derivePrivateKeyFromSeed(seed, index, securityLevel);
-            this.publicKey = privateKey.derivePublicKey();
-        }
+    private static String hashNodes(String nodeA, String nodeB) {
+        int comp = nodeA.compareTo(nodeB);
+        return SignatureSchemeImplementation.hash((comp < 0 ? nodeA : nodeB) + (comp < 0 ? nodeB : nodeA));
+    }
 
-        public int getDepth() {
-            return 0;
-        }
+    private class BuildTask extends RecursiveAction {
 
-        public String getHash() {
-            return publicKey.getAddress();
-        }
+        private final int level, node;
+        private final boolean deriveLeaves;
 
-        @Override
-        public MerkleLeave getLeave(int index) {
-            return this;
+        private BuildTask(int level, int node, boolean deriveLeaves) {
+            this.level = level;
+            this.node = node;
+            this.deriveLeaves = deriveLeaves;
         }
 
         @Override
-        public void writeMerklePath(String[] path, int index) {
-
+        protected void compute() {
+            if (1 << level <= LEAVES_PER_TASK) {
+                buildSubtree(level, node, deriveLeaves);
+            } else {
+                invokeAll(new BuildTask(level - 1, 2 * node, deriveLeaves), new BuildTask(level - 1, 2 * node + 1, deriveLeaves));
+                combineChildren(level, node);
+            }
         }
     }
 
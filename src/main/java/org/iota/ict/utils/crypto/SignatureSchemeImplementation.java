@@ -1,15 +1,20 @@
 package org.iota.ict.utils.crypto;
 
-import com.iota.curl.IotaCurlHash;
 import org.iota.ict.model.transaction.Transaction;
 import org.iota.ict.utils.Trytes;
 
 import java.math.BigInteger;
+import java.util.Arrays;
 
 public final class SignatureSchemeImplementation extends SignatureScheme {
 
     public static final int HASH_LENGTH = 81;
     private static final int KEY_FRAGMENT_LENGTH = HASH_LENGTH;
+    private static final int CURL_ROUNDS = 18;
+    /**
+     * Below this amount of chains still to be advanced, {@link #hashChains(byte[], int[])} continues without {@link BatchCurl}.
+     */
+    private static final int MIN_CHAINS_FOR_BATCH = 3;
 
     private SignatureSchemeImplementation() { }
 
@@ -41,11 +46,59 @@ public final class SignatureSchemeImplementation extends SignatureScheme {
     }
 
     public static String hash(String data) {
-        String hash = IotaCurlHash.iotaCurlHash(data, data.length(), 18);
+        String hash = Curl.hash(data, CURL_ROUNDS);
         assert hash.length() == HASH_LENGTH;
         return hash;
     }
 
+    /**
+     * Advances Winternitz hash chains in place. Each chain is a chunk of {@link Curl#HASH_LENGTH} trits in {@code trits}
+     * and is replaced by its {@code rounds[i]}-fold {@link #hash(String)}. Up to {@link BatchCurl#MAX_BATCH_SIZE} chains
+     * are advanced together in one {@link BatchCurl}.
+     */
+    static void hashChains(byte[] trits, int[] rounds) {
+        for (int first = 0; first < rounds.length; first += BatchCurl.MAX_BATCH_SIZE)
+            hashChains(trits, rounds, first, Math.min(rounds.length, first + BatchCurl.MAX_BATCH_SIZE));
+    }
+
+    private static void hashChains(byte[] trits, int[] rounds, int first, int end) {
+        int maxRounds = 0;
+        for (int chain = first; chain < end; chain++)
+            maxRounds = Math.max(maxRounds, rounds[chain]);
+
+        BatchCurl batchCurl = new BatchCurl(CURL_ROUNDS);
+        for (int round = 0; round < maxRounds; round++) {
+            int activeChains = 0;
+            for (int chain = first; chain < end; chain++)
+                if (rounds[chain] > round)
+                    activeChains++;
+            if (activeChains < MIN_CHAINS_FOR_BATCH) {
+                finishChains(trits, rounds, first, end, round);
+                return;
+            }
+
+            batchCurl.reset();
+            for (int chain = first; chain < end; chain++)
+                if (rounds[chain] > round)
+                    batchCurl.load(chain - first, trits, chain * Curl.HASH_LENGTH);
+            batchCurl.transform();
+            for (int chain = first; chain < end; chain++)
+                if (rounds[chain] > round)
+                    batchCurl.squeeze(chain - first, trits, chain * Curl.HASH_LENGTH);
+        }
+    }
+
+    private static void finishChains(byte[] trits, int[] rounds, int first, int end, int completedRounds) {
+        Curl curl = new Curl(CURL_ROUNDS);
+        for (int chain = first; chain < end; chain++) {
+            for (int round = completedRounds; round < rounds[chain]; round++) {
+                curl.reset();
+                curl.absorb(trits, chain * Curl.HASH_LENGTH, Curl.HASH_LENGTH);
+                curl.squeeze(trits, chain * Curl.HASH_LENGTH);
+            }
+        }
+    }
+
     public static class PrivateKey implements SignatureScheme.PrivateKey {
 
         private final String trytes;
@@ -77,14 +130,11 @@ public final class SignatureSchemeImplementation extends SignatureScheme {
 
         public PublicKey derivePublicKey() {
             if(publicKey == null) {
-                StringBuilder publicKeyFragments = new StringBuilder();
-                for(int privateKeyFragmentIndex = 0; privateKeyFragmentIndex < trytes.length() / 81; privateKeyFragmentIndex++) {
-                    int privateKeyFragmentOffset = privateKeyFragmentIndex * KEY_FRAGMENT_LENGTH;
-                    String privateKeyFragment = trytes.substring(privateKeyFragmentOffset, privateKeyFragmentOffset + KEY_FRAGMENT_LENGTH);
-                    String publicKeyFragment = SignatureSchemeImplementation.hash(privateKeyFragment, 28);
-                    publicKeyFragments.append(publicKeyFragment);
-                }
-                this.publicKey = new PublicKey(publicKeyFragments.toString());
+                byte[] trits = Trytes.toTrits(trytes);
+                int[] rounds = new int[fragments()];
+                Arrays.fill(rounds, 28);
+                hashChains(trits, rounds);
+                this.publicKey = new PublicKey(trits);
             }
             return publicKey;
         }
@@ -93,17 +143,16 @@ public final class SignatureSchemeImplementation extends SignatureScheme {
             if(length() / KEY_FRAGMENT_LENGTH != toSign.length())
                 throw new IllegalArgumentException("private key can only be used to sign exactly " + fragments() + " trytes but " + toSign.length() + " trytes were provided.");
             int privateKeyFragments = length() / KEY_FRAGMENT_LENGTH;
-            StringBuilder signature = new StringBuilder();
+            byte[] signature = new byte[toSign.length() * Curl.HASH_LENGTH];
+            int[] rounds = new int[toSign.length()];
             for(int i = 0; i < toSign.length(); i++) {
                 char tryte = toSign.charAt(i);
-                int rounds = 1+Trytes.TRYTES.indexOf(tryte);
+                rounds[i] = 1+Trytes.TRYTES.indexOf(tryte);
                 int privateKeyFragmentIndex = i%privateKeyFragments;
-                String privateKeyFragment = getFragment(privateKeyFragmentIndex);
-                String signatureFragmentFragment = hash(privateKeyFragment, rounds);
-                signature.append(signatureFragmentFragment);
+                Trytes.toTrits(trytes, privateKeyFragmentIndex * KEY_FRAGMENT_LENGTH, KEY_FRAGMENT_LENGTH, signature, i * Curl.HASH_LENGTH);
             }
-            assert signature.length() == toSign.length()*KEY_FRAGMENT_LENGTH;
-            return new Signature(signature.toString(), toSign);
+            hashChains(signature, rounds);
+            return new Signature(Trytes.fromTrits(signature), toSign);
         }
 
         @Override
@@ -121,6 +170,15 @@ public final class SignatureSchemeImplementation extends SignatureScheme {
             this.address = hash(trytes);
         }
 
+        private PublicKey(byte[] trits) {
+            this.trytes = Trytes.fromTrits(trits);
+            Curl curl = new Curl(CURL_ROUNDS);
+            curl.absorb(trits, 0, trits.length);
+            byte[] address = new byte[Curl.HASH_LENGTH];
+            curl.squeeze(address, 0);
+            this.address = Trytes.fromTrits(address);
+        }
+
         public String getAddress() {
             return address;
         }
@@ -165,22 +223,19 @@ public final class SignatureSchemeImplementation extends SignatureScheme {
         @Override
         public PublicKey derivePublicKey() {
             if(publicKey == null) {
-                StringBuilder publicKeyFragments = new StringBuilder();
+                // all fragment fragments are advanced together on trits, see hashChains()
+                byte[] trits = Trytes.toTrits(trytes);
+                int[] rounds = new int[signed.length()];
                 for(int i = 0; i < signed.length(); i++) {
                     char tryte = signed.charAt(i);
-                    int rounds = Trytes.TRYTES.length() - Trytes.TRYTES.indexOf(tryte);
-                    String publicKeyFragment = hash(getFragmentFragment(i), rounds);
-                    publicKeyFragments.append(publicKeyFragment);
+                    rounds[i] = Trytes.TRYTES.length() - Trytes.TRYTES.indexOf(tryte);
                 }
-                publicKey = new PublicKey(publicKeyFragments.toString());
+                hashChains(trits, rounds);
+                publicKey = new PublicKey(trits);
             }
             return publicKey;
         }
 
-        private String getFragmentFragment(int index) {
-            return  trytes.substring(index * KEY_FRAGMENT_LENGTH, (index+1)*KEY_FRAGMENT_LENGTH);
-        }
-
         public String deriveAddress() {
             return derivePublicKey().address;
         }
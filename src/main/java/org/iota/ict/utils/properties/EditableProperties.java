@@ -43,6 +43,21 @@ public class EditableProperties extends Properties {
         return this;
     }
 
+    public EditableProperties maxNeighbors(int maxNeighbors) {
+        this.maxNeighbors = maxNeighbors;
+        return this;
+    }
+
+    public EditableProperties neighborSendRate(long neighborSendRate) {
+        this.neighborSendRate = neighborSendRate;
+        return this;
+    }
+
+    public EditableProperties nonceCacheSize(int nonceCacheSize) {
+        this.nonceCacheSize = nonceCacheSize;
+        return this;
+    }
+
     public EditableProperties antiSpamAbs(long antiSpamAbs) {
         this.antiSpamAbs = antiSpamAbs;
         return this;
@@ -68,6 +83,16 @@ public class EditableProperties extends Properties {
         return this;
     }
 
+    public EditableProperties tangleStore(String tangleStore) {
+        this.tangleStore = tangleStore;
+        return this;
+    }
+
+    public EditableProperties tangleLogDir(String tangleLogDir) {
+        this.tangleLogDir = tangleLogDir;
+        return this;
+    }
+
     public EditableProperties guiPassword(String guiPassword) {
         this.guiPassword = guiPassword;
         return this;
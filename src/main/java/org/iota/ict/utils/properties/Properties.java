@@ -27,6 +27,8 @@ public class Properties implements Cloneable {
     protected long antiSpamAbs = 1000;
     protected boolean guiEnabled = true;
     protected long tangleCapacity = 10000;
+    protected String tangleStore = ""; // empty to keep transactions on heap, 'direct' for direct memory or path of file to map into memory
+    protected String tangleLogDir = ""; // empty to disable persistence
     protected double maxHeapSize = 1.01; // above 1 to disable, causes trouble because of slow garbage collector
     protected long minForwardDelay = 0;
     protected long maxForwardDelay = 200;
@@ -37,6 +39,9 @@ public class Properties implements Cloneable {
     protected int port = 1337;
     protected int guiPort = 2187;
     protected long roundDuration = 60000;
+    protected int maxNeighbors = 3;
+    protected long neighborSendRate = 0; // transactions per second and neighbor, 0 for unlimited
+    protected int nonceCacheSize = 65536;
     protected Set<String> neighbors = new HashSet<>();
 
     public static Properties fromFile(String path) {
@@ -74,6 +79,8 @@ public class Properties implements Cloneable {
     Properties(java.util.Properties propObject) {
         maxHeapSize = readDoublePorperty(propObject, Property.max_heap_size, 0.01, 1.01, DEFAULT_PROPERTIES.maxHeapSize);
         tangleCapacity = readLongProperty(propObject, Property.tangle_capacity, 10, Long.MAX_VALUE, DEFAULT_PROPERTIES.tangleCapacity);
+        tangleStore = propObject.getProperty(Property.tangle_store.name(), DEFAULT_PROPERTIES.tangleStore);
+        tangleLogDir = propObject.getProperty(Property.tangle_log_dir.name(), DEFAULT_PROPERTIES.tangleLogDir);
         antiSpamAbs = readLongProperty(propObject, Property.anti_spam_abs, 1, Long.MAX_VALUE, DEFAULT_PROPERTIES.antiSpamAbs);
         minForwardDelay = readLongProperty(propObject, Property.min_forward_delay, 0, 10000, DEFAULT_PROPERTIES.minForwardDelay);
         maxForwardDelay = readLongProperty(propObject, Property.max_forward_delay, 0, 10000, DEFAULT_PROPERTIES.maxForwardDelay);
@@ -82,6 +89,9 @@ public class Properties implements Cloneable {
         port = (int) readLongProperty(propObject, Property.port, 1, 65535, DEFAULT_PROPERTIES.port);
         roundDuration = readLongProperty(propObject, Property.round_duration, 100, Long.MAX_VALUE, DEFAULT_PROPERTIES.roundDuration);
         neighbors = new HashSet<>(stringListFromString(propObject.getProperty(Property.neighbors.name(), "")));
+        maxNeighbors = (int) readLongProperty(propObject, Property.max_neighbors, 1, 1000, DEFAULT_PROPERTIES.maxNeighbors);
+        neighborSendRate = readLongProperty(propObject, Property.neighbor_send_rate, 0, Long.MAX_VALUE, DEFAULT_PROPERTIES.neighborSendRate);
+        nonceCacheSize = (int) readLongProperty(propObject, Property.nonce_cache_size, 1024, 1 << 26, DEFAULT_PROPERTIES.nonceCacheSize);
         guiEnabled = propObject.getProperty(Property.gui_enabled.name(), DEFAULT_PROPERTIES.guiEnabled + "").toLowerCase().equals("true");
         guiPort = (int) readLongProperty(propObject, Property.gui_port, 1, 65535, DEFAULT_PROPERTIES.guiPort);
         guiPassword = propObject.getProperty(Property.gui_password.name(), DEFAULT_PROPERTIES.guiPassword);
@@ -205,6 +215,8 @@ public class Properties implements Cloneable {
         java.util.Properties propObject = new java.util.Properties();
         propObject.setProperty(Property.max_heap_size.name(), maxHeapSize + "");
         propObject.setProperty(Property.tangle_capacity.name(), tangleCapacity + "");
+        propObject.setProperty(Property.tangle_store.name(), tangleStore);
+        propObject.setProperty(Property.tangle_log_dir.name(), tangleLogDir);
         propObject.setProperty(Property.anti_spam_abs.name(), antiSpamAbs + "");
         propObject.setProperty(Property.min_forward_delay.name(), minForwardDelay + "");
         propObject.setProperty(Property.max_forward_delay.name(), maxForwardDelay + "");
@@ -213,6 +225,9 @@ public class Properties implements Cloneable {
         propObject.setProperty(Property.port.name(), port + "");
         propObject.setProperty(Property.round_duration.name(), roundDuration + "");
         propObject.setProperty(Property.neighbors.name(), neighborsToString());
+        propObject.setProperty(Property.max_neighbors.name(), maxNeighbors + "");
+        propObject.setProperty(Property.neighbor_send_rate.name(), neighborSendRate + "");
+        propObject.setProperty(Property.nonce_cache_size.name(), nonceCacheSize + "");
         propObject.setProperty(Property.gui_enabled.name(), guiEnabled + "");
         propObject.setProperty(Property.gui_port.name(), guiPort + "");
         propObject.setProperty(Property.gui_password.name(), guiPassword + "");
@@ -224,6 +239,8 @@ public class Properties implements Cloneable {
         JSONObject json = new JSONObject();
         json.put(Property.max_heap_size.name(), maxHeapSize);
         json.put(Property.tangle_capacity.name(), tangleCapacity);
+        json.put(Property.tangle_store.name(), tangleStore);
+        json.put(Property.tangle_log_dir.name(), tangleLogDir);
         json.put(Property.anti_spam_abs.name(), antiSpamAbs);
         json.put(Property.min_forward_delay.name(), minForwardDelay);
         json.put(Property.max_forward_delay.name(), maxForwardDelay);
@@ -232,6 +249,9 @@ public class Properties implements Cloneable {
         json.put(Property.port.name(), port);
         json.put(Property.round_duration.name(), roundDuration);
         json.put(Property.neighbors.name(), !neighbors.isEmpty() ? new JSONArray(neighborsToString().split(",")) : new JSONArray());
+        json.put(Property.max_neighbors.name(), maxNeighbors);
+        json.put(Property.neighbor_send_rate.name(), neighborSendRate);
+        json.put(Property.nonce_cache_size.name(), nonceCacheSize);
         json.put(Property.gui_enabled.name(), guiEnabled);
         json.put(Property.gui_port.name(), guiPort);
         json.put(Property.gui_password.name(), guiPassword);
@@ -269,6 +289,18 @@ public class Properties implements Cloneable {
         return new HashSet<>(neighbors);
     }
 
+    public int maxNeighbors() {
+        return maxNeighbors;
+    }
+
+    public long neighborSendRate() {
+        return neighborSendRate;
+    }
+
+    public int nonceCacheSize() {
+        return nonceCacheSize;
+    }
+
     public long antiSpamAbs() {
         return antiSpamAbs;
     }
@@ -289,6 +321,14 @@ public class Properties implements Cloneable {
         return tangleCapacity;
     }
 
+    public String tangleStore() {
+        return tangleStore;
+    }
+
+    public String tangleLogDir() {
+        return tangleLogDir;
+    }
+
     public String guiPassword() {
         return guiPassword;
     }
@@ -308,12 +348,17 @@ public class Properties implements Cloneable {
         name,
         anti_spam_abs,
         tangle_capacity,
+        tangle_store,
+        tangle_log_dir,
         min_forward_delay,
         max_forward_delay,
         port,
         host,
         round_duration,
         neighbors,
+        max_neighbors,
+        neighbor_send_rate,
+        nonce_cache_size,
         gui_enabled,
         gui_port,
         gui_password,
@@ -68,7 +68,7 @@ public abstract class IctTestTemplate {
 
     private boolean anyIctStillCommunicating() {
         for (Ict ict : runningIcts)
-            if(ict.node.getSenderQueueSize() > 0)
+            if(ict.node.getSenderQueueSize() > 0 || ict.node.getReceiverBacklog() > 0)
                 return true;
         return false;
     }
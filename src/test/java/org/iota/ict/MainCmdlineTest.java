@@ -30,9 +30,14 @@ public class MainCmdlineTest {
         DEFAULT_PROPERTIES_MAP.put(Properties.Property.min_forward_delay.name(), hardcoded.minForwardDelay());
         DEFAULT_PROPERTIES_MAP.put(Properties.Property.name.name(), hardcoded.name());
         DEFAULT_PROPERTIES_MAP.put(Properties.Property.neighbors.name(), listAsString(new LinkedList<>(hardcoded.neighbors())));
+        DEFAULT_PROPERTIES_MAP.put(Properties.Property.max_neighbors.name(), hardcoded.maxNeighbors());
+        DEFAULT_PROPERTIES_MAP.put(Properties.Property.neighbor_send_rate.name(), hardcoded.neighborSendRate());
+        DEFAULT_PROPERTIES_MAP.put(Properties.Property.nonce_cache_size.name(), hardcoded.nonceCacheSize());
         DEFAULT_PROPERTIES_MAP.put(Properties.Property.port.name(), hardcoded.port());
         DEFAULT_PROPERTIES_MAP.put(Properties.Property.round_duration.name(), hardcoded.roundDuration());
         DEFAULT_PROPERTIES_MAP.put(Properties.Property.tangle_capacity.name(), hardcoded.tangleCapacity());
+        DEFAULT_PROPERTIES_MAP.put(Properties.Property.tangle_store.name(), hardcoded.tangleStore());
+        DEFAULT_PROPERTIES_MAP.put(Properties.Property.tangle_log_dir.name(), hardcoded.tangleLogDir());
         DEFAULT_PROPERTIES_MAP.put(Properties.Property.gui_port.name(), hardcoded.guiPort());
         DEFAULT_PROPERTIES_MAP.put(Properties.Property.gui_password.name(), hardcoded.guiPassword());
         DEFAULT_PROPERTIES_MAP.put(Properties.Property.max_heap_size.name(), hardcoded.maxHeapSize());
@@ -4,6 +4,12 @@ import org.apache.logging.log4j.LogManager;
 import org.iota.ict.eee.dispatch.ThreadedEffectDispatcher;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
 import static org.junit.Assert.*;
 
 public class EEEFunctionCallerTest {
@@ -40,4 +46,98 @@ public class EEEFunctionCallerTest {
 
         dispatcher.removeListener(function);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testConcurrentAsyncCalls() throws Exception {
+        final ThreadedEffectDispatcher dispatcher = new ThreadedEffectDispatcher(LogManager.getLogger("Test"));
+        FunctionEnvironment environment = new FunctionEnvironment("Math", "square()");
+        final EEEFunction function = new EEEFunction(environment);
+        EEEFunctionCallerImplementation functionCaller = new EEEFunctionCallerImplementation(dispatcher);
+        dispatcher.start();
+        dispatcher.addListener(function);
+
+        List<CompletableFuture<String>> responses = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+            responses.add(functionCaller.callAsync(environment, i + "", 1000));
+
+        // answer in reverse order
+        List<EEEFunction.Request> requests = new ArrayList<>();
+        while (requests.size() < 100)
+            requests.add(function.requestQueue.take());
+        for (int i = requests.size() - 1; i >= 0; i--) {
+            int arg = Integer.parseInt(requests.get(i).argument);
+            requests.get(i).submitReturn(dispatcher, (arg * arg) + "");
+        }
+
+        for (int i = 0; i < 100; i++)
+            assertEquals("" + (i * i), responses.get(i).get());
+        assertEquals(0, functionCaller.pendingCalls());
+
+        dispatcher.removeListener(function);
+        dispatcher.terminate();
+    }
+
+    @Test
+    public void testTimeout() throws InterruptedException {
+        final ThreadedEffectDispatcher dispatcher = new ThreadedEffectDispatcher(LogManager.getLogger("Test"));
+        FunctionEnvironment environment = new FunctionEnvironment("Math", "never()");
+        EEEFunctionCallerImplementation functionCaller = new EEEFunctionCallerImplementation(dispatcher);
+        dispatcher.start();
+
+        assertNull(functionCaller.call(environment, "", 20));
+        try {
+            functionCaller.callAsync(environment, "", 20).get();
+            fail("call did not time out");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        assertEquals(0, functionCaller.pendingCalls());
+        dispatcher.terminate();
+    }
+
+    @Test
+    public void testZeroTimeoutWaitsForReturn() throws Exception {
+        final ThreadedEffectDispatcher dispatcher = new ThreadedEffectDispatcher(LogManager.getLogger("Test"));
+        FunctionEnvironment environment = new FunctionEnvironment("Math", "slow()");
+        final EEEFunction function = new EEEFunction(environment);
+        EEEFunctionCallerImplementation functionCaller = new EEEFunctionCallerImplementation(dispatcher);
+        dispatcher.start();
+        dispatcher.addListener(function);
+
+        CompletableFuture<String> response = functionCaller.callAsync(environment, "", 0);
+        EEEFunction.Request request = function.requestQueue.take();
+        Thread.sleep(50);
+        assertFalse("call without timeout timed out", response.isDone());
+        request.submitReturn(dispatcher, "done");
+        assertEquals("done", response.get());
+
+        dispatcher.removeListener(function);
+        dispatcher.terminate();
+    }
+
+    @Test
+    public void testUnregisterCancelsPendingCalls() {
+        final ThreadedEffectDispatcher dispatcher = new ThreadedEffectDispatcher(LogManager.getLogger("Test"));
+        FunctionEnvironment environment = new FunctionEnvironment("Math", "never()"), other = new FunctionEnvironment("Math", "other()");
+        EEEFunctionCallerImplementation functionCaller = new EEEFunctionCallerImplementation(dispatcher);
+
+        CompletableFuture<String> response = functionCaller.callAsync(environment, "", 0);
+        CompletableFuture<String> otherResponse = functionCaller.callAsync(other, "", 0);
+        functionCaller.unregisterReturnListener(environment);
+        assertTrue(response.isCancelled());
+        assertFalse(otherResponse.isDone());
+
+        functionCaller.close();
+        assertTrue(otherResponse.isCancelled());
+        assertEquals(0, functionCaller.pendingCalls());
+    }
+
+    @Test
+    public void testRequestQueueIsBounded() {
+        EEEFunction function = new EEEFunction(new FunctionEnvironment("Math", "multiply()"), 2);
+        for (int i = 0; i < 5; i++)
+            function.onReceive(i + ";" + i);
+        assertEquals(2, function.requestQueue.size());
+        assertEquals(3, function.droppedRequests());
+    }
+}
@@ -0,0 +1,83 @@
+package org.iota.ict.eee.dispatch;
+
+import org.iota.ict.eee.EffectListener;
+import org.iota.ict.eee.Environment;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class SimpleEffectDispatcherTest {
+
+    private static final Environment ENVIRONMENT = new Environment("test");
+
+    @Test
+    public void testAddAndRemoveListeners() {
+        SimpleEffectDispatcher<Integer> dispatcher = new SimpleEffectDispatcher<>();
+        CountingListener a = new CountingListener(), b = new CountingListener();
+        dispatcher.addListener(a);
+        dispatcher.addListener(a);
+        dispatcher.addListener(b);
+        Assert.assertEquals(2, dispatcher.amountOfListeners());
+
+        dispatcher.submitEffect(ENVIRONMENT, 1);
+        dispatcher.removeListener(a);
+        dispatcher.submitEffect(ENVIRONMENT, 2);
+        dispatcher.submitEffect(new Environment("other"), 3);
+
+        Assert.assertEquals("listener registered twice received effect twice", 1, a.received.get());
+        Assert.assertEquals(2, b.received.get());
+        dispatcher.removeListener(b);
+        Assert.assertEquals(0, dispatcher.amountOfListeners());
+    }
+
+    @Test
+    public void testModifyWhileDispatching() throws InterruptedException {
+        final SimpleEffectDispatcher<Integer> dispatcher = new SimpleEffectDispatcher<>();
+        final CountingListener permanent = new CountingListener();
+        dispatcher.addListener(permanent);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        Thread modifier = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < 10000; i++) {
+                        CountingListener temporary = new CountingListener();
+                        dispatcher.addListener(temporary);
+                        dispatcher.removeListener(temporary);
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            }
+        });
+        modifier.start();
+        int dispatched = 0;
+        while (modifier.isAlive()) {
+            dispatcher.submitEffect(ENVIRONMENT, dispatched);
+            dispatched++;
+        }
+        modifier.join();
+
+        Assert.assertNull(failure.get());
+        Assert.assertEquals(dispatched, permanent.received.get());
+        Assert.assertEquals(1, dispatcher.amountOfListeners());
+    }
+
+    private static class CountingListener implements EffectListener<Integer> {
+
+        private final AtomicInteger received = new AtomicInteger();
+
+        @Override
+        public void onReceive(Integer effect) {
+            received.incrementAndGet();
+        }
+
+        @Override
+        public Environment getEnvironment() {
+            return ENVIRONMENT;
+        }
+    }
+}
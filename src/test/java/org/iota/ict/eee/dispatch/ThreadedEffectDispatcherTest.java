@@ -0,0 +1,159 @@
+package org.iota.ict.eee.dispatch;
+
+import org.apache.logging.log4j.LogManager;
+import org.iota.ict.eee.EffectListener;
+import org.iota.ict.eee.Environment;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class ThreadedEffectDispatcherTest {
+
+    private static final Environment ENVIRONMENT = new Environment("test");
+
+    private ThreadedEffectDispatcher<Integer> dispatcher;
+
+    @After
+    public void tearDown() {
+        if (dispatcher != null && dispatcher.isRunning())
+            dispatcher.terminate();
+    }
+
+    @Test
+    public void testSlowListenerDoesNotDelayOthers() throws InterruptedException {
+        dispatcher = new ThreadedEffectDispatcher<>(LogManager.getLogger("test"), 100, BackPressure.DROP_OLDEST);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingListener slow = new BlockingListener(release);
+        RecordingListener fast = new RecordingListener(10);
+        dispatcher.addListener(slow);
+        dispatcher.addListener(fast);
+        dispatcher.start();
+
+        for (int i = 0; i < 10; i++)
+            dispatcher.submitEffect(ENVIRONMENT, i);
+
+        Assert.assertTrue("fast listener was delayed by slow listener", fast.allReceived.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals("order of effects not preserved", range(0, 10), fast.received);
+        release.countDown();
+    }
+
+    @Test
+    public void testShedDropsNewEffects() throws InterruptedException {
+        assertBackPressure(BackPressure.SHED, range(0, 3));
+    }
+
+    @Test
+    public void testDropOldestKeepsNewEffects() throws InterruptedException {
+        List<Integer> expected = range(0, 1);
+        expected.addAll(range(8, 10));
+        assertBackPressure(BackPressure.DROP_OLDEST, expected);
+    }
+
+    @Test
+    public void testFailingListenerReceivesLaterEffects() throws InterruptedException {
+        dispatcher = new ThreadedEffectDispatcher<>(LogManager.getLogger("test"), 100, BackPressure.DROP_OLDEST);
+        RecordingListener failing = new RecordingListener(6) {
+            @Override
+            public void onReceive(Integer effect) {
+                super.onReceive(effect);
+                if (effect == 0)
+                    throw new RuntimeException("failing on purpose");
+            }
+        };
+        dispatcher.addListener(failing);
+        dispatcher.start();
+
+        for (int i = 0; i < 6; i++)
+            dispatcher.submitEffect(ENVIRONMENT, i);
+
+        Assert.assertTrue("listener did not receive effects after failing", failing.allReceived.await(1, TimeUnit.SECONDS));
+        Assert.assertEquals(range(0, 6), failing.received);
+    }
+
+    private void assertBackPressure(BackPressure backPressure, List<Integer> expectedReceived) throws InterruptedException {
+        dispatcher = new ThreadedEffectDispatcher<>(LogManager.getLogger("test"), 2, backPressure);
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingListener listener = new BlockingListener(release);
+        dispatcher.addListener(listener);
+        dispatcher.start();
+
+        dispatcher.submitEffect(ENVIRONMENT, 0);
+        Assert.assertTrue(listener.blocking.await(1, TimeUnit.SECONDS));
+        for (int i = 1; i < 10; i++)
+            dispatcher.submitEffect(ENVIRONMENT, i);
+        waitUntilDispatched();
+
+        ThreadedEffectDispatcher.ListenerLag lag = dispatcher.listenerLags().get(0);
+        Assert.assertEquals(2, lag.backlog);
+        Assert.assertEquals(7, lag.dropped);
+
+        release.countDown();
+        Thread.sleep(100);
+        Assert.assertEquals(expectedReceived, listener.received);
+    }
+
+    private void waitUntilDispatched() throws InterruptedException {
+        while (!dispatcher.toDispatch.isEmpty())
+            Thread.sleep(1);
+        Thread.sleep(20);
+    }
+
+    private static List<Integer> range(int from, int to) {
+        List<Integer> range = new ArrayList<>();
+        for (int i = from; i < to; i++)
+            range.add(i);
+        return range;
+    }
+
+    private static class RecordingListener implements EffectListener<Integer> {
+
+        final List<Integer> received = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch allReceived;
+
+        RecordingListener(int expected) {
+            allReceived = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void onReceive(Integer effect) {
+            received.add(effect);
+            allReceived.countDown();
+        }
+
+        @Override
+        public Environment getEnvironment() {
+            return ENVIRONMENT;
+        }
+    }
+
+    /**
+     * Blocks on the first effect until released.
+     */
+    private static class BlockingListener extends RecordingListener {
+
+        private final CountDownLatch release;
+        final CountDownLatch blocking = new CountDownLatch(1);
+
+        BlockingListener(CountDownLatch release) {
+            super(0);
+            this.release = release;
+        }
+
+        @Override
+        public void onReceive(Integer effect) {
+            blocking.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.onReceive(effect);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.iota.ict.eee.dispatch;
+
+import org.iota.ict.eee.EffectListener;
+import org.iota.ict.eee.EffectListenerQueue;
+import org.iota.ict.eee.Environment;
+import org.iota.ict.eee.chain.ChainedEffectListenerImplementation;
+import org.iota.ict.eee.chain.ChainedEnvironment;
+import org.iota.ict.eee.chain.DirectHandOff;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class ThreadedEffectDispatcherWithChainSupportTest {
+
+    private static final ChainedEnvironment CHAIN = new ChainedEnvironment("test");
+    private static final Environment FINAL = new Environment("final");
+
+    private final ThreadedEffectDispatcherWithChainSupport dispatcher = new ThreadedEffectDispatcherWithChainSupport();
+
+    @After
+    public void tearDown() {
+        if (dispatcher.isRunning())
+            dispatcher.terminate();
+    }
+
+    @Test
+    public void testRouteThroughChain() throws InterruptedException {
+        dispatcher.addChainedEnvironment(CHAIN, FINAL);
+        Preprocessor third = new Preprocessor(30), first = new Preprocessor(-10);
+        ChainedEffectListenerImplementation<String> second = new ChainedEffectListenerImplementation<>(dispatcher, CHAIN, 20);
+        EffectListenerQueue<String> end = new EffectListenerQueue<>(FINAL);
+        dispatcher.addListener(third);
+        dispatcher.addListener(first);
+        dispatcher.addListener(second);
+        dispatcher.addListener(end);
+        dispatcher.start();
+
+        dispatcher.submitEffect(CHAIN, new ChainedEffectListenerImplementation.Output<>(Long.MIN_VALUE, "effect"));
+        first.passOn(poll(first));
+        second.passOn(poll(second));
+        third.passOn(poll(third));
+        Assert.assertEquals("effect", poll(end));
+
+        dispatcher.removeListener(second);
+        first.passOn("skips removed");
+        Assert.assertEquals("skips removed", poll(third));
+    }
+
+    @Test
+    public void testDirectHandOffBypassesQueue() throws InterruptedException {
+        dispatcher.addChainedEnvironment(CHAIN, FINAL);
+        Preprocessor preprocessor = new Preprocessor(0);
+        dispatcher.addListener(preprocessor);
+        final CountDownLatch blocking = new CountDownLatch(1), release = new CountDownLatch(1);
+        dispatcher.addListener(new EffectListener<String>() {
+            @Override
+            public void onReceive(String effect) {
+                blocking.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public Environment getEnvironment() {
+                return FINAL;
+            }
+        });
+        dispatcher.start();
+
+        // occupies the dispatch thread
+        dispatcher.submitEffect(FINAL, "block");
+        Assert.assertTrue(blocking.await(1, TimeUnit.SECONDS));
+
+        dispatcher.submitEffect(CHAIN, new ChainedEffectListenerImplementation.Output<>(Long.MIN_VALUE, "effect"));
+        Assert.assertEquals("effect", preprocessor.pollEffect());
+        release.countDown();
+    }
+
+    private static String poll(EffectListenerQueue<String> queue) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            String effect = queue.pollEffect();
+            if (effect != null)
+                return effect;
+            Thread.sleep(5);
+        }
+        Assert.fail("no effect received");
+        return null;
+    }
+
+    private class Preprocessor extends ChainedEffectListenerImplementation<String> implements DirectHandOff {
+        private Preprocessor(long chainPosition) {
+            super(dispatcher, CHAIN, chainPosition);
+        }
+    }
+}
@@ -6,12 +6,18 @@ import org.iota.ict.model.transaction.Transaction;
 import org.iota.ict.model.transaction.TransactionBuilder;
 import org.iota.ict.utils.properties.EditableProperties;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import java.io.IOException;
 import java.util.*;
 
 public class RingTangleTest extends IctTestTemplate {
 
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void testSameTimestamp() {
         int ringTangleCapacity = 10;
@@ -57,6 +63,74 @@ public class RingTangleTest extends IctTestTemplate {
         assertTangleContainsExactlyPlusNullTx(ict.getTangle(), tangleContentAfter);
     }
 
+    @Test
+    public void testPruneAfterCapacityDecrease() {
+        EditableProperties properties = new EditableProperties();
+        properties.maxHeapSize(1.0);
+        properties.tangleCapacity(100);
+        // separate tangle so transactions are not added again asynchronously by the gossip listeners
+        RingTangle tangle = new RingTangle(createIct(properties));
+        List<Transaction> transactions = generateTransactionsOrderedByTimestamps(100);
+        for (Transaction transaction : transactions.subList(0, 99))
+            tangle.createTransactionLogIfAbsent(transaction);
+        Assert.assertEquals("Unexpected amount of transactions.", 100, tangle.size());
+
+        tangle.updateProperties(properties.tangleCapacity(10).toFinal());
+        tangle.createTransactionLogIfAbsent(transactions.get(99));
+        Assert.assertEquals("A single insertion pruned too many transactions.", 100 + 1 - RingTangle.MAX_PRUNED_PER_INSERTION, tangle.size());
+
+        tangle.prune();
+        Assert.assertEquals("Unexpected amount of transactions.", 10, tangle.size());
+        Assert.assertNotNull("The most recent transaction was pruned.", tangle.findTransactionLog(transactions.get(99)));
+    }
+
+    @Test
+    public void testOffHeapStore() {
+        int ringTangleCapacity = 10;
+
+        EditableProperties properties = new EditableProperties();
+        properties.maxHeapSize(1.0);
+        properties.tangleCapacity(ringTangleCapacity);
+        properties.tangleStore(TransactionStore.DIRECT);
+        // separate tangle so transactions are not added again asynchronously by the gossip listeners
+        RingTangle tangle = new RingTangle(createIct(properties));
+
+        List<Transaction> transactions = generateTransactionsOrderedByTimestamps(ringTangleCapacity * 2);
+        for (Transaction transaction : transactions)
+            tangle.createTransactionLogIfAbsent(transaction);
+
+        for (Transaction transaction : transactions.subList(0, ringTangleCapacity))
+            Assert.assertFalse("Pruned transaction still refers to store.", transaction.isStoredOffHeap());
+        for (Transaction transaction : transactions.subList(transactions.size() - ringTangleCapacity + 1, transactions.size())) {
+            Assert.assertTrue("Transaction was not moved into store.", transaction.isStoredOffHeap());
+            Assert.assertEquals(transaction, tangle.findTransactionByHash(transaction.hash));
+            Assert.assertEquals(transaction.hash, new Transaction(transaction.toDatagramPacket(transaction.hash).getData()).hash);
+        }
+    }
+
+    @Test
+    public void testRestoreFromLog() throws IOException {
+        // deleted once the Icts have been terminated
+        String logDir = temporaryFolder.newFolder("tangle-log").toString();
+        EditableProperties properties = new EditableProperties();
+        properties.maxHeapSize(1.0);
+        properties.tangleLogDir(logDir);
+        Ict ict = createIct(properties);
+
+        List<Transaction> transactions = generateTransactionsOrderedByTimestamps(10);
+        submit(ict, transactions);
+        ict.terminate();
+        runningIcts.remove(ict);
+
+        Ict restarted = createIct(properties);
+        Assert.assertEquals("Unexpected amount of transactions.", transactions.size() + 1, restarted.getTangle().size());
+        for (Transaction transaction : transactions) {
+            Transaction restored = restarted.getTangle().findTransactionByHash(transaction.hash);
+            Assert.assertNotNull("A transaction was not restored.", restored);
+            Assert.assertEquals(transaction.decodeBytesToTrytes(), restored.decodeBytesToTrytes());
+        }
+    }
+
     private static void submit(Ict ict, Iterable<Transaction> transactions) {
         for (Transaction transaction : transactions)
             ict.submit(transaction);
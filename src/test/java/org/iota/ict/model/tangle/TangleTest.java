@@ -159,6 +159,39 @@ public class TangleTest {
         }
     }
 
+    @Test
+    public void when_missing_transaction_arrives_then_stop_waiting_for_it() {
+        // given
+        Transaction missing = randomTransaction();
+        Transaction referrer = referrerOf(missing.hash);
+        underTest.createTransactionLogIfAbsent(referrer);
+        Assert.assertEquals(1, underTest.amountOfWaitingReferrers(missing.hashKey()));
+
+        // when
+        underTest.createTransactionLogIfAbsent(missing);
+
+        // then
+        Assert.assertEquals(0, underTest.amountOfWaitingLists());
+        Assert.assertEquals(missing, referrer.getTrunk());
+    }
+
+    @Test
+    public void when_missing_transaction_not_requested_again_then_waiting_list_expires() {
+        // given
+        Transaction referrer = referrerOf(Trytes.randomSequenceOfLength(81));
+        underTest.createTransactionLogIfAbsent(referrer);
+        Assert.assertEquals(1, underTest.amountOfWaitingLists());
+
+        // when
+        long now = System.currentTimeMillis();
+        underTest.expireWaitingLists(now);
+        Assert.assertEquals("expired too early", 1, underTest.amountOfWaitingLists());
+        underTest.expireWaitingLists(now + Tangle.WAITING_LIST_EXPIRY_MS);
+
+        // then
+        Assert.assertEquals(0, underTest.amountOfWaitingLists());
+    }
+
     /*
      *************************************
      * Private helper
@@ -183,6 +216,12 @@ public class TangleTest {
         }
     }
 
+    private static Transaction referrerOf(String trunkHash) {
+        TransactionBuilder builder = new TransactionBuilder();
+        builder.trunkHash = trunkHash;
+        return builder.build();
+    }
+
     private static Transaction randomTransaction() {
         TransactionBuilder builder = new TransactionBuilder();
         builder.address = Trytes.randomSequenceOfLength(81);
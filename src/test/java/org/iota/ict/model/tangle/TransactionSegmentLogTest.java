@@ -0,0 +1,74 @@
+package org.iota.ict.model.tangle;
+
+import org.iota.ict.model.transaction.Transaction;
+import org.iota.ict.model.transaction.TransactionBuilder;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.LinkedList;
+import java.util.List;
+
+public class TransactionSegmentLogTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testAppendAndRead() throws IOException {
+        File directory = temporaryFolder.newFolder();
+        TransactionSegmentLog log = new TransactionSegmentLog(directory, 3, 10);
+        List<Transaction> appended = appendTransactions(log, 7);
+        log.close();
+
+        List<Transaction> read = new TransactionSegmentLog(directory, 3, 10).readAll();
+        Assert.assertEquals(appended.size(), read.size());
+        for (int i = 0; i < appended.size(); i++) {
+            Assert.assertEquals(appended.get(i).hash, read.get(i).hash);
+            Assert.assertEquals(appended.get(i).decodeBytesToTrytes(), read.get(i).decodeBytesToTrytes());
+            Assert.assertEquals(appended.get(i).issuanceTimestamp, read.get(i).issuanceTimestamp);
+        }
+    }
+
+    @Test
+    public void testOldSegmentsAreDeleted() throws IOException {
+        File directory = temporaryFolder.newFolder();
+        TransactionSegmentLog log = new TransactionSegmentLog(directory, 2, 2);
+        List<Transaction> appended = appendTransactions(log, 7);
+        log.close();
+
+        // segments: [0,1] [2,3] [4,5] [6] -> only the last two are kept
+        List<Transaction> read = log.readAll();
+        Assert.assertEquals(3, read.size());
+        Assert.assertEquals(appended.get(4).hash, read.get(0).hash);
+    }
+
+    @Test
+    public void testIncompleteRecordIsSkipped() throws IOException {
+        File directory = temporaryFolder.newFolder();
+        TransactionSegmentLog log = new TransactionSegmentLog(directory, 10, 10);
+        appendTransactions(log, 2);
+        log.close();
+
+        File[] segments = directory.listFiles();
+        Assert.assertEquals(1, segments.length);
+        try (FileOutputStream out = new FileOutputStream(segments[0], true)) {
+            out.write(new byte[TransactionSegmentLog.RECORD_SIZE_BYTES / 2]);
+        }
+        Assert.assertEquals(2, log.readAll().size());
+    }
+
+    private static List<Transaction> appendTransactions(TransactionSegmentLog log, int amount) throws IOException {
+        List<Transaction> transactions = new LinkedList<>();
+        for (int i = 0; i < amount; i++) {
+            Transaction transaction = new TransactionBuilder().build();
+            log.append(transaction);
+            transactions.add(transaction);
+        }
+        return transactions;
+    }
+}
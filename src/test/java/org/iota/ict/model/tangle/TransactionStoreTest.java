@@ -0,0 +1,73 @@
+package org.iota.ict.model.tangle;
+
+import org.iota.ict.model.transaction.Transaction;
+import org.iota.ict.model.transaction.TransactionBuilder;
+import org.iota.ict.utils.Constants;
+import org.iota.ict.utils.Trytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+public class TransactionStoreTest {
+
+    @Test
+    public void testFieldsDecodedFromStore() throws IOException {
+        TransactionStore store = new TransactionStore(10, TransactionStore.DIRECT);
+        TransactionBuilder builder = new TransactionBuilder();
+        builder.address = Trytes.randomSequenceOfLength(81);
+        builder.tag = Trytes.randomSequenceOfLength(27);
+        Transaction transaction = builder.build();
+        String trytesBefore = transaction.decodeBytesToTrytes();
+
+        Assert.assertTrue("Transaction was not moved into store.", transaction.moveBytesTo(store));
+        Assert.assertTrue(transaction.isStoredOffHeap());
+        Assert.assertEquals(1, store.size());
+        Assert.assertEquals(builder.address, transaction.address());
+        Assert.assertEquals(builder.tag, transaction.tag());
+        Assert.assertEquals(trytesBefore, transaction.decodeBytesToTrytes());
+
+        transaction.moveBytesToHeap();
+        Assert.assertFalse(transaction.isStoredOffHeap());
+        Assert.assertEquals(0, store.size());
+        Assert.assertEquals(trytesBefore, transaction.decodeBytesToTrytes());
+    }
+
+    @Test
+    public void testFullStoreKeepsTransactionOnHeap() throws IOException {
+        TransactionStore store = new TransactionStore(1, TransactionStore.DIRECT);
+        Assert.assertTrue(new TransactionBuilder().build().moveBytesTo(store));
+        Transaction rejected = new TransactionBuilder().build();
+        Assert.assertFalse(rejected.moveBytesTo(store));
+        Assert.assertFalse(rejected.isStoredOffHeap());
+    }
+
+    @Test
+    public void testSlotsAreReused() throws IOException {
+        TransactionStore store = new TransactionStore(1, TransactionStore.DIRECT);
+        Transaction first = new TransactionBuilder().build();
+        first.moveBytesTo(store);
+        first.moveBytesToHeap();
+
+        Transaction second = new TransactionBuilder().build();
+        Assert.assertTrue(second.moveBytesTo(store));
+        Assert.assertTrue(second.equalBytes(second.toDatagramPacket(Trytes.NULL_HASH).getData()));
+        Assert.assertFalse(first.equalBytes(second.toDatagramPacket(Trytes.NULL_HASH).getData()));
+    }
+
+    @Test
+    public void testMemoryMappedFile() throws IOException {
+        File file = File.createTempFile("tangle", ".store");
+        file.deleteOnExit();
+        TransactionStore store = new TransactionStore(3, file.getAbsolutePath());
+        Assert.assertEquals(3L * Constants.TRANSACTION_SIZE_BYTES, file.length());
+
+        Transaction transaction = new TransactionBuilder().build();
+        String hashBefore = transaction.hash;
+        String trytesBefore = transaction.decodeBytesToTrytes();
+        Assert.assertTrue(transaction.moveBytesTo(store));
+        Assert.assertEquals(trytesBefore, transaction.decodeBytesToTrytes());
+        Assert.assertEquals(hashBefore, new Transaction(transaction.toDatagramPacket(Trytes.NULL_HASH).getData()).hash);
+    }
+}
@@ -1,10 +1,13 @@
 package org.iota.ict.model.transaction;
 
+import org.iota.ict.utils.HashKey;
 import org.iota.ict.utils.Trytes;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
 
 public class TransactionTest {
     private static final String TRYTES_INVALID_FLAGS = "9EGQSWYCJHRLJYEGZLRYQAZPLVRAYIWGWJUMFFX99UZUKBQNFYAOQLOFARIKNEBKDRHJJWDJARXTNPHPAODJRSGJBVVYBVJHZALJWDCJHZRSACOVCVVAVHZVTPFTAJWVGFSVLSYXHNNXEGSMJHDBZKGFQNYJJJBAPDHFFGZ9POSOMWTDPGXI9KQRLMUVWNEQDANMXROVORJVALWVGDDJAFOOBXUKVCCIVXSSHZUCZV9XVBASLWX9NXPWGMGYCRD9ILQMKIGPBGGMKAIJKNALBLABATYFVIRBKTXTWNUZAUXRASB9EEIQHWBD9ZYUDBUPBSWXVYXQXECRCHQAYH9ZBUZBASPOIGBSGWJYFKFRITUBVMCYGCMAPTXOIWEVTUXSUOUPTUQOPMMPUTHXMOP9CW9THAZXEPMOMNEOBLUBPOAIOBEBERRZCIKHSTDWUSUPUWNJOCLNZDCEKWWAAJDPJXJEHHSYFN9MH9BGUDQ9CSZBIHRC9PSQJPGKH9ILZDWUWLEKWFKUFFFIMOQKRMKOYXEJHXLCEGCGGKHGJUHOXINSWCKRNMUNAJDCVLZGEBII9ASTYFTDYDZIZSNHIWHSQ9HODQMVNDKMKHCFDXIIGDIVJSBOOE9GRIXCD9ZUTWCUDKFTETSYSRBQABXCXZFOWQMQFXHYZWD9JZXUWHILMRNWXSGUMIIXZYCTWWHCWMSSTCNSQXQXMQPTM9MOQMIVDYNNARDCVNQEDTBKWOIOSKPKPOZHJGJJGNYWQWUWAZMBZJ9XEJMRVRYFQPJ9NOIIXEGIKMMN9DXYQUILRSCSJDIDN9DCTFGQIYWROZQIEQTKMRVLGGDGA9UVZPNRGSVTZYAPMWFUWDEUULSEEGAGITPJQ9DBEYEN9NVJPUWZTOTJHEQIXAPDOICBNNCJVDNM9YRNXMMPCOYHJDUFNCYTZGRCBZKOLHHUK9VOZWHEYQND9WUHDNGFTAS99MRCAU9QOYVUZKTIBDNAAPNEZBQPIRUFUMAWVTCXSXQQIYQPRFDUXCLJNMEIKVAINVCCZROEWEX9XVRM9IHLHQCKC9VLK9ZZWFBJUZKGJCSOPQPFVVAUDLKFJIJKMLZXFBMXLMWRSNDXRMMDLE9VBPUZB9SVLTMHA9DDDANOKIPY9ULDWAKOUDFEDHZDKMU9VMHUSFG9HRGZAZULEJJTEH9SLQDOMZTLVMBCXVNQPNKXRLBOUCCSBZRJCZIUFTFBKFVLKRBPDKLRLZSMMIQNMOZYFBGQFKUJYIJULGMVNFYJWPKPTSMYUHSUEXIPPPPPJTMDQLFFSFJFEPNUBDEDDBPGAOEJGQTHIWISLRDAABO9H9CSIAXPPJYCRFRCIH9TVBZKTCK9SPQZUYMUOKMZYOMPRHRGF9UAKZTZZG9VVVTIHMSNDREUOUOSLKUHTNFXTNSJVPVWCQXUDIMJIAMBPXUGBNDTBYPKYQYJJCDJSCTTWHOJKORLHGKRJMDCMRHSXHHMQBFJWZWHNUHZLYOAFQTRZFXDBYASYKWEVHKYDTJIAUKNCCEPSW9RITZXBOFKBAQOWHKTALQSCHARLUUGXISDMBVEUKOVXTKTEVKLGYVYHPNYWKNLCVETWIHHVTBWT9UPMTQWBZPRPRSISUBIBECVDNIZQULAGLONGVFLVZPBMHJND9CEVIXSYGFZAGGN9MQYOAKMENSEOGCUNKEJTDLEDCD9LGKYANHMZFSSDDZJKTKUJSFL9GYFDICTPJEPDSBXDQTARJQEWUVWDWSQPKIHPJONKHESSQH9FNQEO9WUCFDWPPPTIQPWCVDYTTWPLCJJVYNKE9ZEJNQBEJBMDBLNJKQDOQOHVS9VY9UPSU9KZVDFOESHNRRWBK9EZCYALAUYFGPCEWJQDXFENSNQEAUWDXJGOMCLQUQWMCPHOBZZ9SZJ9KZXSHDLPHPNYMVUJQSQETTN9SG9SIANJHWUYQXZXAJLYHCZYRGITZYQLAAYDVQVNKCDIYWAYBAFBMAYEAEAGMTJGJRSNHBHCEVIQRXEFVWJWOPU9FPDOWIFL9EWGHICRBNRITJDZNYACOGTUDBZYIYZZWAOCDBQFFNTTSTGKECWTVWZSPHX9HNRUYEAEWXENEIDLVVFMZFVPUNHMQPAIOKVIBDIHQIHFGRJOHHONPLGBSJUD9HHDTQQUZN9NVJYOAUMXMMOCNUFLZ9BAJSZMDMPQHPWSFVWOJQDPHV9DYSQPIBL9LYZHQKKOVF9TFVTTXQEUWFQSLGLVTGK99VSUEDXIBIWCQHDQQSQLDHZ9999999999999999999TRINITY99999999999999999999TNXSQ9D99A99999999B99999999MXKZAGDGKVADXOVCAXEQYZGOGQKDLKIUPYXIL9PXYBQXGYDEGNXTFURSWQYLJDFKEV9VVBBQLTLHIBTFYOGBHPUUHS9CKWSAPIMDIRNSUJ9CFPGKTUFAGQYVMFKOZSVAHIFJXWCFBZLICUWF9GNDZWCOWDUIIZ9999OXNRVXLBKJXEZMVABR9UQBVSTBDFSAJVRRNFEJRL9UFTOFPJHQMQKAJHDBIQAETS9OUVTQ9DSPAOZ9999TRINITY99999999999999999999LPZYMWQME999999999MMMMMMMMMDTIZE9999999999999999999999999999999999999999999999999999999999999999999999999999999999999999999999999999999";
@@ -20,7 +23,9 @@ public class TransactionTest {
     public void testTransactionDecoding() {
         Transaction transaction = new Transaction(Trytes.toBytes(TRYTES_VALID_FLAGS));
         Assert.assertEquals("transaction address", TRYTES_VALID_FLAGS.substring(Transaction.Field.ADDRESS.tryteOffset, Transaction.Field.ADDRESS.tryteOffset + 81), transaction.address());
-        Assert.assertEquals("value", BigInteger.valueOf(-2), transaction.value);
+        Assert.assertEquals("value", BigInteger.valueOf(-2), transaction.value());
+        Assert.assertEquals("value", -2, transaction.longValue());
+        Assert.assertEquals("value signum", -1, transaction.valueSignum());
         Assert.assertEquals("timestamp", 1545102726377L, transaction.attachmentTimestamp);
     }
 
@@ -60,4 +65,65 @@ public class TransactionTest {
         builder.address = builder.address.substring(0, Transaction.Field.ADDRESS.tryteLength - 1) + 'z';
         builder.build();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testValueExceedingLong() {
+        TransactionBuilder builder = new TransactionBuilder();
+        builder.value = BigInteger.valueOf(Long.MAX_VALUE).multiply(BigInteger.valueOf(1000)).negate();
+        Transaction transaction = builder.build();
+        Assert.assertFalse(transaction.valueFitsLong());
+        Assert.assertEquals(-1, transaction.valueSignum());
+
+        Transaction decoded = decode(transaction);
+        Assert.assertFalse(decoded.valueFitsLong());
+        Assert.assertEquals(builder.value, decoded.value());
+
+        builder.value = BigInteger.valueOf(Long.MIN_VALUE);
+        decoded = decode(builder.build());
+        Assert.assertTrue(decoded.valueFitsLong());
+        Assert.assertEquals(Long.MIN_VALUE, decoded.longValue());
+    }
+
+    private static Transaction decode(Transaction transaction) {
+        return new Transaction(Trytes.toBytes(transaction.decodeBytesToTrytes() + Trytes.padRight("", 81)));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testLongValueOverflow() {
+        TransactionBuilder builder = new TransactionBuilder();
+        builder.value = BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE);
+        builder.build().longValue();
+    }
+
+    @Test
+    public void testCalcHashes() {
+        List<byte[]> bytes = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            TransactionBuilder builder = new TransactionBuilder();
+            builder.address = Trytes.randomSequenceOfLength(81);
+            bytes.add(Trytes.toBytes(builder.build().decodeBytesToTrytes() + Trytes.padRight("", 81)));
+        }
+        bytes.add(Trytes.toBytes(TRYTES_VALID_FLAGS));
+
+        String[] hashes = Transaction.calcHashes(bytes);
+        for (int i = 0; i < bytes.size(); i++)
+            Assert.assertEquals(new Transaction(bytes.get(i)).hash, hashes[i]);
+        Assert.assertEquals(HASH_OF_TRYTES_VALID_FLAGS, hashes[bytes.size() - 1]);
+        Assert.assertEquals(new Transaction(bytes.get(0)).hash, Transaction.calcHashes(bytes.subList(0, 1))[0]);
+    }
+
+    @Test
+    public void testFieldComparison() {
+        TransactionBuilder builder = new TransactionBuilder();
+        builder.address = Trytes.randomSequenceOfLength(81);
+        builder.tag = Trytes.randomSequenceOfLength(27);
+        Transaction transaction = builder.build();
+
+        Assert.assertTrue(transaction.addressEquals(HashKey.fromTrytes(builder.address)));
+        Assert.assertFalse(transaction.addressEquals(HashKey.fromTrytes(Trytes.randomSequenceOfLength(81))));
+        Assert.assertTrue(transaction.tagEquals(HashKey.fromTrytes(builder.tag)));
+        Assert.assertTrue(transaction.trunkHashEquals(HashKey.fromTrytes(builder.trunkHash)));
+        Assert.assertTrue(transaction.branchHashEquals(HashKey.fromTrytes(builder.branchHash)));
+        Assert.assertEquals(transaction.addressKey().hashCode(), transaction.fieldHashCode(Transaction.Field.ADDRESS));
+    }
+}
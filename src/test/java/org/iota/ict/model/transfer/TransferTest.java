@@ -9,7 +9,9 @@ import org.iota.ict.model.transfer.OutputBuilder;
 import org.iota.ict.model.transfer.Transfer;
 import org.iota.ict.model.transfer.TransferBuilder;
 import org.iota.ict.model.transaction.Transaction;
+import org.iota.ict.utils.Constants;
 import org.iota.ict.utils.Trytes;
+import org.iota.ict.utils.crypto.Curl;
 import org.iota.ict.utils.crypto.SignatureSchemeImplementation;
 import org.junit.Assert;
 import org.junit.Test;
@@ -61,6 +63,27 @@ public class TransferTest {
         assertReferenceInputAreIncludedInTransfer(inputs, transfer);
     }
 
+    @Test
+    public void testBundleHashEqualsHashOfConcatenation() {
+        Set<InputBuilder> inputs = createRandomInputs(2, 1);
+        Set<OutputBuilder> outputs = createRandomOutputs(calcAvailableFunds(inputs), 4);
+        Bundle bundle = buildBundle(inputs, outputs);
+
+        // reference: essences from head to tail, each output transaction preceded by the hash of its message
+        StringBuilder concat = new StringBuilder();
+        String inputAddress = null;
+        for (Transaction transaction : bundle.getTransactions()) {
+            if (transaction.valueSignum() != 0 || !transaction.address().equals(inputAddress))
+                inputAddress = transaction.valueSignum() < 0 ? transaction.address() : null;
+            if (inputAddress == null)
+                concat.append(Curl.hash(transaction.signatureFragments(), Constants.CURL_ROUNDS_BUNDLE_HASH));
+            concat.append(transaction.essence());
+        }
+
+        Assert.assertEquals(Curl.hash(concat.toString(), Constants.CURL_ROUNDS_BUNDLE_HASH), bundle.getHash());
+        Assert.assertTrue("Signatures are invalid.", new Transfer(bundle).areSignaturesValid());
+    }
+
     private void assertReferenceInputAreIncludedInTransfer(Iterable<InputBuilder> referenceInputs, Transfer transfer) {
         // inputs must be treated differently than outputs because they now have a signature -> equal() does not work -> containsAll() does not work
 
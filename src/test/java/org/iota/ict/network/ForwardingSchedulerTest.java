@@ -0,0 +1,121 @@
+package org.iota.ict.network;
+
+import org.iota.ict.model.transaction.Transaction;
+import org.iota.ict.model.transaction.TransactionBuilder;
+import org.iota.ict.utils.Constants;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ForwardingSchedulerTest {
+
+    private static final long TICK_MS = 10;
+
+    @Test
+    public void testDrainsDueTasksAsBatch() {
+        long start = System.currentTimeMillis() / TICK_MS * TICK_MS;
+        ForwardingScheduler scheduler = new ForwardingScheduler(100, TICK_MS, 8, start);
+        Transaction early = buildTransaction(start), late = buildTransaction(start), nextRotation = buildTransaction(start);
+        scheduler.schedule(late, start + 50);
+        scheduler.schedule(early, start + 20);
+        scheduler.schedule(early, start + 25);
+        // 8 slots of 10ms, falls into the same slot as the late task
+        scheduler.schedule(nextRotation, start + 50 + 8 * TICK_MS);
+
+        Assert.assertEquals(0, drain(scheduler, start + 15).size());
+        Assert.assertEquals(asList(early, early), drain(scheduler, start + 29));
+        Assert.assertEquals(asList(late), drain(scheduler, start + 100));
+        Assert.assertEquals(1, scheduler.size());
+        Assert.assertEquals(asList(nextRotation), drain(scheduler, start + 1000));
+        Assert.assertEquals(0, scheduler.size());
+    }
+
+    @Test
+    public void testTasksDueAlreadyAreSentWithNextTick() {
+        long start = System.currentTimeMillis();
+        ForwardingScheduler scheduler = new ForwardingScheduler(100, TICK_MS, 8, start);
+        drain(scheduler, start + 100);
+        Transaction transaction = buildTransaction(start);
+        scheduler.schedule(transaction, start);
+        Assert.assertEquals(asList(transaction), drain(scheduler, start + 100 + TICK_MS));
+    }
+
+    @Test
+    public void testDropsStaleTransactions() {
+        long start = System.currentTimeMillis();
+        ForwardingScheduler scheduler = new ForwardingScheduler(100, TICK_MS, 8, start);
+        long tolerance = Constants.TIMESTAMP_DIFFERENCE_TOLERANCE_IN_MILLIS;
+
+        Assert.assertFalse("scheduled although stale when sent", scheduler.schedule(buildTransaction(start - tolerance + 100), start + 200));
+        Assert.assertTrue(scheduler.schedule(buildTransaction(start - tolerance / 2), start + 200));
+        Assert.assertTrue(scheduler.schedule(buildTransaction(start), start + 200));
+        Assert.assertEquals(1, drain(scheduler, start + tolerance / 2).size());
+        Assert.assertEquals(2, scheduler.droppedStale());
+    }
+
+    @Test
+    public void testOverflowDropsNextDue() {
+        long start = System.currentTimeMillis();
+        ForwardingScheduler scheduler = new ForwardingScheduler(2, TICK_MS, 8, start);
+        Transaction first = buildTransaction(start), second = buildTransaction(start), third = buildTransaction(start);
+        scheduler.schedule(second, start + 50);
+        scheduler.schedule(first, start + 20);
+        scheduler.schedule(third, start + 30);
+
+        Assert.assertEquals(2, scheduler.size());
+        Assert.assertEquals(1, scheduler.droppedOverflow());
+        Assert.assertEquals(asList(third, second), drain(scheduler, start + 100));
+    }
+
+    @Test
+    public void testOverflowSkipsTasksOfLaterRotations() {
+        long start = System.currentTimeMillis() / TICK_MS * TICK_MS;
+        ForwardingScheduler scheduler = new ForwardingScheduler(2, TICK_MS, 8, start);
+        Transaction nextRotation = buildTransaction(start), dueNext = buildTransaction(start), third = buildTransaction(start);
+        // 8 slots of 10ms, occupies the first slot to be drained but is only due in the next rotation
+        scheduler.schedule(nextRotation, start + TICK_MS + 8 * TICK_MS);
+        scheduler.schedule(dueNext, start + 3 * TICK_MS);
+        scheduler.schedule(third, start + 4 * TICK_MS);
+
+        Assert.assertEquals(1, scheduler.droppedOverflow());
+        Assert.assertEquals(asList(third), drain(scheduler, start + 8 * TICK_MS));
+        Assert.assertEquals(asList(nextRotation), drain(scheduler, start + 1000));
+    }
+
+    @Test
+    public void testNeighborDropsTransactionsWhichBecameStaleInOutboundQueue() {
+        long start = System.currentTimeMillis();
+        Neighbor neighbor = new Neighbor("localhost:1337", 0);
+        Transaction stale = buildTransaction(start - Constants.TIMESTAMP_DIFFERENCE_TOLERANCE_IN_MILLIS), fresh = buildTransaction(start);
+        neighbor.queueForSending(stale);
+        neighbor.queueForSending(fresh);
+
+        Assert.assertSame(fresh, neighbor.pollForSending());
+        Assert.assertNull(neighbor.pollForSending());
+        Assert.assertEquals(1, neighbor.outboundStale());
+    }
+
+    private static List<Transaction> drain(ForwardingScheduler scheduler, long now) {
+        List<ForwardingScheduler.Task> due = new ArrayList<>();
+        scheduler.drainDue(now, due);
+        List<Transaction> transactions = new ArrayList<>();
+        for (ForwardingScheduler.Task task : due)
+            transactions.add(task.transaction);
+        return transactions;
+    }
+
+    private static List<Transaction> asList(Transaction... transactions) {
+        List<Transaction> list = new ArrayList<>();
+        for (Transaction transaction : transactions)
+            list.add(transaction);
+        return list;
+    }
+
+    private static Transaction buildTransaction(long issuanceTimestamp) {
+        TransactionBuilder builder = new TransactionBuilder();
+        builder.issuanceTimestamp = issuanceTimestamp;
+        return builder.build();
+    }
+}
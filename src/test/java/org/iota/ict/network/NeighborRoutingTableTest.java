@@ -0,0 +1,39 @@
+package org.iota.ict.network;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+
+public class NeighborRoutingTableTest {
+
+    @Test
+    public void testRouteByAddress() {
+        Neighbor a = new Neighbor("127.0.0.1:1337", 0);
+        Neighbor b = new Neighbor("127.0.0.1:1338", 0);
+        NeighborRoutingTable table = new NeighborRoutingTable(Arrays.asList(a, b));
+
+        Assert.assertSame(a, table.route(new InetSocketAddress("127.0.0.1", 1337)));
+        Assert.assertSame(b, table.route(new InetSocketAddress("127.0.0.1", 1338)));
+        Assert.assertSame(b, table.route(new InetSocketAddress("localhost", 1338)));
+    }
+
+    @Test
+    public void testFallbackToSameIP() {
+        Neighbor a = new Neighbor("127.0.0.1:1337", 0);
+        Neighbor b = new Neighbor("127.0.0.2:1337", 0);
+        NeighborRoutingTable table = new NeighborRoutingTable(Arrays.asList(a, b));
+
+        Assert.assertSame("unknown port should fall back to neighbor with same ip", b, table.route(new InetSocketAddress("127.0.0.2", 666)));
+        Assert.assertNull("packet from unknown ip should not be routed", table.route(new InetSocketAddress("127.0.0.3", 1337)));
+    }
+
+    @Test
+    public void testPreferFirstNeighbor() {
+        Neighbor a = new Neighbor("127.0.0.1:1337", 0);
+        Neighbor b = new Neighbor("127.0.0.1:1338", 0);
+        NeighborRoutingTable table = new NeighborRoutingTable(Arrays.asList(a, b));
+        Assert.assertSame(a, table.route(new InetSocketAddress("127.0.0.1", 666)));
+    }
+}
@@ -0,0 +1,87 @@
+package org.iota.ict.network;
+
+import org.iota.ict.IctTestTemplate;
+import org.iota.ict.model.tangle.Tangle;
+import org.iota.ict.model.transaction.Transaction;
+import org.iota.ict.model.transaction.TransactionBuilder;
+import org.iota.ict.utils.Constants;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class NonceCacheTest extends IctTestTemplate {
+
+    @Test
+    public void testFindCachedTransaction() {
+        Tangle tangle = new Tangle(createIct());
+        NonceCache cache = new NonceCache(1024);
+        Transaction cached = new TransactionBuilder().build();
+        Transaction notCached = new TransactionBuilder().build();
+        tangle.createTransactionLogIfAbsent(cached);
+        tangle.createTransactionLogIfAbsent(notCached);
+
+        byte[] packet = toPacket(cached);
+        cache.put(NonceCache.fingerprint(packet), cached.hashKey());
+
+        Assert.assertSame(cached, cache.find(packet, NonceCache.fingerprint(packet), tangle));
+        byte[] otherPacket = toPacket(notCached);
+        Assert.assertNull(cache.find(otherPacket, NonceCache.fingerprint(otherPacket), tangle));
+        Assert.assertEquals(2, cache.lookups());
+        Assert.assertEquals(1, cache.hits());
+        Assert.assertEquals(0.5, cache.hitRate(), 1E-9);
+    }
+
+    @Test
+    public void testDifferentBytesWithSameNonce() {
+        Tangle tangle = new Tangle(createIct());
+        NonceCache cache = new NonceCache(1024);
+        Transaction cached = new TransactionBuilder().build();
+        tangle.createTransactionLogIfAbsent(cached);
+
+        byte[] packet = toPacket(cached);
+        cache.put(NonceCache.fingerprint(packet), cached.hashKey());
+        byte[] modifiedPacket = packet.clone();
+        modifiedPacket[0]++;
+        Assert.assertEquals(NonceCache.fingerprint(packet), NonceCache.fingerprint(modifiedPacket));
+        Assert.assertNull("must verify bytes and not only nonce", cache.find(modifiedPacket, NonceCache.fingerprint(modifiedPacket), tangle));
+    }
+
+    @Test
+    public void testClockEviction() {
+        Tangle tangle = new Tangle(createIct());
+        NonceCache cache = new NonceCache(NonceCache.BUCKET_SIZE); // single bucket
+        Assert.assertEquals(NonceCache.BUCKET_SIZE, cache.capacity());
+
+        Transaction[] transactions = new Transaction[NonceCache.BUCKET_SIZE + 1];
+        byte[][] packets = new byte[transactions.length][];
+        for (int i = 0; i < transactions.length; i++) {
+            transactions[i] = new TransactionBuilder().build();
+            tangle.createTransactionLogIfAbsent(transactions[i]);
+            packets[i] = toPacket(transactions[i]);
+        }
+
+        for (int i = 0; i < NonceCache.BUCKET_SIZE; i++)
+            put(cache, packets[i], transactions[i]);
+
+        // hit the oldest entry so it gets a second chance, the next oldest one should be evicted instead
+        Assert.assertNotNull(find(cache, packets[0], tangle));
+        put(cache, packets[NonceCache.BUCKET_SIZE], transactions[NonceCache.BUCKET_SIZE]);
+
+        Assert.assertNotNull("referenced entry was evicted", find(cache, packets[0], tangle));
+        Assert.assertNull("unreferenced entry was not evicted", find(cache, packets[1], tangle));
+        Assert.assertNotNull(find(cache, packets[NonceCache.BUCKET_SIZE], tangle));
+    }
+
+    private static void put(NonceCache cache, byte[] packet, Transaction transaction) {
+        cache.put(NonceCache.fingerprint(packet), transaction.hashKey());
+    }
+
+    private static Transaction find(NonceCache cache, byte[] packet, Tangle tangle) {
+        return cache.find(packet, NonceCache.fingerprint(packet), tangle);
+    }
+
+    private static byte[] toPacket(Transaction transaction) {
+        byte[] packet = new byte[Constants.PACKET_SIZE_BYTES];
+        transaction.copyBytes(packet, 0);
+        return packet;
+    }
+}
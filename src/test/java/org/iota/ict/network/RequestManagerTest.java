@@ -0,0 +1,101 @@
+package org.iota.ict.network;
+
+import org.iota.ict.Ict;
+import org.iota.ict.model.tangle.Tangle;
+import org.iota.ict.model.transaction.Transaction;
+import org.iota.ict.model.transaction.TransactionBuilder;
+import org.iota.ict.utils.HashKey;
+import org.iota.ict.utils.Trytes;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class RequestManagerTest {
+
+    private final Tangle tangle = new Tangle(Mockito.mock(Ict.class));
+    private final Neighbor a = new Neighbor("localhost:1337", 0);
+    private final Neighbor b = new Neighbor("localhost:1338", 0);
+    private final List<Neighbor> neighbors = Arrays.asList(a, b);
+
+    @Test
+    public void testDeduplicatesAndSpreadsAcrossNeighbors() {
+        RequestManager manager = new RequestManager();
+        HashKey hash = randomHash();
+        manager.request(hash, 0);
+        manager.request(hash, 0);
+        Assert.assertEquals(1, manager.amountOutstanding());
+
+        Assert.assertEquals(hash, manager.nextRequestFor(a, 0));
+        Assert.assertNull("request sent twice without back-off", manager.nextRequestFor(b, 0));
+
+        manager.maintain(RequestManager.RETRY_BASE_DELAY_MS, tangle, neighbors);
+        Assert.assertNull("neighbor asked again before all others", manager.nextRequestFor(a, RequestManager.RETRY_BASE_DELAY_MS));
+        Assert.assertEquals(hash, manager.nextRequestFor(b, RequestManager.RETRY_BASE_DELAY_MS));
+
+        // back-off doubled after second attempt
+        long secondRetry = RequestManager.RETRY_BASE_DELAY_MS + 2 * RequestManager.RETRY_BASE_DELAY_MS;
+        manager.maintain(secondRetry - 1, tangle, neighbors);
+        Assert.assertFalse(manager.hasReady());
+        manager.maintain(secondRetry, tangle, neighbors);
+        Assert.assertEquals("all neighbors asked, should start over", hash, manager.nextRequestFor(a, secondRetry));
+        Assert.assertEquals(3, manager.requestsSent());
+    }
+
+    @Test
+    public void testEndsWhenReceivedOrExpired() {
+        RequestManager manager = new RequestManager();
+        HashKey received = randomHash(), expiring = randomHash();
+        manager.request(received, 0);
+        manager.request(expiring, 0);
+
+        manager.received(received);
+        Assert.assertEquals(1, manager.amountOutstanding());
+        Assert.assertEquals(expiring, manager.nextRequestFor(a, 0));
+
+        manager.maintain(RequestManager.REQUEST_EXPIRY_MS, tangle, neighbors);
+        Assert.assertEquals(0, manager.amountOutstanding());
+        Assert.assertEquals(1, manager.requestsAnswered());
+        Assert.assertEquals(1, manager.requestsExpired());
+        Assert.assertFalse(manager.hasReady());
+    }
+
+    @Test
+    public void testPrioritizesByWaitingReferrers() {
+        RequestManager manager = new RequestManager();
+        Transaction blocker = new TransactionBuilder().build();
+        HashKey other = randomHash();
+        manager.request(other, 0);
+        manager.request(blocker.hashKey(), 1);
+        for (int i = 0; i < 3; i++)
+            tangle.createTransactionLogIfAbsent(buildReferrer(blocker.hash));
+
+        manager.maintain(1, tangle, neighbors);
+        Assert.assertEquals(blocker.hashKey(), manager.nextRequestFor(a, 1));
+
+        tangle.createTransactionLogIfAbsent(blocker);
+        manager.maintain(1 + RequestManager.RETRY_BASE_DELAY_MS, tangle, neighbors);
+        Assert.assertEquals(1, manager.amountOutstanding());
+    }
+
+    @Test
+    public void testStandaloneRequestsOnlyForOverdueRequests() {
+        RequestManager manager = new RequestManager();
+        HashKey hash = randomHash();
+        manager.request(hash, 100);
+        Assert.assertNull(manager.nextRequestFor(a, 100, 99));
+        Assert.assertEquals(hash, manager.nextRequestFor(a, 200, 100));
+    }
+
+    private static Transaction buildReferrer(String trunkHash) {
+        TransactionBuilder builder = new TransactionBuilder();
+        builder.trunkHash = trunkHash;
+        return builder.build();
+    }
+
+    private static HashKey randomHash() {
+        return HashKey.fromTrytes(Trytes.randomSequenceOfLength(81));
+    }
+}
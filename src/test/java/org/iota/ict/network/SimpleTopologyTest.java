@@ -1,9 +1,14 @@
 package org.iota.ict.network;
 
 import org.iota.ict.Ict;
+import org.iota.ict.utils.properties.EditableProperties;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
 public class SimpleTopologyTest extends GossipTest {
 
     @Test
@@ -40,4 +45,23 @@ public class SimpleTopologyTest extends GossipTest {
         Assert.assertTrue("no infinite loop message forwarding", c.getNeighbors().get(1).getStats().receivedAll <= amountOfMessages);
         Assert.assertTrue("all messages received", c.getNeighbors().get(0).getStats().receivedAll + c.getNeighbors().get(1).getStats().receivedAll >= amountOfMessages);
     }
+
+    @Test
+    public void testHubWithManyNeighbors() {
+
+        int amountOfLeafs = 8;
+        Ict hub = createIct(new EditableProperties().maxNeighbors(amountOfLeafs));
+        List<Ict> leafs = new LinkedList<>();
+        for (int i = 0; i < amountOfLeafs; i++) {
+            Ict leaf = createIct();
+            connect(hub, leaf);
+            leafs.add(leaf);
+        }
+        Assert.assertEquals(amountOfLeafs, hub.getNeighbors().size());
+
+        Map<String, String> sentMessagesByHash = sendMessages(hub, 20);
+        waitUntilCommunicationEnds(1000);
+        for (Ict leaf : leafs)
+            assertThatTransactionsReceived(leaf, sentMessagesByHash, 17);
+    }
 }
@@ -64,6 +64,24 @@ public class TransactionRequestTest extends GossipTest {
         Assert.assertNotNull("could not request transaction from neighbor", c.findTransactionByHash(original.hash));
     }
 
+    @Test
+    public void testRequestingWithoutGossip() {
+        Ict a = createIct();
+        Transaction original = submitTransactionAndReturnTransaction(a);
+        waitUntilCommunicationEnds(100);
+
+        // b has not received any gossip which could carry its request
+        Ict b = createIct();
+        connect(a, b);
+        int sizeBefore = a.getTangle().size();
+        b.request(original.hash);
+        saveSleep(RequestManager.RETRY_BASE_DELAY_MS + 100);
+        waitUntilCommunicationEnds(100);
+        Assert.assertNotNull("did not request transaction without gossip", b.findTransactionByHash(original.hash));
+        Assert.assertEquals("request-only packet was added to the tangle", sizeBefore, a.getTangle().size());
+        Assert.assertEquals("request-only packet was added to the tangle", sizeBefore, b.getTangle().size());
+    }
+
     private void requestTransaction(Ict ict, String hash) {
         ict.request(hash);
         ict.submit(new TransactionBuilder().build()); // request carrier
@@ -0,0 +1,39 @@
+package org.iota.ict.network.gossip;
+
+import org.iota.ict.model.transaction.Transaction;
+import org.iota.ict.model.transaction.TransactionBuilder;
+import org.iota.ict.utils.Trytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GossipFilterTest {
+
+    @Test
+    public void testPasses() {
+        TransactionBuilder builder = new TransactionBuilder();
+        builder.address = Trytes.randomSequenceOfLength(81);
+        builder.tag = Trytes.randomSequenceOfLength(27);
+        Transaction transaction = builder.build();
+
+        Assert.assertFalse(new GossipFilter().passes(transaction));
+        Assert.assertTrue(new GossipFilter().setWatchingAll(true).passes(transaction));
+        Assert.assertTrue(new GossipFilter().watchAddress(builder.address).passes(transaction));
+        Assert.assertTrue(new GossipFilter().watchTag(builder.tag).passes(transaction));
+        Assert.assertFalse(new GossipFilter().watchAddress(builder.address).unwatchAddress(builder.address).passes(transaction));
+    }
+
+    @Test
+    public void testPassesWithManyWatchedAddresses() {
+        TransactionBuilder builder = new TransactionBuilder();
+        builder.address = Trytes.randomSequenceOfLength(81);
+        Transaction transaction = builder.build();
+
+        GossipFilter filter = new GossipFilter();
+        for (int i = 0; i < 20; i++)
+            filter.watchAddress(Trytes.randomSequenceOfLength(81));
+        Assert.assertFalse(filter.passes(transaction));
+        filter.watchAddress(builder.address);
+        Assert.assertTrue(filter.passes(transaction));
+        Assert.assertTrue(filter.getWatchedAddresses().contains(builder.address));
+    }
+}
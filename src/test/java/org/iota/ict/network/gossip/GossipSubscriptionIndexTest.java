@@ -0,0 +1,93 @@
+package org.iota.ict.network.gossip;
+
+import org.iota.ict.eee.dispatch.SimpleEffectDispatcher;
+import org.iota.ict.model.transaction.Transaction;
+import org.iota.ict.model.transaction.TransactionBuilder;
+import org.iota.ict.utils.Constants;
+import org.iota.ict.utils.Trytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+
+public class GossipSubscriptionIndexTest {
+
+    @Test
+    public void testForwardsMatchingGossipOnce() {
+        SimpleEffectDispatcher<GossipEvent> dispatcher = new SimpleEffectDispatcher<>();
+        GossipSubscriptionIndex index = new GossipSubscriptionIndex(dispatcher);
+        dispatcher.addListener(index);
+
+        String address = Trytes.randomSequenceOfLength(81), tag = Trytes.randomSequenceOfLength(27);
+        CollectingListener byAddress = new CollectingListener(), byTag = new CollectingListener(), byBoth = new CollectingListener(), all = new CollectingListener();
+        index.subscribe(new GossipFilter().watchAddress(address), byAddress);
+        index.subscribe(new GossipFilter().watchTag(tag), byTag);
+        index.subscribe(new GossipFilter().watchAddress(address).watchTag(tag), byBoth);
+        index.subscribe(new GossipFilter().setWatchingAll(true), all);
+        Assert.assertEquals(4, index.amountOfSubscriptions());
+
+        GossipEvent matchingBoth = gossip(address, tag);
+        GossipEvent matchingTag = gossip(Trytes.randomSequenceOfLength(81), tag);
+        GossipEvent matchingNone = gossip(Trytes.randomSequenceOfLength(81), Trytes.randomSequenceOfLength(27));
+        for (GossipEvent event : new GossipEvent[]{matchingBoth, matchingTag, matchingNone})
+            dispatcher.submitEffect(Constants.Environments.GOSSIP, event);
+
+        Assert.assertEquals(asList(matchingBoth), byAddress.received);
+        Assert.assertEquals(asList(matchingBoth, matchingTag), byTag.received);
+        Assert.assertEquals("event matching address and tag not forwarded once", asList(matchingBoth, matchingTag), byBoth.received);
+        Assert.assertEquals(asList(matchingBoth, matchingTag, matchingNone), all.received);
+    }
+
+    @Test
+    public void testUpdateAndCancel() {
+        SimpleEffectDispatcher<GossipEvent> dispatcher = new SimpleEffectDispatcher<>();
+        GossipSubscriptionIndex index = new GossipSubscriptionIndex(dispatcher);
+        dispatcher.addListener(index);
+
+        String address = Trytes.randomSequenceOfLength(81);
+        GossipFilter filter = new GossipFilter();
+        CollectingListener listener = new CollectingListener();
+        GossipSubscription subscription = index.subscribe(filter, listener);
+
+        GossipEvent event = gossip(address, Trytes.randomSequenceOfLength(27));
+        filter.watchAddress(address);
+        dispatcher.submitEffect(Constants.Environments.GOSSIP, event);
+        Assert.assertTrue("filter changed without update", listener.received.isEmpty());
+
+        subscription.updateFilter(filter);
+        dispatcher.submitEffect(Constants.Environments.GOSSIP, event);
+        Assert.assertEquals(asList(event), listener.received);
+
+        subscription.cancel();
+        dispatcher.submitEffect(Constants.Environments.GOSSIP, event);
+        Assert.assertEquals(asList(event), listener.received);
+        Assert.assertEquals(0, index.amountOfSubscriptions());
+        Assert.assertEquals("subscription still registered at dispatcher", 1, dispatcher.amountOfListeners());
+    }
+
+    private static GossipEvent gossip(String address, String tag) {
+        TransactionBuilder builder = new TransactionBuilder();
+        builder.address = address;
+        builder.tag = tag;
+        Transaction transaction = builder.build();
+        return new GossipEvent(transaction, false);
+    }
+
+    private static List<GossipEvent> asList(GossipEvent... events) {
+        List<GossipEvent> list = new LinkedList<>();
+        for (GossipEvent event : events)
+            list.add(event);
+        return list;
+    }
+
+    private static class CollectingListener extends GossipListener.Implementation {
+
+        private final List<GossipEvent> received = new LinkedList<>();
+
+        @Override
+        public void onReceive(GossipEvent event) {
+            received.add(event);
+        }
+    }
+}
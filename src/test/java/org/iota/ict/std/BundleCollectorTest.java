@@ -60,6 +60,69 @@ public class BundleCollectorTest extends IctTestTemplate {
         Assert.assertEquals("Ict received events from incomplete bundles.", 0, customGossipListener.receivedHeadEvents.size());
     }
 
+    @Test
+    public void testSegmentsMergeInAnyOrder() {
+        Ict ict = createIct();
+        BundleCollector collector = new BundleCollector(ict);
+        List<Transaction> transactions = createBundle(6).getTransactions();
+
+        // head, tail and an inner transaction form three separate segments until the gaps are filled
+        for (int i : new int[]{0, 5, 2}) {
+            collector.collect(new GossipEvent(transactions.get(i), false), 0);
+        }
+        Assert.assertEquals(3, collector.incompleteBundles());
+        for (int i : new int[]{4, 1}) {
+            collector.collect(new GossipEvent(transactions.get(i), false), 0);
+        }
+        Assert.assertEquals(2, collector.incompleteBundles());
+        Assert.assertEquals(5, collector.heldTransactions());
+
+        collector.collect(new GossipEvent(transactions.get(3), false), 0);
+        Assert.assertEquals(0, collector.incompleteBundles());
+        Assert.assertEquals(0, collector.heldTransactions());
+        Assert.assertEquals(1, collector.bundlesPassedOn());
+    }
+
+    @Test
+    public void testExpiry() {
+        Ict ict = createIct();
+        BundleCollector collector = new BundleCollector(ict, 1000, 3);
+        List<Transaction> first = createBundle(3).getTransactions();
+        List<Transaction> second = createBundle(3).getTransactions();
+
+        collector.collect(new GossipEvent(first.get(0), false), 0);
+        collector.collect(new GossipEvent(first.get(1), false), 0);
+        collector.collect(new GossipEvent(second.get(0), false), 500);
+        Assert.assertEquals(3, collector.heldTransactions());
+
+        // exceeds the budget, oldest segment is dropped
+        collector.collect(new GossipEvent(second.get(1), false), 500);
+        Assert.assertEquals(2, collector.heldTransactions());
+        Assert.assertEquals(2, collector.transactionsExpired());
+
+        // tail of first bundle cannot complete it anymore
+        collector.collect(new GossipEvent(first.get(2), false), 600);
+        Assert.assertEquals(0, collector.bundlesPassedOn());
+
+        // too old
+        collector.collect(new GossipEvent(createBundle(2).getHead(), false), 1650);
+        Assert.assertEquals(1, collector.incompleteBundles());
+        Assert.assertEquals(5, collector.transactionsExpired());
+    }
+
+    @Test
+    public void testExpiryWithoutGossip() {
+        Ict ict = createIct();
+        BundleCollector collector = new BundleCollector(ict, 1000, 3);
+        collector.collect(new GossipEvent(createBundle(2).getHead(), false), 0);
+        Assert.assertEquals(1, collector.incompleteBundles());
+
+        collector.expire(1001);
+        Assert.assertEquals(0, collector.incompleteBundles());
+        Assert.assertEquals(0, collector.heldTransactions());
+        Assert.assertEquals(1, collector.transactionsExpired());
+    }
+
     private static void assertBundleComplete(Ict ict, String hashOfBundleHead) {
         Transaction head = ict.findTransactionByHash(hashOfBundleHead);
         Assert.assertNotNull("Ict did not receive head of bundle", head);
@@ -0,0 +1,66 @@
+package org.iota.ict.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+public class ConcurrentMultiHashMapTest {
+
+    @Test
+    public void testAddAndRemove() {
+        ConcurrentMultiHashMap<String, Integer> map = new ConcurrentMultiHashMap<>();
+        map.add("A", 1);
+        map.add("A", 2);
+        map.add("A", 2);
+        map.add("B", 3);
+
+        Set<Integer> valuesOfA = map.get("A");
+        Assert.assertEquals(2, valuesOfA.size());
+        Assert.assertTrue(valuesOfA.contains(1) && valuesOfA.contains(2));
+
+        map.remove("A", 1);
+        Assert.assertEquals("View does not reflect removal.", 1, valuesOfA.size());
+        map.remove("A", 2);
+        Assert.assertFalse("Key without values was not removed.", map.containsKey("A"));
+        Assert.assertTrue(map.get("A").isEmpty());
+        Assert.assertEquals(1, map.size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testViewIsReadOnly() {
+        ConcurrentMultiHashMap<String, Integer> map = new ConcurrentMultiHashMap<>();
+        map.add("A", 1);
+        map.get("A").add(2);
+    }
+
+    @Test
+    public void testConcurrentAddAndRemove() throws InterruptedException {
+        final ConcurrentMultiHashMap<String, Integer> map = new ConcurrentMultiHashMap<>();
+        final int threads = 4, valuesPerThread = 10000;
+        final CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            final int offset = t * valuesPerThread;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = offset; i < offset + valuesPerThread; i++) {
+                        map.add("KEY", i);
+                        // keep the set close to empty so it is repeatedly dropped and recreated
+                        if (i % 2 == 0)
+                            map.remove("KEY", i);
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        done.await();
+        Set<Integer> remaining = map.get("KEY");
+        Assert.assertEquals("Values got lost or were not removed.", threads * valuesPerThread / 2, remaining.size());
+        for (int value : remaining)
+            Assert.assertTrue("Removed value is still present.", value % 2 == 1);
+    }
+}
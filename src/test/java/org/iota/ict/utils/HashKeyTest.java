@@ -0,0 +1,71 @@
+package org.iota.ict.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HashKeyTest {
+
+    @Test
+    public void testTryteEncoding() {
+        for (int i = 0; i < 100; i++) {
+            String trytes = Trytes.randomSequenceOfLength(3 * (int) (Math.random() * 28));
+            Assert.assertEquals(trytes, HashKey.fromTrytes(trytes).toString());
+        }
+    }
+
+    @Test
+    public void testByteEncoding() {
+        for (int i = 0; i < 100; i++) {
+            String trytes = Trytes.randomSequenceOfLength(81);
+            byte[] bytes = Trytes.toBytes(trytes);
+            HashKey fromBytes = HashKey.fromBytes(bytes, 0, bytes.length);
+            Assert.assertEquals(HashKey.fromTrytes(trytes), fromBytes);
+            Assert.assertEquals(HashKey.fromTrytes(trytes).hashCode(), fromBytes.hashCode());
+            Assert.assertArrayEquals(bytes, fromBytes.toBytes());
+        }
+    }
+
+    @Test
+    public void testNonCanonicalBytesResultInSameKey() {
+        for (int i = 0; i < 100; i++) {
+            byte[] randomBytes = new byte[54];
+            for (int j = 0; j < randomBytes.length; j++)
+                randomBytes[j] = (byte) (Math.random() * 256);
+            String decoded = Trytes.fromBytes(randomBytes, 0, randomBytes.length);
+            Assert.assertEquals(HashKey.fromTrytes(decoded), HashKey.fromBytes(randomBytes, 0, randomBytes.length));
+        }
+    }
+
+    @Test
+    public void testDifferentLengthsAreNotEqual() {
+        Assert.assertNotEquals(HashKey.fromTrytes("ABC"), HashKey.fromTrytes("ABC999"));
+        Assert.assertNotEquals(HashKey.fromTrytes(Trytes.padRight("", 27)), HashKey.NULL_HASH);
+    }
+
+    @Test
+    public void testOrderIsConsistentWithEquals() {
+        String trytes = Trytes.randomSequenceOfLength(81);
+        Assert.assertEquals(0, HashKey.fromTrytes(trytes).compareTo(HashKey.fromTrytes(trytes)));
+        Assert.assertNotEquals(0, HashKey.fromTrytes(trytes).compareTo(HashKey.NULL_HASH));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonTryteCharacter() {
+        HashKey.fromTrytes("AbC");
+    }
+
+    @Test
+    public void testEqualsBytes() {
+        for (int i = 0; i < 100; i++) {
+            byte[] randomBytes = new byte[54];
+            for (int j = 0; j < randomBytes.length; j++)
+                randomBytes[j] = (byte) (Math.random() * 256);
+            HashKey key = HashKey.fromBytes(randomBytes, 0, randomBytes.length);
+            Assert.assertTrue(key.equalsBytes(randomBytes, 0, randomBytes.length));
+            Assert.assertEquals(key.hashCode(), HashKey.hashCodeOfBytes(randomBytes, 0, randomBytes.length));
+            Assert.assertFalse("length must be considered", key.equalsBytes(randomBytes, 0, randomBytes.length - 2));
+            randomBytes[(int) (Math.random() * 54)] ^= 0x08;
+            Assert.assertFalse(key.equalsBytes(randomBytes, 0, randomBytes.length));
+        }
+    }
+}
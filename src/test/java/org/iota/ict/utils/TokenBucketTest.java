@@ -0,0 +1,60 @@
+package org.iota.ict.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TokenBucketTest {
+
+    private static final long MILLIS = 1000000;
+
+    private final ManualClock clock = new ManualClock();
+
+    @Test
+    public void testUnlimited() {
+        TokenBucket bucket = new TokenBucket(0, clock);
+        for (int i = 0; i < 10000; i++)
+            Assert.assertTrue(bucket.tryAcquire());
+        Assert.assertEquals(0, bucket.nanosUntilNextPermit());
+    }
+
+    @Test
+    public void testLimit() {
+        TokenBucket bucket = new TokenBucket(100, clock);
+        clock.nanos += 1100 * MILLIS;
+        Assert.assertEquals("burst must not exceed one second of permits", 100, countAcquirable(bucket));
+
+        clock.nanos += 200 * MILLIS;
+        Assert.assertEquals("unexpected amount of refilled permits", 20, countAcquirable(bucket));
+    }
+
+    @Test
+    public void testNanosUntilNextPermit() {
+        TokenBucket bucket = new TokenBucket(100, clock);
+        Assert.assertEquals(10 * MILLIS, bucket.nanosUntilNextPermit());
+
+        clock.nanos += 4 * MILLIS;
+        Assert.assertEquals(6 * MILLIS, bucket.nanosUntilNextPermit());
+        Assert.assertFalse(bucket.tryAcquire());
+
+        clock.nanos += 6 * MILLIS;
+        Assert.assertEquals(0, bucket.nanosUntilNextPermit());
+        Assert.assertTrue(bucket.tryAcquire());
+    }
+
+    private static int countAcquirable(TokenBucket bucket) {
+        int acquired = 0;
+        while (bucket.tryAcquire())
+            acquired++;
+        return acquired;
+    }
+
+    private static class ManualClock implements TokenBucket.Clock {
+
+        private long nanos;
+
+        @Override
+        public long nanoTime() {
+            return nanos;
+        }
+    }
+}
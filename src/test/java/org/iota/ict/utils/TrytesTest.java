@@ -41,4 +41,41 @@ public class TrytesTest {
         Assert.assertEquals(bytes.length, 2 * (int) Math.ceil(trytes.length() / 3.0));
         Assert.assertEquals("decoded bytes did not result in original trytes", trytes, Trytes.fromBytes(bytes, 0, bytes.length));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testLongEncoding() {
+        long[] values = {0, 1, -1, 13, -13, 14, -14, System.currentTimeMillis(), Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long value : values) {
+            String trytes = Trytes.fromLong(value, 27);
+            Assert.assertEquals(Trytes.fromNumber(BigInteger.valueOf(value), 27), trytes);
+            Assert.assertEquals(BigInteger.valueOf(value), Trytes.toNumber(trytes));
+        }
+        Assert.assertEquals(System.currentTimeMillis() / 1000, Trytes.toLong(Trytes.fromLong(System.currentTimeMillis() / 1000, 9)));
+    }
+
+    @Test
+    public void testBigNumberEncoding() {
+        BigInteger max = BigInteger.valueOf(3).pow(81).subtract(BigInteger.ONE).divide(BigInteger.valueOf(2));
+        BigInteger[] values = {max, max.negate(), BigInteger.valueOf(Long.MAX_VALUE).multiply(BigInteger.valueOf(12345))};
+        for (BigInteger value : values)
+            Assert.assertEquals(value, Trytes.toNumber(Trytes.fromNumber(value, 27)));
+    }
+
+    @Test
+    public void testIsTrytes() {
+        Assert.assertTrue(Trytes.isTrytes(""));
+        Assert.assertTrue(Trytes.isTrytes(Trytes.TRYTES));
+        Assert.assertFalse(Trytes.isTrytes("ABc"));
+        Assert.assertFalse(Trytes.isTrytes("AB\u00C4"));
+        Assert.assertFalse(Trytes.isTrytes("AB0"));
+    }
+
+    @Test
+    public void testTritEncoding() {
+        String trytes = Trytes.randomSequenceOfLength(30);
+        byte[] trits = new byte[trytes.length() * 3 + 6];
+        Trytes.toTrits(trytes, trits, 3);
+        Assert.assertEquals(trytes, Trytes.fromTrits(trits, 3, trytes.length() * 3));
+        Assert.assertEquals(trytes, Trytes.fromTrits(Trytes.toTrits(trytes)));
+    }
+}
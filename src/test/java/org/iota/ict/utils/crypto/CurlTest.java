@@ -0,0 +1,133 @@
+package org.iota.ict.utils.crypto;
+
+import com.iota.curl.IotaCurlHash;
+import org.iota.ict.utils.Trytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.LinkedList;
+import java.util.List;
+
+public class CurlTest {
+
+    @Test
+    public void testHashEqualsIotaCurlHash() {
+        for (int rounds : new int[]{9, 18, 27, 81}) {
+            for (int chunks = 1; chunks <= 4; chunks++) {
+                String trytes = Trytes.randomSequenceOfLength(chunks * Curl.HASH_TRYTE_LENGTH);
+                Assert.assertEquals(IotaCurlHash.iotaCurlHash(trytes, trytes.length(), rounds), Curl.hash(trytes, rounds));
+            }
+        }
+    }
+
+    @Test
+    public void testUnalignedInput() {
+        for (int length : new int[]{0, 1, 100, 297, 378}) {
+            String trytes = Trytes.randomSequenceOfLength(length);
+            Assert.assertEquals(IotaCurlHash.iotaCurlHash(trytes, trytes.length(), 27), Curl.hash(trytes, 27));
+        }
+    }
+
+    @Test
+    public void testIncrementalAbsorb() {
+        String trytes = Trytes.randomSequenceOfLength(1000);
+        byte[] trits = Trytes.toTrits(trytes);
+        Curl curl = new Curl(27);
+        for (int offset = 0, piece = 0; offset < trytes.length(); piece++) {
+            int length = Math.min(trytes.length() - offset, (int) (Math.random() * 120));
+            if (piece % 3 == 0) {
+                curl.absorb(trits, 3 * offset, 3 * length);
+            } else if (piece % 3 == 1 || length < 3) {
+                curl.absorbTrytes(trytes, offset, length);
+            } else {
+                length -= length % 3;
+                curl.absorbBytes(Trytes.toBytes(trytes.substring(offset, offset + length)), 0, length / 3 * 2);
+            }
+            offset += length;
+        }
+        Assert.assertEquals(IotaCurlHash.iotaCurlHash(trytes, trytes.length(), 27), curl.squeeze());
+    }
+
+    @Test
+    public void testAbsorbTrytesAtUnalignedPosition() {
+        byte[] trits = Trytes.toTrits(Trytes.randomSequenceOfLength(81));
+        Curl curl = new Curl(27);
+        curl.absorb(trits, 0, 1);
+        curl.absorbTrytes(Trytes.fromTrits(trits, 1, 18), 0, 6);
+
+        Curl reference = new Curl(27);
+        reference.absorb(trits, 0, 19);
+        Assert.assertEquals(reference.squeeze(), curl.squeeze());
+    }
+
+    @Test
+    public void testAbsorbBytes() {
+        String trytes = Trytes.randomSequenceOfLength(2 * Curl.HASH_TRYTE_LENGTH);
+        byte[] bytes = Trytes.toBytes(trytes);
+
+        Curl curl = new Curl(27);
+        curl.absorbBytes(bytes, 0, bytes.length);
+        byte[] hash = new byte[Curl.HASH_LENGTH];
+        curl.squeeze(hash, 0);
+
+        Assert.assertEquals(Curl.hash(trytes, 27), Trytes.fromTrits(hash));
+    }
+
+    @Test
+    public void testMultipleSqueezes() {
+        String trytes = Trytes.randomSequenceOfLength(Curl.HASH_TRYTE_LENGTH);
+        byte[] trits = Trytes.toTrits(trytes);
+
+        Curl curl = new Curl(27);
+        curl.absorb(trits, 0, trits.length);
+        byte[] first = new byte[Curl.HASH_LENGTH], second = new byte[Curl.HASH_LENGTH];
+        curl.squeeze(first, 0);
+        curl.squeeze(second, 0);
+
+        Assert.assertEquals(Curl.hash(trytes, 27), Trytes.fromTrits(first));
+        Assert.assertNotEquals(Trytes.fromTrits(first), Trytes.fromTrits(second));
+
+        curl.reset();
+        curl.absorb(trits, 0, trits.length);
+        byte[] afterReset = new byte[Curl.HASH_LENGTH];
+        curl.squeeze(afterReset, 0);
+        Assert.assertArrayEquals(first, afterReset);
+    }
+
+    @Test
+    public void testBatchEqualsSingleHashes() {
+        for (int batchSize : new int[]{2, 5, BatchCurl.MAX_BATCH_SIZE}) {
+            List<String> messages = new LinkedList<>();
+            for (int i = 0; i < batchSize; i++)
+                messages.add(Trytes.randomSequenceOfLength(3 * Curl.HASH_TRYTE_LENGTH));
+            String[] hashes = BatchCurl.hash(messages, 27);
+            for (int i = 0; i < batchSize; i++)
+                Assert.assertEquals(Curl.hash(messages.get(i), 27), hashes[i]);
+        }
+    }
+
+    @Test
+    public void testBatchSqueezeAndLoadZeros() {
+        String message = Trytes.randomSequenceOfLength(Curl.HASH_TRYTE_LENGTH);
+        byte[] trits = Trytes.toTrits(message);
+
+        Curl curl = new Curl(81);
+        curl.absorb(trits, 0, trits.length);
+        curl.absorbZeros(Curl.HASH_LENGTH);
+        byte[] expectedFirst = new byte[Curl.HASH_LENGTH], expectedSecond = new byte[Curl.HASH_LENGTH];
+        curl.squeeze(expectedFirst, 0);
+        curl.squeeze(expectedSecond, 0);
+
+        BatchCurl batchCurl = new BatchCurl(81);
+        batchCurl.loadTrytes(3, message, 0);
+        batchCurl.transform();
+        batchCurl.loadZeros();
+        batchCurl.transform();
+        byte[] actual = new byte[Curl.HASH_LENGTH];
+        batchCurl.squeeze(3, actual, 0);
+        Assert.assertArrayEquals(expectedFirst, actual);
+        batchCurl.nextSqueeze();
+        batchCurl.squeeze(3, actual, 0);
+        Assert.assertArrayEquals(expectedSecond, actual);
+    }
+}
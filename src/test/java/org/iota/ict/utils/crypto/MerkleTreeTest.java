@@ -4,6 +4,10 @@ import org.iota.ict.utils.Trytes;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
 public class MerkleTreeTest {
 
     // tree generation takes long -> use one tree for all tests
@@ -35,4 +39,64 @@ public class MerkleTreeTest {
 
         Assert.assertEquals("Concatenated signature split failed.", addressOfMerkleTree, addressOfSplitSignature);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAddressMatchesLeaves() {
+        String seed = Trytes.randomSequenceOfLength(81);
+        MerkleTree tree = new MerkleTree(seed, 1, 2);
+
+        String[] leaves = new String[4];
+        for (int i = 0; i < leaves.length; i++)
+            leaves[i] = SignatureSchemeImplementation.deriveAddressFromSeed(seed, i, 1);
+        String expectedAddress = hashNodes(hashNodes(leaves[0], leaves[1]), hashNodes(leaves[2], leaves[3]));
+
+        Assert.assertEquals("Merkle tree address derived incorrectly.", expectedAddress, tree.getAddress());
+        for (int index = 0; index < leaves.length; index++)
+            Assert.assertEquals("Signature index derived incorrectly.", index, tree.sign(index, Trytes.randomSequenceOfLength(27)).deriveIndex());
+    }
+
+    @Test
+    public void testStoreAndRestore() throws IOException {
+        File file = File.createTempFile("merkle", ".tree");
+        file.deleteOnExit();
+        Assert.assertTrue(file.delete());
+        String seed = Trytes.randomSequenceOfLength(81);
+
+        MerkleTree built = new MerkleTree(seed, 1, 3, file);
+        Assert.assertTrue("Tree was not stored.", file.exists());
+        MerkleTree restored = new MerkleTree(seed, 1, 3, file);
+        Assert.assertEquals(built.getAddress(), restored.getAddress());
+        String toSign = Trytes.randomSequenceOfLength(27);
+        Assert.assertEquals(built.getAddress(), restored.sign(5, toSign).deriveAddress());
+
+        // file of a different seed must not be used
+        String otherSeed = Trytes.randomSequenceOfLength(81);
+        MerkleTree other = new MerkleTree(otherSeed, 1, 3, file);
+        Assert.assertEquals(new MerkleTree(otherSeed, 1, 3).getAddress(), other.getAddress());
+    }
+
+    @Test
+    public void testCorruptedFileIsNotRestored() throws IOException {
+        File file = File.createTempFile("merkle", ".tree");
+        file.deleteOnExit();
+        Assert.assertTrue(file.delete());
+        String seed = Trytes.randomSequenceOfLength(81);
+        String address = new MerkleTree(seed, 1, 3, file).getAddress();
+        Assert.assertFalse("Temporary file was left behind.", new File(file.getPath() + ".tmp").exists());
+
+        // replace the fourth leaf by the third one, the first leaf still matches the seed
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        int leavesOffset = 3 * 4;
+        System.arraycopy(bytes, leavesOffset + 2 * Curl.HASH_BYTE_LENGTH, bytes, leavesOffset + 3 * Curl.HASH_BYTE_LENGTH, Curl.HASH_BYTE_LENGTH);
+        Files.write(file.toPath(), bytes);
+
+        MerkleTree rebuilt = new MerkleTree(seed, 1, 3, file);
+        Assert.assertEquals(address, rebuilt.getAddress());
+        for (int index = 0; index < 8; index++)
+            Assert.assertEquals("Corrupted leaf was restored.", address, rebuilt.sign(index, Trytes.randomSequenceOfLength(27)).deriveAddress());
+    }
+
+    private static String hashNodes(String nodeA, String nodeB) {
+        return SignatureSchemeImplementation.hash(nodeA.compareTo(nodeB) < 0 ? nodeA + nodeB : nodeB + nodeA);
+    }
+}
@@ -35,4 +35,28 @@ public class SignatureSchemeImplementationTest {
         SignatureSchemeImplementation.Signature signature = privateKey.sign(toSign);
         Assert.assertEquals("Address of signature derived incorrectly.", addressOfPrivateKey, signature.deriveAddress());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testHashChains() {
+        int[] rounds = {0, 1, 2, 27, 28, 5, 13, 13, 1};
+        String chains = Trytes.randomSequenceOfLength(rounds.length * SignatureSchemeImplementation.HASH_LENGTH);
+        byte[] trits = Trytes.toTrits(chains);
+        SignatureSchemeImplementation.hashChains(trits, rounds);
+
+        for (int i = 0; i < rounds.length; i++) {
+            String chain = chains.substring(i * SignatureSchemeImplementation.HASH_LENGTH, (i + 1) * SignatureSchemeImplementation.HASH_LENGTH);
+            String expected = rounds[i] == 0 ? chain : SignatureSchemeImplementation.hash(chain, rounds[i]);
+            Assert.assertEquals("Chain " + i + " advanced incorrectly.", expected, Trytes.fromTrits(trits, i * Curl.HASH_LENGTH, Curl.HASH_LENGTH));
+        }
+    }
+
+    @Test
+    public void testSignatureOfDifferentMessage() {
+        String seed = Trytes.randomSequenceOfLength(81);
+        SignatureSchemeImplementation.PrivateKey privateKey = SignatureSchemeImplementation.derivePrivateKeyFromSeed(seed, 0, 1);
+        SignatureSchemeImplementation.Signature signature = privateKey.sign(Trytes.randomSequenceOfLength(27));
+
+        SignatureSchemeImplementation.Signature forged = new SignatureSchemeImplementation.Signature(signature.toString(), Trytes.randomSequenceOfLength(27));
+        Assert.assertNotEquals(privateKey.deriveAddress(), forged.deriveAddress());
+    }
+}